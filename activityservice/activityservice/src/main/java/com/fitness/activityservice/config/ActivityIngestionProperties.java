@@ -0,0 +1,20 @@
+package com.fitness.activityservice.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+@Component
+@ConfigurationProperties(prefix = "activity.ingestion")
+@Data
+public class ActivityIngestionProperties {
+
+    public enum Mode {
+        BLOCKING, // validation, save and publish run on the Tomcat request thread
+        REACTIVE  // the request thread is released and the chain runs on WebClient / Mongo / Kafka callbacks
+    }
+
+    private Mode mode = Mode.BLOCKING;
+
+    private int batchMaxSize = 500; // upper bound for POST /api/activites/batch
+}
@@ -0,0 +1,28 @@
+package com.fitness.activityservice.config;
+
+import com.fitness.common.activity.ActivityEvent;
+import org.apache.kafka.clients.producer.ProducerConfig;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.autoconfigure.kafka.KafkaProperties;
+import org.springframework.boot.ssl.SslBundles;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.kafka.core.DefaultKafkaProducerFactory;
+import org.springframework.kafka.core.KafkaTemplate;
+
+import java.util.Map;
+
+@Configuration
+public class OutboxKafkaConfig {
+
+    // spring.kafka.producer settings plus activity.outbox.linger. The linger is set here and not on
+    // spring.kafka.producer so it only delays the relay's sends, which run off the request path
+    @Bean
+    public KafkaTemplate<String, ActivityEvent> outboxKafkaTemplate(KafkaProperties kafkaProperties,
+                                                                    ObjectProvider<SslBundles> sslBundles,
+                                                                    OutboxProperties outboxProperties) {
+        Map<String, Object> producerProperties = kafkaProperties.buildProducerProperties(sslBundles.getIfAvailable());
+        producerProperties.put(ProducerConfig.LINGER_MS_CONFIG, (int) outboxProperties.getLinger().toMillis());
+        return new KafkaTemplate<>(new DefaultKafkaProducerFactory<>(producerProperties));
+    }
+}
@@ -0,0 +1,32 @@
+package com.fitness.activityservice.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+
+@Component
+@ConfigurationProperties(prefix = "activity.outbox")
+@Data
+public class OutboxProperties {
+
+    // Only one replica should drain the outbox, otherwise events are published twice
+    private boolean relayEnabled = true;
+
+    private int batchSize = 200;
+
+    private long pollIntervalMs = 500;
+
+    private Duration sendTimeout = Duration.ofSeconds(10);
+
+    // How long the relay's producer waits to fill a batch; see OutboxKafkaConfig
+    private Duration linger = Duration.ofMillis(20);
+
+    private Duration initialBackoff = Duration.ofSeconds(1);
+
+    private Duration maxBackoff = Duration.ofMinutes(5);
+
+    // An event that failed this many times is parked and no longer holds back the user's later events
+    private int maxAttempts = 20;
+}
@@ -1,15 +1,34 @@
 package com.fitness.activityservice.controller;
 
 
-import com.fitness.activityservice.dto.ActivityRequest;
-import com.fitness.activityservice.dto.ActivityResponse;
+import com.fitness.activityservice.config.ActivityIngestionProperties;
+import com.fitness.activityservice.dto.ActivityBatchRequest;
+import com.fitness.activityservice.dto.ActivityBatchResponse;
+import com.fitness.activityservice.dto.ActivityPage;
+import com.fitness.activityservice.dto.ActivityStats;
+import com.fitness.activityservice.dto.PersonalRecords;
+import com.fitness.activityservice.model.ActivityAggregate;
+import com.fitness.activityservice.service.ActivityAggregateService;
+import com.fitness.activityservice.service.ActivityExportService;
 import com.fitness.activityservice.service.ActivityService;
 import com.fitness.activityservice.service.UserValidationService;
+import com.fitness.common.activity.ActivityRequest;
+import com.fitness.common.activity.ActivityResponse;
+import com.fitness.common.activity.ActivityType;
 import lombok.AllArgsConstructor;
 import org.apache.coyote.Response;
+import org.bson.types.ObjectId;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+import reactor.core.publisher.Mono;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
 
 @RestController
 @RequestMapping("/api/activites")
@@ -22,14 +41,135 @@ public class ActivityController {
     @Autowired
     private UserValidationService userValidationService;
 
+    @Autowired
+    private ActivityIngestionProperties ingestionProperties;
+
+    @Autowired
+    private ActivityExportService activityExportService;
+
+    @Autowired
+    private ActivityAggregateService activityAggregateService;
+
+    // Returns a Mono only in reactive mode: MVC then handles the request asynchronously and frees the Tomcat
+    // thread. In blocking mode the plain ResponseEntity keeps the synchronous dispatch, without
+    // spring.mvc.async.request-timeout applying.
     @PostMapping
-    public ResponseEntity<ActivityResponse> trackActivity(@RequestBody ActivityRequest request) {
+    public Object trackActivity(@RequestBody ActivityRequest request) {
+
+        if (ingestionProperties.getMode() == ActivityIngestionProperties.Mode.REACTIVE) {
+            return userValidationService.validateUserReactive(request.userId())
+                    .flatMap(isValid -> {
+                        if (!isValid) {
+                            return Mono.error(new RuntimeException("Invalid user Id : " + request.userId()));
+                        }
+                        return activityService.trackActivityReactive(request);
+                    })
+                    .map(ResponseEntity::ok);
+        }
+
+        Boolean isValid = userValidationService.validateUser(request.userId());
+        if (!isValid) {
+            throw new RuntimeException("Invalid user Id : " + request.userId());
+        }
+        return ResponseEntity.ok(activityService.trackActivity(request));
+    }
+
+    @PostMapping("/batch")
+    public ResponseEntity<ActivityBatchResponse> trackActivities(@RequestBody ActivityBatchRequest request) {
+
+        if (request.getActivities() == null || request.getActivities().isEmpty()) {
+            throw new RuntimeException("Batch must contain at least one activity");
+        }
+        if (request.getActivities().size() > ingestionProperties.getBatchMaxSize()) {
+            throw new RuntimeException("Batch size " + request.getActivities().size()
+                    + " exceeds the limit of " + ingestionProperties.getBatchMaxSize());
+        }
 
         Boolean isValid = userValidationService.validateUser(request.getUserId());
         if (!isValid) {
             throw new RuntimeException("Invalid user Id : " + request.getUserId());
         }
-        return ResponseEntity.ok(activityService.trackActivity(request));
+        return ResponseEntity.ok(activityService.trackActivities(request));
+    }
+
+    // Newest first; from is inclusive, to exclusive. Pass the returned nextCursor to get the following page.
+    @GetMapping
+    public ResponseEntity<ActivityPage> getActivities(
+            @RequestParam(value = "userId", required = false) String userId,
+            @RequestHeader(value = "X-User-ID", required = false) String headerUserId,
+            @RequestParam(value = "type", required = false) ActivityType type,
+            @RequestParam(value = "from", required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+            @RequestParam(value = "to", required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to,
+            @RequestParam(value = "cursor", required = false) String cursor,
+            @RequestParam(value = "limit", required = false) Integer limit) {
+
+        String owner = userId != null ? userId : headerUserId;
+        if (owner == null || owner.isBlank()) {
+            throw new RuntimeException("userId is required");
+        }
+        return ResponseEntity.ok(activityService.getActivities(owner, type, from, to, cursor, limit));
+    }
+
+    // Full history as NDJSON (default) or CSV, written while it is read from Mongo.
+    // afterId resumes an interrupted export after the last id the client received.
+    @GetMapping("/export")
+    public ResponseEntity<StreamingResponseBody> exportActivities(
+            @RequestParam(value = "userId", required = false) String userId,
+            @RequestHeader(value = "X-User-ID", required = false) String headerUserId,
+            @RequestParam(value = "format", defaultValue = "ndjson") String format,
+            @RequestParam(value = "afterId", required = false) String afterId) {
+
+        String owner = userId != null ? userId : headerUserId;
+        if (owner == null || owner.isBlank()) {
+            throw new RuntimeException("userId is required");
+        }
+        ActivityExportService.Format exportFormat;
+        try {
+            exportFormat = ActivityExportService.Format.valueOf(format.toUpperCase());
+        } catch (IllegalArgumentException e) {
+            throw new RuntimeException("Unsupported export format : " + format);
+        }
+        // checked here because errors raised once the body is streaming can no longer change the status
+        if (afterId != null && !afterId.isBlank() && !ObjectId.isValid(afterId)) {
+            throw new RuntimeException("Invalid afterId : " + afterId);
+        }
+
+        StreamingResponseBody body = out -> activityExportService.export(owner, afterId, exportFormat, out);
+        return ResponseEntity.ok()
+                .contentType(MediaType.parseMediaType(exportFormat.getContentType()))
+                .header(HttpHeaders.CONTENT_DISPOSITION,
+                        "attachment; filename=\"activities-" + owner + "." + exportFormat.getExtension() + "\"")
+                .body(body);
+    }
+
+    // Totals per DAY / WEEK / MONTH from the precomputed rollups; without from, the latest buckets are returned
+    @GetMapping("/stats")
+    public ResponseEntity<ActivityStats> getStats(
+            @RequestParam(value = "userId", required = false) String userId,
+            @RequestHeader(value = "X-User-ID", required = false) String headerUserId,
+            @RequestParam(value = "period", defaultValue = "WEEK") ActivityAggregate.Period period,
+            @RequestParam(value = "from", required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam(value = "to", required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to) {
+
+        String owner = userId != null ? userId : headerUserId;
+        if (owner == null || owner.isBlank()) {
+            throw new RuntimeException("userId is required");
+        }
+        return ResponseEntity.ok(activityAggregateService.getStats(owner, period, from, to));
+    }
+
+    // Longest distance, fastest pace and most elevation among the user's activities of one type
+    @GetMapping("/records")
+    public ResponseEntity<PersonalRecords> getPersonalRecords(
+            @RequestParam(value = "userId", required = false) String userId,
+            @RequestHeader(value = "X-User-ID", required = false) String headerUserId,
+            @RequestParam(value = "type") ActivityType type) {
+
+        String owner = userId != null ? userId : headerUserId;
+        if (owner == null || owner.isBlank()) {
+            throw new RuntimeException("userId is required");
+        }
+        return ResponseEntity.ok(activityService.getPersonalRecords(owner, type));
     }
 
     @GetMapping("/{activityId}")
@@ -0,0 +1,43 @@
+package com.fitness.activityservice.controller;
+
+import com.fitness.activityservice.dto.SampleSeries;
+import com.fitness.activityservice.dto.SampleUploadResult;
+import com.fitness.activityservice.service.ActivitySampleService;
+import com.fitness.common.samples.SampleBatchCodec;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+// Raw wearable samples of one activity. Uploads are a stream of SampleBatchCodec frames, usually sent
+// with chunked transfer encoding while the recording is still being read off the device.
+@RestController
+@RequestMapping("/api/activites/{activityId}/samples")
+public class ActivitySampleController {
+
+    @Autowired
+    private ActivitySampleService activitySampleService;
+
+    @PostMapping(consumes = SampleBatchCodec.CONTENT_TYPE)
+    public ResponseEntity<SampleUploadResult> uploadSamples(@PathVariable String activityId,
+                                                            @RequestHeader(value = "X-User-ID", required = false) String userId,
+                                                            InputStream body) throws IOException {
+        SampleUploadResult result = activitySampleService.ingest(activityId, userId, body);
+        // a malformed frame still leaves the frames before it stored, so the body reports what was kept
+        return result.getError() == null ? ResponseEntity.ok(result) : ResponseEntity.badRequest().body(result);
+    }
+
+    @GetMapping
+    public ResponseEntity<SampleSeries> getSamples(@PathVariable String activityId,
+                                                   @RequestParam(required = false) Integer points) {
+        return ResponseEntity.ok(activitySampleService.getSeries(activityId, points));
+    }
+}
@@ -0,0 +1,30 @@
+package com.fitness.activityservice.dto;
+
+import com.fitness.common.activity.ActivityResponse;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class ActivityBatchItemResult {
+
+    public enum Status {
+        ACCEPTED,
+        REJECTED
+    }
+
+    private int index; // position of the item in the request
+    private Status status;
+    private ActivityResponse activity;
+    private String error;
+
+    public static ActivityBatchItemResult accepted(int index, ActivityResponse activity) {
+        return new ActivityBatchItemResult(index, Status.ACCEPTED, activity, null);
+    }
+
+    public static ActivityBatchItemResult rejected(int index, String error) {
+        return new ActivityBatchItemResult(index, Status.REJECTED, null, error);
+    }
+}
@@ -0,0 +1,14 @@
+package com.fitness.activityservice.dto;
+
+import com.fitness.common.activity.ActivityRequest;
+import lombok.Data;
+
+import java.util.List;
+
+@Data
+public class ActivityBatchRequest {
+
+    private String userId;
+    private List<ActivityRequest> activities;
+
+}
@@ -0,0 +1,13 @@
+package com.fitness.activityservice.dto;
+
+import lombok.Data;
+
+import java.util.List;
+
+@Data
+public class ActivityPage {
+
+    private List<ActivitySummary> activities;
+    private String nextCursor; // null on the last page
+
+}
@@ -1,25 +0,0 @@
-package com.fitness.activityservice.dto;
-
-import com.fitness.activityservice.model.ActivityType;
-import lombok.Data;
-import org.springframework.data.annotation.CreatedDate;
-import org.springframework.data.annotation.LastModifiedDate;
-import org.springframework.data.mongodb.core.mapping.Field;
-
-import java.time.LocalDateTime;
-import java.util.Map;
-
-@Data
-public class ActivityResponse {
-
-    private String id;
-    private String userId;
-    private ActivityType type;
-    private int duration; // in minutes
-    private int caloriesBurned;
-    private LocalDateTime startTime;
-    private Map<String, Object> additionalMatrics;
-    private LocalDateTime createdAt;
-    private LocalDateTime updatedAt;
-
-}
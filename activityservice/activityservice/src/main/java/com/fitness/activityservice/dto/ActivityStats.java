@@ -0,0 +1,19 @@
+package com.fitness.activityservice.dto;
+
+import com.fitness.activityservice.model.ActivityAggregate;
+import lombok.Data;
+
+import java.util.List;
+
+@Data
+public class ActivityStats {
+
+    private String userId;
+    private ActivityAggregate.Period period;
+    private List<ActivityAggregate> buckets; // newest first
+    private long count;
+    private long totalMinutes;
+    private long totalCalories;
+    private int currentStreakDays; // consecutive days with an activity, ending today or yesterday
+
+}
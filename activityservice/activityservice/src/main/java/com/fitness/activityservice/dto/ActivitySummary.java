@@ -1,19 +1,19 @@
 package com.fitness.activityservice.dto;
 
-import com.fitness.activityservice.model.ActivityType;
+import com.fitness.common.activity.ActivityType;
 import lombok.Data;
 
 import java.time.LocalDateTime;
-import java.util.Map;
 
+// History list entry; metrics and audit fields are left out so they are never read from Mongo
 @Data
-public class ActivityRequest {
+public class ActivitySummary {
 
+    private String id;
     private String userId;
     private ActivityType type;
     private int duration; // in minutes
     private int caloriesBurned;
     private LocalDateTime startTime;
-    private Map<String, Object> additionalMatrics;
 
 }
@@ -0,0 +1,17 @@
+package com.fitness.activityservice.dto;
+
+import com.fitness.common.activity.ActivityResponse;
+import com.fitness.common.activity.ActivityType;
+import lombok.Data;
+
+// Best activity of a user per metric; an entry is null when no activity of the type recorded that metric
+@Data
+public class PersonalRecords {
+
+    private String userId;
+    private ActivityType type;
+    private ActivityResponse longestDistance;
+    private ActivityResponse fastestPace;
+    private ActivityResponse mostElevation;
+
+}
@@ -0,0 +1,31 @@
+package com.fitness.activityservice.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.Instant;
+import java.util.List;
+
+// Samples of one activity averaged into buckets of bucketSeconds, ready to chart
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class SampleSeries {
+    private String activityId;
+    private long bucketSeconds;
+    private List<Point> points;
+
+    @Data
+    @AllArgsConstructor
+    @NoArgsConstructor
+    public static class Point {
+        private Instant time; // start of the bucket
+        private Integer heartRate;
+        private Integer maxHeartRate;
+        private Double latitude;
+        private Double longitude;
+        private Double altitudeM;
+        private Integer cadence;
+    }
+}
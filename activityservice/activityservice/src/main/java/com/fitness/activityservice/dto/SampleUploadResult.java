@@ -0,0 +1,17 @@
+package com.fitness.activityservice.dto;
+
+import com.fitness.common.activity.ActivityMetrics;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class SampleUploadResult {
+    private String activityId;
+    private int batches;
+    private long samples;
+    private ActivityMetrics metrics; // the activity's metrics after the summary fields were derived from all its samples
+    private String error; // why the upload stopped early, null when every frame was stored
+}
@@ -0,0 +1,31 @@
+package com.fitness.activityservice.mapper;
+
+import com.fitness.activityservice.model.Activity;
+import com.fitness.common.activity.ActivityEvent;
+import com.fitness.common.activity.ActivityMetrics;
+import com.fitness.common.activity.ActivityRequest;
+import com.fitness.common.activity.ActivityResponse;
+import org.mapstruct.Mapper;
+import org.mapstruct.Mapping;
+
+// Generated at compile time; fields are copied with plain getter/constructor calls, no reflection
+@Mapper(componentModel = "spring")
+public interface ActivityMapper {
+
+    @Mapping(target = "id", ignore = true)
+    @Mapping(target = "createdAt", ignore = true)
+    @Mapping(target = "updatedAt", ignore = true)
+    @Mapping(target = "outbox", ignore = true)
+    @Mapping(target = "metrics", source = "additionalMatrics")
+    Activity toEntity(ActivityRequest request);
+
+    @Mapping(target = "additionalMatrics", source = "metrics")
+    ActivityResponse toResponse(Activity activity);
+
+    @Mapping(target = "additionalMatrics", source = "metrics")
+    ActivityEvent toEvent(Activity activity);
+
+    Activity.Metrics toEntity(ActivityMetrics metrics);
+
+    ActivityMetrics toMetrics(Activity.Metrics metrics);
+}
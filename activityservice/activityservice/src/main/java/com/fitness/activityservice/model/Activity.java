@@ -1,5 +1,6 @@
 package com.fitness.activityservice.model;
 
+import com.fitness.common.activity.ActivityType;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
@@ -7,13 +8,34 @@ import lombok.NoArgsConstructor;
 import org.springframework.data.annotation.CreatedDate;
 import org.springframework.data.annotation.LastModifiedBy;
 import org.springframework.data.annotation.LastModifiedDate;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
+import org.springframework.data.mongodb.core.index.CompoundIndexes;
 import org.springframework.data.mongodb.core.mapping.Document;
 import org.springframework.data.mongodb.core.mapping.Field;
 
+import java.time.Instant;
 import java.time.LocalDateTime;
 import java.util.Map;
 
 @Document(collection = "activities")
+// Both indexes end in the history sort order (startTime desc, _id desc), so keyset pages are index scans
+@CompoundIndexes({
+        @CompoundIndex(name = "user_start_idx", def = "{'userId': 1, 'startTime': -1, '_id': -1}"),
+        @CompoundIndex(name = "user_type_start_idx", def = "{'userId': 1, 'type': 1, 'startTime': -1, '_id': -1}"),
+        // export walks a user's activities in _id order so an interrupted download can resume after the last id
+        @CompoundIndex(name = "user_id_idx", def = "{'userId': 1, '_id': 1}"),
+        // personal records: the best value of one metric for a user and type is the first index entry
+        @CompoundIndex(name = "user_type_distance_idx", def = "{'userId': 1, 'type': 1, 'm.dist': -1}"),
+        @CompoundIndex(name = "user_type_pace_idx", def = "{'userId': 1, 'type': 1, 'm.pace': 1}"),
+        @CompoundIndex(name = "user_type_elevation_idx", def = "{'userId': 1, 'type': 1, 'm.elev': -1}"),
+        // OutboxRelay: only unpublished activities are indexed, so these stay as small as the backlog
+        @CompoundIndex(name = "outbox_due_idx", def = "{'outbox.nextAttemptAt': 1, 'outbox.createdAt': 1, '_id': 1}",
+                partialFilter = "{'outbox': {'$exists': true}}"),
+        @CompoundIndex(name = "outbox_user_created_idx", def = "{'userId': 1, 'outbox.createdAt': 1}",
+                partialFilter = "{'outbox': {'$exists': true}}"),
+        @CompoundIndex(name = "outbox_created_idx", def = "{'outbox.createdAt': 1}",
+                partialFilter = "{'outbox': {'$exists': true}}")
+})
 @Data
 @Builder
 @AllArgsConstructor
@@ -26,8 +48,8 @@ public class Activity {
     private int caloriesBurned;
     private LocalDateTime startTime;
 
-    @Field("metrics")
-    private Map<String, Object> additionalMatrics;
+    @Field("m")
+    private Metrics metrics;
 
     @CreatedDate
     private LocalDateTime createdAt;
@@ -35,5 +57,49 @@ public class Activity {
     @LastModifiedDate
     private LocalDateTime updatedAt;
 
+    // Set until the activity-events message is acknowledged by Kafka. It is written with the activity itself,
+    // so an activity can never be stored without its pending event; OutboxRelay unsets it after publishing.
+    private Outbox outbox;
 
+    /**
+     * Stored form of ActivityMetrics. Field names are kept short because Mongo repeats them in every
+     * document; unset metrics are not written at all.
+     */
+    @Data
+    @Builder
+    @AllArgsConstructor
+    @NoArgsConstructor
+    public static class Metrics {
+        @Field("hr")
+        private Integer avgHeartRate;
+        @Field("hrMax")
+        private Integer maxHeartRate;
+        @Field("dist")
+        private Double distanceKm;
+        @Field("pace")
+        private Integer avgPaceSecPerKm;
+        @Field("cad")
+        private Integer cadence;
+        @Field("elev")
+        private Integer elevationGainM;
+        @Field("x")
+        private Map<String, Object> other;
+    }
+
+    @Data
+    @Builder
+    @AllArgsConstructor
+    @NoArgsConstructor
+    public static class Outbox {
+        private int attempts;
+        private Instant nextAttemptAt; // null once parked
+        private String lastError;
+        private Instant parkedAt; // set after activity.outbox.max-attempts failed sends
+        private Instant createdAt;
+
+        public static Outbox pending() {
+            Instant now = Instant.now();
+            return Outbox.builder().nextAttemptAt(now).createdAt(now).build();
+        }
+    }
 }
@@ -0,0 +1,59 @@
+package com.fitness.activityservice.model;
+
+import com.fitness.common.activity.ActivityType;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.temporal.TemporalAdjusters;
+import java.util.Map;
+
+// Running totals of one user's activities in one day, ISO week or month. Maintained with $inc upserts
+// by ActivityAggregateService, so the _id is derived from (userId, period, bucketStart).
+@Document(collection = "activity_aggregates")
+@CompoundIndex(name = "user_period_bucket_idx", def = "{'userId': 1, 'period': 1, 'bucketStart': -1}")
+@Data
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+public class ActivityAggregate {
+
+    public enum Period {
+        DAY, WEEK, MONTH;
+
+        public LocalDate bucketStart(LocalDate date) {
+            return switch (this) {
+                case DAY -> date;
+                case WEEK -> date.with(TemporalAdjusters.previousOrSame(DayOfWeek.MONDAY));
+                case MONTH -> date.withDayOfMonth(1);
+            };
+        }
+    }
+
+    private String id;
+    private String userId;
+    private Period period;
+    private LocalDate bucketStart;
+    private long count;
+    private long totalMinutes;
+    private long totalCalories;
+    private Map<ActivityType, Totals> byType;
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Totals {
+        private long count;
+        private long minutes;
+        private long calories;
+    }
+
+    public static String idFor(String userId, Period period, LocalDate bucketStart) {
+        return userId + ":" + period + ":" + bucketStart;
+    }
+}
@@ -0,0 +1,44 @@
+package com.fitness.activityservice.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.data.mongodb.core.mapping.Document;
+import org.springframework.data.mongodb.core.mapping.Field;
+import org.springframework.data.mongodb.core.mapping.TimeSeries;
+import org.springframework.data.mongodb.core.timeseries.Granularity;
+
+import java.time.Instant;
+
+// Per-second wearable reading. activity_samples is a time-series collection: Mongo groups the samples of one
+// meta (activity) into compressed buckets, so each document here costs a few bytes on disk.
+// The collection and its index are created by ActivitySampleService, not by auto-index-creation.
+@Document(collection = "activity_samples")
+@TimeSeries(timeField = "time", metaField = "meta", granularity = Granularity.SECONDS)
+@Data
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+public class ActivitySample {
+    private Instant time;
+    private Meta meta;
+    @Field("hr")
+    private Integer heartRate;
+    @Field("lat")
+    private Double latitude;
+    @Field("lon")
+    private Double longitude;
+    @Field("alt")
+    private Double altitudeM;
+    @Field("cad")
+    private Integer cadence;
+
+    @Data
+    @AllArgsConstructor
+    @NoArgsConstructor
+    public static class Meta {
+        private String activityId;
+        private String userId;
+    }
+}
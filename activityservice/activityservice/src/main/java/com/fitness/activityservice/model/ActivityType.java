@@ -1,14 +0,0 @@
-package com.fitness.activityservice.model;
-
-public enum ActivityType {
-    RUNNING,
-    CYCLING,
-    SWIMMING,
-    WALKING,
-    YOGA,
-    STRENGTH_TRAINING,
-    HIIT,
-    DANCE,
-    PILATES,
-    ROWING
-}
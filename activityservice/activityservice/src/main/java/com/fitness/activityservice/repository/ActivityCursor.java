@@ -0,0 +1,36 @@
+package com.fitness.activityservice.repository;
+
+import org.bson.types.ObjectId;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.Base64;
+
+/**
+ * Position of the last activity on a history page. Pages are ordered by (startTime desc, id desc),
+ * so the next page starts strictly after this pair. Encoded as opaque base64url for clients.
+ */
+public record ActivityCursor(LocalDateTime startTime, String id) {
+
+    private static final String NO_START_TIME = "-";
+
+    public String encode() {
+        String raw = (startTime == null ? NO_START_TIME : startTime.toString()) + "|" + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    public static ActivityCursor decode(String cursor) {
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            int separator = raw.indexOf('|');
+            String time = raw.substring(0, separator);
+            String id = raw.substring(separator + 1);
+            if (!ObjectId.isValid(id)) {
+                throw new IllegalArgumentException("not an activity id");
+            }
+            return new ActivityCursor(NO_START_TIME.equals(time) ? null : LocalDateTime.parse(time), id);
+        } catch (RuntimeException e) {
+            throw new RuntimeException("Invalid cursor : " + cursor);
+        }
+    }
+}
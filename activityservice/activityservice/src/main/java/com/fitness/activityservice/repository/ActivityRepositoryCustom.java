@@ -0,0 +1,25 @@
+package com.fitness.activityservice.repository;
+
+import com.fitness.activityservice.dto.ActivitySummary;
+import com.fitness.activityservice.model.Activity;
+import com.fitness.common.activity.ActivityType;
+import org.springframework.data.domain.Sort;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+
+public interface ActivityRepositoryCustom {
+
+    /**
+     * One page of a user's activities, newest first. type, from, to and after are optional.
+     */
+    List<ActivitySummary> findHistoryPage(String userId, ActivityType type, LocalDateTime from, LocalDateTime to,
+                                          ActivityCursor after, int limit);
+
+    /**
+     * The user's activity of the given type with the highest (DESC) or lowest (ASC) value of a metric,
+     * e.g. "m.dist". Activities without that metric are skipped.
+     */
+    Optional<Activity> findBestByMetric(String userId, ActivityType type, String metricField, Sort.Direction direction);
+}
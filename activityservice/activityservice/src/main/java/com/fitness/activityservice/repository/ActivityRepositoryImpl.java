@@ -0,0 +1,83 @@
+package com.fitness.activityservice.repository;
+
+import com.fitness.activityservice.dto.ActivitySummary;
+import com.fitness.activityservice.model.Activity;
+import com.fitness.common.activity.ActivityType;
+import org.bson.types.ObjectId;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+
+// Keyset pagination over the user_start_idx / user_type_start_idx indexes declared on Activity,
+// personal records over the user_type_*_idx metric indexes
+public class ActivityRepositoryImpl implements ActivityRepositoryCustom {
+
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
+    @Override
+    public List<ActivitySummary> findHistoryPage(String userId, ActivityType type, LocalDateTime from, LocalDateTime to,
+                                                 ActivityCursor after, int limit) {
+
+        List<Criteria> filters = new ArrayList<>();
+        filters.add(Criteria.where("userId").is(userId));
+        if (type != null) {
+            filters.add(Criteria.where("type").is(type));
+        }
+        if (from != null || to != null) {
+            Criteria startTime = Criteria.where("startTime");
+            if (from != null) {
+                startTime.gte(from);
+            }
+            if (to != null) {
+                startTime.lt(to);
+            }
+            filters.add(startTime);
+        }
+        if (after != null) {
+            filters.add(after(after));
+        }
+
+        Query query = new Query(new Criteria().andOperator(filters))
+                .with(Sort.by(Sort.Direction.DESC, "startTime", "_id"))
+                .limit(limit);
+        query.fields().include("userId", "type", "duration", "caloriesBurned", "startTime");
+
+        return mongoTemplate.query(Activity.class)
+                .as(ActivitySummary.class)
+                .matching(query)
+                .all();
+    }
+
+    @Override
+    public Optional<Activity> findBestByMetric(String userId, ActivityType type, String metricField, Sort.Direction direction) {
+        // ne(null) rather than exists(true): it becomes index bounds instead of a filter on fetched documents
+        Query query = new Query(new Criteria().andOperator(
+                Criteria.where("userId").is(userId),
+                Criteria.where("type").is(type),
+                Criteria.where(metricField).ne(null)))
+                .with(Sort.by(direction, metricField))
+                .limit(1);
+        return Optional.ofNullable(mongoTemplate.findOne(query, Activity.class));
+    }
+
+    // Everything sorting after the cursor in (startTime desc, _id desc) order. Activities without a
+    // startTime sort last, so they follow every dated activity.
+    private static Criteria after(ActivityCursor cursor) {
+        ObjectId id = new ObjectId(cursor.id());
+        if (cursor.startTime() == null) {
+            return new Criteria().andOperator(Criteria.where("startTime").is(null), Criteria.where("_id").lt(id));
+        }
+        return new Criteria().orOperator(
+                Criteria.where("startTime").lt(cursor.startTime()),
+                new Criteria().andOperator(Criteria.where("startTime").is(cursor.startTime()), Criteria.where("_id").lt(id)),
+                Criteria.where("startTime").is(null));
+    }
+}
@@ -0,0 +1,9 @@
+package com.fitness.activityservice.repository;
+
+import com.fitness.activityservice.model.Activity;
+import org.springframework.data.mongodb.repository.ReactiveMongoRepository;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public interface ReactiveActivityRepository extends ReactiveMongoRepository<Activity, String> {
+}
@@ -0,0 +1,38 @@
+package com.fitness.activityservice.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+// One-off backfill of activity_aggregates for activities tracked before the rollups existed, or repair of the
+// users named in activity.aggregates.rebuild-user-ids after failed updates. Not exposed over HTTP on purpose.
+// Enable with activity.aggregates.rebuild-on-startup=true on a single instance, then switch it off again.
+@Component
+@Slf4j
+@ConditionalOnProperty(name = "activity.aggregates.rebuild-on-startup", havingValue = "true")
+public class ActivityAggregateBackfill implements ApplicationRunner {
+
+    @Autowired
+    private ActivityAggregateService activityAggregateService;
+
+    // empty: every user
+    @Value("${activity.aggregates.rebuild-user-ids:}")
+    private List<String> userIds;
+
+    @Override
+    public void run(ApplicationArguments args) {
+        if (userIds.isEmpty()) {
+            log.info("Rebuilding activity aggregates for all users");
+            activityAggregateService.rebuildAll();
+            return;
+        }
+        log.info("Rebuilding activity aggregates for {} users", userIds.size());
+        userIds.forEach(activityAggregateService::rebuild);
+    }
+}
@@ -0,0 +1,230 @@
+package com.fitness.activityservice.service;
+
+import com.fitness.activityservice.dto.ActivityStats;
+import com.fitness.activityservice.model.Activity;
+import com.fitness.activityservice.model.ActivityAggregate;
+import com.fitness.common.activity.ActivityType;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.ReactiveBulkOperations;
+import org.springframework.data.mongodb.core.ReactiveMongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.data.util.Pair;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Mono;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
+
+/**
+ * Keeps per-user DAY / WEEK / MONTH rollups in activity_aggregates up to date as activities are tracked,
+ * so stats are read from a handful of buckets instead of scanning the activities collection.
+ *
+ * Activities of one call that fall into the same bucket are merged first and each touched bucket gets a
+ * single $inc upsert. The update runs after the activity is saved and is not part of the same write; if it
+ * fails the error is logged and counted (activity.aggregates.update-failures), and rebuild() brings the
+ * user's buckets back in line with the activities collection.
+ */
+@Service
+@Slf4j
+public class ActivityAggregateService {
+
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
+    @Autowired
+    private ReactiveMongoTemplate reactiveMongoTemplate;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${activity.aggregates.default-buckets:12}")
+    private int defaultBuckets;
+
+    public void record(List<Activity> activities) {
+        List<Pair<Query, Update>> upserts = upserts(activities);
+        if (upserts.isEmpty()) {
+            return;
+        }
+        try {
+            mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, ActivityAggregate.class)
+                    .upsert(upserts)
+                    .execute();
+        } catch (Exception e) {
+            updateFailed(e);
+        }
+    }
+
+    public Mono<Void> recordReactive(Activity activity) {
+        ReactiveBulkOperations bulk = reactiveMongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, ActivityAggregate.class);
+        upserts(List.of(activity)).forEach(upsert -> bulk.upsert(upsert.getFirst(), upsert.getSecond()));
+        return bulk.execute()
+                .doOnError(this::updateFailed)
+                .onErrorResume(e -> Mono.empty())
+                .then();
+    }
+
+    public ActivityStats getStats(String userId, ActivityAggregate.Period period, LocalDate from, LocalDate to) {
+        Criteria criteria = Criteria.where("userId").is(userId).and("period").is(period);
+        if (from != null || to != null) {
+            Criteria bucketStart = criteria.and("bucketStart");
+            if (from != null) {
+                bucketStart.gte(period.bucketStart(from));
+            }
+            if (to != null) {
+                bucketStart.lte(to);
+            }
+        }
+        Query query = new Query(criteria).with(Sort.by(Sort.Direction.DESC, "bucketStart"));
+        if (from == null) {
+            query.limit(defaultBuckets);
+        }
+        List<ActivityAggregate> buckets = mongoTemplate.find(query, ActivityAggregate.class);
+
+        ActivityStats stats = new ActivityStats();
+        stats.setUserId(userId);
+        stats.setPeriod(period);
+        stats.setBuckets(buckets);
+        for (ActivityAggregate bucket : buckets) {
+            stats.setCount(stats.getCount() + bucket.getCount());
+            stats.setTotalMinutes(stats.getTotalMinutes() + bucket.getTotalMinutes());
+            stats.setTotalCalories(stats.getTotalCalories() + bucket.getTotalCalories());
+        }
+        stats.setCurrentStreakDays(currentStreak(userId, LocalDate.now()));
+        return stats;
+    }
+
+    // Walks the DAY buckets backwards and stops at the first gap, so the cost is the length of the streak
+    int currentStreak(String userId, LocalDate today) {
+        Query query = new Query(Criteria.where("userId").is(userId)
+                .and("period").is(ActivityAggregate.Period.DAY)
+                .and("bucketStart").lte(today))
+                .with(Sort.by(Sort.Direction.DESC, "bucketStart"))
+                .cursorBatchSize(64);
+        query.fields().include("bucketStart", "count");
+
+        int streak = 0;
+        LocalDate expected = today;
+        try (Stream<ActivityAggregate> days = mongoTemplate.stream(query, ActivityAggregate.class)) {
+            Iterator<ActivityAggregate> iterator = days.iterator();
+            while (iterator.hasNext()) {
+                ActivityAggregate day = iterator.next();
+                if (day.getCount() <= 0) {
+                    continue;
+                }
+                if (streak == 0 && day.getBucketStart().equals(today.minusDays(1))) {
+                    expected = day.getBucketStart(); // nothing tracked yet today, the streak is still alive
+                }
+                if (!day.getBucketStart().equals(expected)) {
+                    break;
+                }
+                streak++;
+                expected = expected.minusDays(1);
+            }
+        }
+        return streak;
+    }
+
+    /**
+     * Recomputes all buckets of one user from the activities collection. Activities tracked while the
+     * rebuild runs may be counted twice or not at all, so run it when the user is not syncing.
+     */
+    public int rebuild(String userId) {
+        Query activitiesQuery = new Query(Criteria.where("userId").is(userId)).cursorBatchSize(500);
+        activitiesQuery.fields().include("userId", "type", "duration", "caloriesBurned", "startTime", "createdAt");
+
+        Map<String, ActivityAggregate> buckets = new LinkedHashMap<>();
+        try (Stream<Activity> activities = mongoTemplate.stream(activitiesQuery, Activity.class)) {
+            activities.forEach(activity -> merge(buckets, activity));
+        }
+
+        mongoTemplate.remove(new Query(Criteria.where("userId").is(userId)), ActivityAggregate.class);
+        if (!buckets.isEmpty()) {
+            mongoTemplate.insert(buckets.values(), ActivityAggregate.class);
+        }
+        log.info("Rebuilt {} activity aggregates for user {}", buckets.size(), userId);
+        return buckets.size();
+    }
+
+    public int rebuildAll() {
+        List<String> userIds = mongoTemplate.findDistinct(new Query(), "userId", Activity.class, String.class);
+        int buckets = 0;
+        for (String userId : userIds) {
+            buckets += rebuild(userId);
+        }
+        log.info("Rebuilt activity aggregates for {} users", userIds.size());
+        return buckets;
+    }
+
+    private List<Pair<Query, Update>> upserts(List<Activity> activities) {
+        Map<String, ActivityAggregate> deltas = new LinkedHashMap<>();
+        for (Activity activity : activities) {
+            merge(deltas, activity);
+        }
+
+        List<Pair<Query, Update>> upserts = new ArrayList<>(deltas.size());
+        for (ActivityAggregate delta : deltas.values()) {
+            Update update = new Update()
+                    .setOnInsert("userId", delta.getUserId())
+                    .setOnInsert("period", delta.getPeriod())
+                    .setOnInsert("bucketStart", delta.getBucketStart())
+                    .inc("count", delta.getCount())
+                    .inc("totalMinutes", delta.getTotalMinutes())
+                    .inc("totalCalories", delta.getTotalCalories());
+            delta.getByType().forEach((type, totals) -> update
+                    .inc("byType." + type.name() + ".count", totals.getCount())
+                    .inc("byType." + type.name() + ".minutes", totals.getMinutes())
+                    .inc("byType." + type.name() + ".calories", totals.getCalories()));
+            upserts.add(Pair.of(new Query(Criteria.where("_id").is(delta.getId())), update));
+        }
+        return upserts;
+    }
+
+    private static void merge(Map<String, ActivityAggregate> buckets, Activity activity) {
+        LocalDate date = activity.getStartTime() != null ? activity.getStartTime().toLocalDate()
+                : activity.getCreatedAt() != null ? activity.getCreatedAt().toLocalDate()
+                : LocalDate.now();
+
+        for (ActivityAggregate.Period period : ActivityAggregate.Period.values()) {
+            LocalDate bucketStart = period.bucketStart(date);
+            ActivityAggregate bucket = buckets.computeIfAbsent(
+                    ActivityAggregate.idFor(activity.getUserId(), period, bucketStart),
+                    id -> ActivityAggregate.builder()
+                            .id(id)
+                            .userId(activity.getUserId())
+                            .period(period)
+                            .bucketStart(bucketStart)
+                            .byType(new EnumMap<>(ActivityType.class))
+                            .build());
+
+            bucket.setCount(bucket.getCount() + 1);
+            bucket.setTotalMinutes(bucket.getTotalMinutes() + activity.getDuration());
+            bucket.setTotalCalories(bucket.getTotalCalories() + activity.getCaloriesBurned());
+            if (activity.getType() != null) {
+                ActivityAggregate.Totals totals = bucket.getByType()
+                        .computeIfAbsent(activity.getType(), type -> new ActivityAggregate.Totals());
+                totals.setCount(totals.getCount() + 1);
+                totals.setMinutes(totals.getMinutes() + activity.getDuration());
+                totals.setCalories(totals.getCalories() + activity.getCaloriesBurned());
+            }
+        }
+    }
+
+    private void updateFailed(Throwable e) {
+        meterRegistry.counter("activity.aggregates.update-failures").increment();
+        log.warn("Could not update activity aggregates, run a rebuild for the affected users: {}", e.getMessage());
+    }
+}
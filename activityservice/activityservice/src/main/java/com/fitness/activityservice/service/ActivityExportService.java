@@ -0,0 +1,151 @@
+package com.fitness.activityservice.service;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fitness.activityservice.mapper.ActivityMapper;
+import com.fitness.activityservice.model.Activity;
+import com.fitness.common.activity.ActivityResponse;
+import lombok.extern.slf4j.Slf4j;
+import org.bson.types.ObjectId;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.stereotype.Service;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.Iterator;
+import java.util.stream.Stream;
+
+/**
+ * Writes a user's complete activity history straight from a Mongo cursor to the response stream.
+ * Only one cursor batch is held in memory at a time, and the next batch is fetched only after the
+ * previous rows have been written, so a slow client slows the cursor down instead of filling the heap.
+ * Rows are ordered by id; passing the last id a client received as afterId resumes the export.
+ */
+@Service
+@Slf4j
+public class ActivityExportService {
+
+    public enum Format {
+        NDJSON("application/x-ndjson", "ndjson"),
+        CSV("text/csv", "csv");
+
+        private final String contentType;
+        private final String extension;
+
+        Format(String contentType, String extension) {
+            this.contentType = contentType;
+            this.extension = extension;
+        }
+
+        public String getContentType() {
+            return contentType;
+        }
+
+        public String getExtension() {
+            return extension;
+        }
+    }
+
+    private static final String CSV_HEADER = "id,userId,type,duration,caloriesBurned,startTime,createdAt,updatedAt,metrics";
+
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
+    @Autowired
+    private ActivityMapper activityMapper;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Value("${activity.export.cursor-batch-size:500}")
+    private int cursorBatchSize;
+
+    public void export(String userId, String afterId, Format format, OutputStream out) throws IOException {
+        Criteria criteria = Criteria.where("userId").is(userId);
+        if (afterId != null && !afterId.isBlank()) {
+            if (!ObjectId.isValid(afterId)) {
+                throw new RuntimeException("Invalid afterId : " + afterId);
+            }
+            criteria = criteria.and("_id").gt(new ObjectId(afterId));
+        }
+        Query query = new Query(criteria)
+                .with(Sort.by(Sort.Direction.ASC, "_id"))
+                .cursorBatchSize(cursorBatchSize);
+
+        long rows = 0;
+        try (Stream<Activity> activities = mongoTemplate.stream(query, Activity.class)) {
+            Iterator<Activity> iterator = activities.iterator();
+            rows = format == Format.CSV ? writeCsv(iterator, out) : writeNdjson(iterator, out);
+        } finally {
+            log.info("Exported {} activities of user {} as {}", rows, userId, format);
+        }
+    }
+
+    private long writeNdjson(Iterator<Activity> activities, OutputStream out) throws IOException {
+        // one line per activity; flushing is left to the output buffers instead of once per row
+        ObjectWriter writer = objectMapper.writer().without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+        long rows = 0;
+        try (JsonGenerator generator = objectMapper.getFactory().createGenerator(out)) {
+            generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+            while (activities.hasNext()) {
+                writer.writeValue(generator, activityMapper.toResponse(activities.next()));
+                generator.writeRaw('\n');
+                rows++;
+            }
+        }
+        return rows;
+    }
+
+    private long writeCsv(Iterator<Activity> activities, OutputStream out) throws IOException {
+        Writer writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8));
+        writer.write(CSV_HEADER);
+        writer.write('\n');
+        long rows = 0;
+        while (activities.hasNext()) {
+            ActivityResponse activity = activityMapper.toResponse(activities.next());
+            writer.write(activity.id());
+            writer.write(',');
+            writer.write(csv(activity.userId()));
+            writer.write(',');
+            writer.write(activity.type() == null ? "" : activity.type().name());
+            writer.write(',');
+            writer.write(Integer.toString(activity.duration()));
+            writer.write(',');
+            writer.write(Integer.toString(activity.caloriesBurned()));
+            writer.write(',');
+            writer.write(activity.startTime() == null ? "" : activity.startTime().toString());
+            writer.write(',');
+            writer.write(activity.createdAt() == null ? "" : activity.createdAt().toString());
+            writer.write(',');
+            writer.write(activity.updatedAt() == null ? "" : activity.updatedAt().toString());
+            writer.write(',');
+            writer.write(activity.additionalMatrics() == null ? ""
+                    : csv(objectMapper.writeValueAsString(activity.additionalMatrics())));
+            writer.write('\n');
+            rows++;
+        }
+        writer.flush();
+        return rows;
+    }
+
+    private static String csv(String value) {
+        if (value == null) {
+            return "";
+        }
+        if (value.indexOf(',') < 0 && value.indexOf('"') < 0 && value.indexOf('\n') < 0 && value.indexOf('\r') < 0) {
+            return value;
+        }
+        return '"' + value.replace("\"", "\"\"") + '"';
+    }
+}
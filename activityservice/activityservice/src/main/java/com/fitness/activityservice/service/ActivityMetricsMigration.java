@@ -0,0 +1,92 @@
+package com.fitness.activityservice.service;
+
+import com.fitness.activityservice.mapper.ActivityMapper;
+import com.fitness.activityservice.model.Activity;
+import com.fitness.common.activity.ActivityMetrics;
+import lombok.extern.slf4j.Slf4j;
+import org.bson.Document;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.stream.Stream;
+
+// One-off rewrite of activities stored before metrics were typed: the free-form "metrics" map becomes the
+// "m" subdocument. Documents are only selected while they still have "metrics", so reruns are cheap and safe.
+// Enable with activity.metrics.migrate-on-startup=true on a single instance, then switch it off again.
+@Component
+@Slf4j
+@ConditionalOnProperty(name = "activity.metrics.migrate-on-startup", havingValue = "true")
+public class ActivityMetricsMigration implements ApplicationRunner {
+
+    private static final String LEGACY_FIELD = "metrics";
+
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
+    @Autowired
+    private ActivityMapper activityMapper;
+
+    @Value("${activity.metrics.migration-batch-size:500}")
+    private int batchSize;
+
+    @Override
+    public void run(ApplicationArguments args) {
+        log.info("Migrating activity metrics to the typed layout");
+        log.info("Migrated metrics of {} activities", migrate());
+    }
+
+    @SuppressWarnings("unchecked")
+    public long migrate() {
+        String collection = mongoTemplate.getCollectionName(Activity.class);
+        Query query = new Query(Criteria.where(LEGACY_FIELD).exists(true)).cursorBatchSize(batchSize);
+        query.fields().include(LEGACY_FIELD);
+
+        long migrated = 0;
+        BulkOperations bulk = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, collection);
+        int pending = 0;
+        try (Stream<Document> documents = mongoTemplate.stream(query, Document.class, collection)) {
+            for (Document document : (Iterable<Document>) documents::iterator) {
+                Object legacy = document.get(LEGACY_FIELD);
+                Update update = new Update().unset(LEGACY_FIELD);
+                if (legacy instanceof Map<?, ?> values) {
+                    Document stored = toStored(ActivityMetrics.fromMap((Map<String, Object>) values));
+                    if (stored != null) {
+                        update.set("m", stored);
+                    }
+                }
+                bulk.updateOne(new Query(Criteria.where("_id").is(document.get("_id"))), update);
+                if (++pending == batchSize) {
+                    migrated += bulk.execute().getModifiedCount();
+                    bulk = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, collection);
+                    pending = 0;
+                }
+            }
+        }
+        if (pending > 0) {
+            migrated += bulk.execute().getModifiedCount();
+        }
+        return migrated;
+    }
+
+    // Same short field names as a newly saved Activity.Metrics
+    private Document toStored(ActivityMetrics metrics) {
+        Activity.Metrics entity = activityMapper.toEntity(metrics);
+        if (entity == null) {
+            return null;
+        }
+        Document stored = new Document();
+        mongoTemplate.getConverter().write(entity, stored);
+        stored.remove("_class");
+        return stored;
+    }
+}
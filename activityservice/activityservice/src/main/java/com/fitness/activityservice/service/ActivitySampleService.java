@@ -0,0 +1,217 @@
+package com.fitness.activityservice.service;
+
+import com.fitness.activityservice.dto.SampleSeries;
+import com.fitness.activityservice.dto.SampleUploadResult;
+import com.fitness.activityservice.mapper.ActivityMapper;
+import com.fitness.activityservice.model.Activity;
+import com.fitness.activityservice.model.ActivitySample;
+import com.fitness.activityservice.repository.ActivityRepository;
+import com.fitness.common.samples.Sample;
+import com.fitness.common.samples.SampleBatchCodec;
+import lombok.extern.slf4j.Slf4j;
+import org.bson.Document;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.index.Index;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.stereotype.Service;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.stream.Stream;
+
+@Service
+@Slf4j
+public class ActivitySampleService {
+
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
+    @Autowired
+    private ActivityRepository activityRepository;
+
+    @Autowired
+    private ActivityMapper activityMapper;
+
+    @Value("${activity.samples.max-frame-bytes:262144}")
+    private int maxFrameBytes;
+
+    @Value("${activity.samples.default-points:500}")
+    private int defaultPoints;
+
+    @Value("${activity.samples.max-points:5000}")
+    private int maxPoints;
+
+    private volatile boolean collectionReady;
+
+    /**
+     * Stores every frame of a streamed upload as it arrives, so memory use is bounded by one frame however
+     * long the recording is. Frames read before a malformed or oversized one stay stored, and the result
+     * carries the codec error so the caller can answer 400 with the count that was kept. Either way the
+     * summary metrics of the activity are recomputed from all of its samples.
+     */
+    public SampleUploadResult ingest(String activityId, String userId, InputStream body) throws IOException {
+        Activity activity = activityRepository.findById(activityId)
+                .orElseThrow(() -> new RuntimeException("Activity not found with id : " + activityId));
+        if (userId != null && !userId.equals(activity.getUserId())) {
+            throw new RuntimeException("Activity " + activityId + " does not belong to user " + userId);
+        }
+        ensureCollection();
+
+        ActivitySample.Meta meta = new ActivitySample.Meta(activityId, activity.getUserId());
+        int batches = 0;
+        long samples = 0;
+        String error = null;
+        List<Sample> batch;
+        try {
+            while ((batch = SampleBatchCodec.readFrame(body, maxFrameBytes)) != null) {
+                if (batch.isEmpty()) {
+                    continue;
+                }
+                List<ActivitySample> documents = new ArrayList<>(batch.size());
+                for (Sample sample : batch) {
+                    documents.add(new ActivitySample(Instant.ofEpochMilli(sample.timeMillis()), meta, sample.heartRate(),
+                            sample.latitude(), sample.longitude(), sample.altitudeM(), sample.cadence()));
+                }
+                mongoTemplate.insert(documents, ActivitySample.class);
+                batches++;
+                samples += documents.size();
+            }
+        } catch (IllegalArgumentException | EOFException e) {
+            error = e.getMessage();
+            log.warn("Rejected sample upload for activity {} after {} batches: {}", activityId, batches, error);
+        }
+        log.info("Stored {} samples in {} batches for activity {}", samples, batches, activityId);
+
+        Activity.Metrics metrics = samples == 0 ? activity.getMetrics() : deriveMetrics(activity);
+        return new SampleUploadResult(activityId, batches, samples, activityMapper.toMetrics(metrics), error);
+    }
+
+    /**
+     * Averages the samples into at most about {@code points} buckets on the server. A one hour ride at
+     * 1 Hz charts from 500 points instead of 3600 samples.
+     */
+    public SampleSeries getSeries(String activityId, Integer points) {
+        int target = Math.max(1, Math.min(points == null ? defaultPoints : points, maxPoints));
+        Instant first = boundary(activityId, Sort.Direction.ASC);
+        if (first == null) {
+            return new SampleSeries(activityId, 0, List.of());
+        }
+        Instant last = boundary(activityId, Sort.Direction.DESC);
+        long spanSeconds = last.getEpochSecond() - first.getEpochSecond() + 1;
+        long bucketSeconds = Math.max(1, (spanSeconds + target - 1) / target);
+
+        List<Document> pipeline = List.of(
+                new Document("$match", new Document("meta.activityId", activityId)),
+                new Document("$group", new Document("_id", new Document("$dateTrunc", new Document("date", "$time")
+                        .append("unit", "second").append("binSize", bucketSeconds)))
+                        .append("hr", new Document("$avg", "$hr"))
+                        .append("hrMax", new Document("$max", "$hr"))
+                        .append("lat", new Document("$avg", "$lat"))
+                        .append("lon", new Document("$avg", "$lon"))
+                        .append("alt", new Document("$avg", "$alt"))
+                        .append("cad", new Document("$avg", "$cad"))),
+                new Document("$sort", new Document("_id", 1)));
+
+        List<SampleSeries.Point> series = new ArrayList<>();
+        for (Document bucket : mongoTemplate.getCollection(mongoTemplate.getCollectionName(ActivitySample.class))
+                .aggregate(pipeline)) {
+            series.add(new SampleSeries.Point(
+                    bucket.get("_id", Date.class).toInstant(),
+                    rounded(bucket.get("hr")),
+                    rounded(bucket.get("hrMax")),
+                    bucket.getDouble("lat"),
+                    bucket.getDouble("lon"),
+                    bucket.getDouble("alt"),
+                    rounded(bucket.get("cad"))));
+        }
+        return new SampleSeries(activityId, bucketSeconds, series);
+    }
+
+    // Streams the samples in time order so a long recording is summarised without loading it
+    private Activity.Metrics deriveMetrics(Activity activity) {
+        Query query = new Query(Criteria.where("meta.activityId").is(activity.getId()))
+                .with(Sort.by(Sort.Direction.ASC, "time"));
+        SampleSummary summary = new SampleSummary();
+        try (Stream<ActivitySample> samples = mongoTemplate.stream(query, ActivitySample.class)) {
+            samples.forEach(summary::add);
+        }
+
+        Activity.Metrics metrics = activity.getMetrics() != null ? activity.getMetrics() : new Activity.Metrics();
+        Update update = new Update();
+        if (summary.avgHeartRate() != null) {
+            metrics.setAvgHeartRate(summary.avgHeartRate());
+            metrics.setMaxHeartRate(summary.maxHeartRate());
+            update.set("m.hr", summary.avgHeartRate()).set("m.hrMax", summary.maxHeartRate());
+        }
+        if (summary.cadence() != null) {
+            metrics.setCadence(summary.cadence());
+            update.set("m.cad", summary.cadence());
+        }
+        if (summary.distanceKm() != null) {
+            metrics.setDistanceKm(summary.distanceKm());
+            update.set("m.dist", summary.distanceKm());
+        }
+        if (summary.avgPaceSecPerKm() != null) {
+            metrics.setAvgPaceSecPerKm(summary.avgPaceSecPerKm());
+            update.set("m.pace", summary.avgPaceSecPerKm());
+        }
+        if (summary.elevationGainM() != null) {
+            metrics.setElevationGainM(summary.elevationGainM());
+            update.set("m.elev", summary.elevationGainM());
+        }
+        if (!update.getUpdateObject().isEmpty()) {
+            mongoTemplate.updateFirst(new Query(Criteria.where("_id").is(activity.getId())), update, Activity.class);
+        }
+        return metrics;
+    }
+
+    private Instant boundary(String activityId, Sort.Direction direction) {
+        Query query = new Query(Criteria.where("meta.activityId").is(activityId)).with(Sort.by(direction, "time"));
+        query.fields().include("time");
+        ActivitySample sample = mongoTemplate.findOne(query, ActivitySample.class);
+        return sample == null ? null : sample.getTime();
+    }
+
+    // A time-series collection has to be created explicitly before the first insert, so it is done on first
+    // use rather than at startup, when Mongo may not be reachable yet
+    private void ensureCollection() {
+        if (collectionReady) {
+            return;
+        }
+        synchronized (this) {
+            if (collectionReady) {
+                return;
+            }
+            if (!mongoTemplate.collectionExists(ActivitySample.class)) {
+                try {
+                    mongoTemplate.createCollection(ActivitySample.class);
+                } catch (DataAccessException e) {
+                    // another instance created it in the meantime
+                    if (!mongoTemplate.collectionExists(ActivitySample.class)) {
+                        throw e;
+                    }
+                }
+            }
+            mongoTemplate.indexOps(ActivitySample.class).ensureIndex(new Index()
+                    .on("meta.activityId", Sort.Direction.ASC)
+                    .on("time", Sort.Direction.ASC)
+                    .named("activity_time_idx"));
+            collectionReady = true;
+        }
+    }
+
+    private static Integer rounded(Object value) {
+        return value instanceof Number number ? (int) Math.round(number.doubleValue()) : null;
+    }
+}
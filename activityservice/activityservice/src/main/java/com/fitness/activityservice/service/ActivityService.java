@@ -1,13 +1,28 @@
 package com.fitness.activityservice.service;
 
-import com.fitness.activityservice.dto.ActivityRequest;
-import com.fitness.activityservice.dto.ActivityResponse;
+import com.fitness.activityservice.dto.ActivityBatchItemResult;
+import com.fitness.activityservice.dto.ActivityBatchRequest;
+import com.fitness.activityservice.dto.ActivityBatchResponse;
+import com.fitness.activityservice.dto.ActivityPage;
+import com.fitness.activityservice.dto.ActivitySummary;
+import com.fitness.activityservice.dto.PersonalRecords;
+import com.fitness.activityservice.mapper.ActivityMapper;
 import com.fitness.activityservice.model.Activity;
+import com.fitness.activityservice.repository.ActivityCursor;
 import com.fitness.activityservice.repository.ActivityRepository;
+import com.fitness.activityservice.repository.ReactiveActivityRepository;
+import com.fitness.common.activity.ActivityRequest;
+import com.fitness.common.activity.ActivityResponse;
+import com.fitness.common.activity.ActivityType;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
-import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.data.domain.Sort;
 import org.springframework.stereotype.Service;
+import reactor.core.publisher.Mono;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
 
 @Service
 public class ActivityService {
@@ -16,54 +31,142 @@ public class ActivityService {
     private ActivityRepository activityRepository;
 
     @Autowired
-    private KafkaTemplate<String,Activity> kafkaTemplet;
+    private ReactiveActivityRepository reactiveActivityRepository;
+
+    @Autowired
+    private ActivityAggregateService activityAggregateService;
+
+    @Autowired
+    private ActivityMapper activityMapper;
+
+    @Value("${activity.history.default-limit:20}")
+    private int historyDefaultLimit;
 
-    @Value("${kafka.topic.name}")
-    private String topicName;
+    @Value("${activity.history.max-limit:100}")
+    private int historyMaxLimit;
 
+    // activity-events are not sent from the request path: the activity is saved with its pending outbox
+    // state in the same document, and OutboxRelay publishes it to Kafka in the background
     public ActivityResponse trackActivity(ActivityRequest request) {
 
-        Activity activity = Activity.builder()
-        .userId(request.getUserId())
-        .type(request.getType())
-        .duration(request.getDuration())
-        .caloriesBurned(request.getCaloriesBurned())
-        .startTime(request.getStartTime())
-        .additionalMatrics(request.getAdditionalMatrics())
-        .build();
+        Activity activity = activityMapper.toEntity(request);
+        activity.setOutbox(Activity.Outbox.pending());
 
         Activity savedActivity = activityRepository.save(activity);
+        activityAggregateService.record(List.of(savedActivity));
 
-        try{
-            kafkaTemplet.send(topicName, savedActivity.getUserId(), savedActivity);
-        } catch (Exception e) {
-            throw new RuntimeException(e);
-        }
+        return activityMapper.toResponse(savedActivity);
+    }
 
-        return mapToResponse(savedActivity);
+    // Reactive variant of trackActivity: the writes are chained on the reactive driver callbacks
+    public Mono<ActivityResponse> trackActivityReactive(ActivityRequest request) {
+
+        Activity activity = activityMapper.toEntity(request);
+        activity.setOutbox(Activity.Outbox.pending());
+
+        return reactiveActivityRepository.save(activity)
+                .flatMap(savedActivity -> activityAggregateService.recordReactive(savedActivity)
+                        .thenReturn(savedActivity))
+                .map(activityMapper::toResponse);
     }
 
-    private ActivityResponse mapToResponse(Activity savedActivity) {
+    // The caller has already validated batchRequest.getUserId(); items are checked individually so one bad
+    // workout does not fail the whole sync. Accepted items, each with its outbox state, go to Mongo in one insertMany.
+    public ActivityBatchResponse trackActivities(ActivityBatchRequest batchRequest) {
+
+        List<ActivityRequest> items = batchRequest.getActivities();
+        ActivityBatchItemResult[] results = new ActivityBatchItemResult[items.size()];
+        List<Activity> toInsert = new ArrayList<>(items.size());
+        List<Integer> insertIndexes = new ArrayList<>(items.size());
+
+        for (int i = 0; i < items.size(); i++) {
+            ActivityRequest item = items.get(i);
+            String error = validateBatchItem(batchRequest.getUserId(), item);
+            if (error != null) {
+                results[i] = ActivityBatchItemResult.rejected(i, error);
+                continue;
+            }
+            Activity activity = activityMapper.toEntity(item.withUserId(batchRequest.getUserId()));
+            activity.setOutbox(Activity.Outbox.pending());
+            toInsert.add(activity);
+            insertIndexes.add(i);
+        }
 
-        ActivityResponse response = new ActivityResponse();
+        List<Activity> savedActivities = toInsert.isEmpty() ? List.of() : activityRepository.insert(toInsert);
+        if (!savedActivities.isEmpty()) {
+            activityAggregateService.record(savedActivities);
+        }
 
-        response.setId(savedActivity.getId());
-        response.setUserId(savedActivity.getUserId());
-        response.setType(savedActivity.getType());
-        response.setDuration(savedActivity.getDuration());
-        response.setCaloriesBurned(savedActivity.getCaloriesBurned());
-        response.setStartTime(savedActivity.getStartTime());
-        response.setAdditionalMatrics(savedActivity.getAdditionalMatrics());
-        response.setCreatedAt(savedActivity.getCreatedAt());
-        response.setUpdatedAt(savedActivity.getUpdatedAt());
+        for (int i = 0; i < savedActivities.size(); i++) {
+            Activity savedActivity = savedActivities.get(i);
+            int index = insertIndexes.get(i);
+            results[index] = ActivityBatchItemResult.accepted(index, activityMapper.toResponse(savedActivity));
+        }
 
+        ActivityBatchResponse response = new ActivityBatchResponse();
+        response.setReceived(items.size());
+        response.setAccepted(savedActivities.size());
+        response.setRejected(items.size() - savedActivities.size());
+        response.setResults(List.of(results));
         return response;
     }
 
+    private String validateBatchItem(String userId, ActivityRequest item) {
+        if (item == null) {
+            return "Activity is empty";
+        }
+        if (item.userId() != null && !item.userId().equals(userId)) {
+            return "Activity belongs to a different user : " + item.userId();
+        }
+        if (item.type() == null) {
+            return "Activity type is required";
+        }
+        if (item.duration() < 0 || item.caloriesBurned() < 0) {
+            return "Duration and calories must not be negative";
+        }
+        return null;
+    }
+
+    // Reads one row more than requested to find out whether another page follows
+    public ActivityPage getActivities(String userId, ActivityType type, LocalDateTime from, LocalDateTime to,
+                                      String cursor, Integer limit) {
+
+        int pageSize = limit == null ? historyDefaultLimit : Math.min(Math.max(limit, 1), historyMaxLimit);
+        ActivityCursor after = cursor == null || cursor.isBlank() ? null : ActivityCursor.decode(cursor);
+
+        List<ActivitySummary> activities = activityRepository.findHistoryPage(userId, type, from, to, after, pageSize + 1);
+
+        ActivityPage page = new ActivityPage();
+        if (activities.size() > pageSize) {
+            activities = activities.subList(0, pageSize);
+            ActivitySummary last = activities.get(pageSize - 1);
+            page.setNextCursor(new ActivityCursor(last.getStartTime(), last.getId()).encode());
+        }
+        page.setActivities(activities);
+        return page;
+    }
+
+    // Three single-entry index seeks, one per metric index on Activity
+    public PersonalRecords getPersonalRecords(String userId, ActivityType type) {
+        PersonalRecords records = new PersonalRecords();
+        records.setUserId(userId);
+        records.setType(type);
+        records.setLongestDistance(best(userId, type, "m.dist", Sort.Direction.DESC));
+        records.setFastestPace(best(userId, type, "m.pace", Sort.Direction.ASC));
+        records.setMostElevation(best(userId, type, "m.elev", Sort.Direction.DESC));
+        return records;
+    }
+
+    private ActivityResponse best(String userId, ActivityType type, String metricField, Sort.Direction direction) {
+        return activityRepository.findBestByMetric(userId, type, metricField, direction)
+                .map(activityMapper::toResponse)
+                .orElse(null);
+    }
+
     public ActivityResponse getActivity(String activityId) {
         Activity activity = activityRepository.findById(activityId).
                 orElseThrow(() -> new RuntimeException(":::::::::::::::::::::::: Activity not found for id: " + activityId));
 
-        return mapToResponse(activity);
+        return activityMapper.toResponse(activity);
     }
 }
@@ -0,0 +1,69 @@
+package com.fitness.activityservice.service;
+
+import com.fitness.activityservice.model.Activity;
+import lombok.extern.slf4j.Slf4j;
+import org.bson.Document;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.stereotype.Component;
+
+import java.util.stream.Stream;
+
+// Moves events still waiting in the old activity_outbox collection onto their activities (Activity.outbox),
+// where OutboxRelay now looks for them, and drops the collection once it is empty. An entry is deleted only
+// after its activity was updated, so an interrupted run is finished by the next start.
+@Component
+@Slf4j
+@ConditionalOnProperty(name = "activity.outbox.migrate-on-startup", havingValue = "true", matchIfMissing = true)
+public class OutboxMigration implements ApplicationRunner {
+
+    static final String LEGACY_COLLECTION = "activity_outbox";
+
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
+    @Override
+    public void run(ApplicationArguments args) {
+        if (!mongoTemplate.collectionExists(LEGACY_COLLECTION)) {
+            return;
+        }
+        log.info("Moved {} pending events from {} onto their activities", migrate(), LEGACY_COLLECTION);
+    }
+
+    @SuppressWarnings("unchecked")
+    public long migrate() {
+        long moved = 0;
+        try (Stream<Document> events = mongoTemplate.stream(new Query(), Document.class, LEGACY_COLLECTION)) {
+            for (Document event : (Iterable<Document>) events::iterator) {
+                Object activityId = event.get("activityId");
+                Activity.Outbox outbox = Activity.Outbox.builder()
+                        .attempts(event.getInteger("attempts", 0))
+                        .nextAttemptAt(event.getDate("nextAttemptAt") == null ? null : event.getDate("nextAttemptAt").toInstant())
+                        .lastError(event.getString("lastError"))
+                        .parkedAt(event.getDate("parkedAt") == null ? null : event.getDate("parkedAt").toInstant())
+                        .createdAt(event.getDate("createdAt").toInstant())
+                        .build();
+                // an activity that already has outbox state keeps it
+                Query activity = new Query(new Criteria().andOperator(
+                        Criteria.where("_id").is(activityId),
+                        Criteria.where("outbox").exists(false)));
+                if (mongoTemplate.updateFirst(activity, new Update().set("outbox", outbox), Activity.class).getModifiedCount() > 0) {
+                    moved++;
+                } else if (!mongoTemplate.exists(new Query(Criteria.where("_id").is(activityId)), Activity.class)) {
+                    log.warn("Dropping outbox event {} of missing activity {}", event.get("_id"), activityId);
+                }
+                mongoTemplate.remove(new Query(Criteria.where("_id").is(event.get("_id"))), LEGACY_COLLECTION);
+            }
+        }
+        if (mongoTemplate.count(new Query(), LEGACY_COLLECTION) == 0) {
+            mongoTemplate.dropCollection(LEGACY_COLLECTION);
+        }
+        return moved;
+    }
+}
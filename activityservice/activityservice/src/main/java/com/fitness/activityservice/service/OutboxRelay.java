@@ -0,0 +1,295 @@
+package com.fitness.activityservice.service;
+
+import com.fitness.activityservice.config.OutboxProperties;
+import com.fitness.activityservice.mapper.ActivityMapper;
+import com.fitness.activityservice.model.Activity;
+import com.fitness.common.activity.ActivityEvent;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.bson.Document;
+import org.bson.types.ObjectId;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.aggregation.Aggregation;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.support.SendResult;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Publishes activities whose outbox state is set (Activity.outbox) to Kafka.
+ *
+ * Each poll reads the activities that are due (outbox.nextAttemptAt has passed), so activities waiting on a
+ * retry never take up the batch. One user's activities are sent one after another in the order they were
+ * saved, and the first failure stops that user's sending for this poll. The user's later activities, including
+ * those of later polls, are held back until the failed one is sent. Other users' activities are sent in
+ * parallel meanwhile. Delivery is at-least-once: the outbox state is only unset after the broker acknowledged
+ * the event.
+ *
+ * After activity.outbox.max-attempts failed sends an activity is parked: outbox.parkedAt is set,
+ * outbox.nextAttemptAt is cleared and the user's later activities go ahead. Parked activities keep their
+ * outbox state (activity.outbox.parked); unset outbox.parkedAt and set outbox.nextAttemptAt to send one again.
+ */
+@Service
+@Slf4j
+@ConditionalOnProperty(name = "activity.outbox.relay-enabled", havingValue = "true", matchIfMissing = true)
+public class OutboxRelay {
+
+    private static final Sort DUE_ORDER = Sort.by("outbox.nextAttemptAt", "outbox.createdAt", "id");
+    private static final Comparator<Activity> SAVE_ORDER =
+            Comparator.comparing((Activity activity) -> activity.getOutbox().getCreatedAt()).thenComparing(Activity::getId);
+
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
+    @Autowired
+    private KafkaTemplate<String, ActivityEvent> kafkaTemplet;
+
+    @Autowired
+    private ActivityMapper activityMapper;
+
+    @Autowired
+    private OutboxProperties outboxProperties;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${kafka.topic.name}")
+    private String topicName;
+
+    private final AtomicLong oldestPendingAgeMillis = new AtomicLong();
+    private Counter publishedCounter;
+    private Counter failedCounter;
+    private Timer drainTimer;
+
+    @PostConstruct
+    void registerMetrics() {
+        publishedCounter = meterRegistry.counter("activity.outbox.published");
+        failedCounter = meterRegistry.counter("activity.outbox.failed");
+        drainTimer = meterRegistry.timer("activity.outbox.drain");
+        Gauge.builder("activity.outbox.pending", this, relay -> relay.count(unparked()))
+                .description("Activities saved but not yet acknowledged by Kafka")
+                .register(meterRegistry);
+        Gauge.builder("activity.outbox.parked", this, relay -> relay.count(pending().and("outbox.parkedAt").ne(null)))
+                .description("Activities given up on after activity.outbox.max-attempts failed sends")
+                .register(meterRegistry);
+        Gauge.builder("activity.outbox.lag", oldestPendingAgeMillis, AtomicLong::get)
+                .description("Age of the oldest pending activity")
+                .baseUnit("milliseconds")
+                .register(meterRegistry);
+    }
+
+    @Scheduled(fixedDelayString = "${activity.outbox.poll-interval-ms:500}")
+    public void drain() {
+        drainTimer.record(this::drainBatch);
+    }
+
+    void drainBatch() {
+        Instant now = Instant.now();
+        oldestPendingAgeMillis.set(oldestPending()
+                .map(oldest -> Duration.between(oldest.getOutbox().getCreatedAt(), now).toMillis())
+                .orElse(0L));
+
+        Query dueQuery = new Query(pending().and("outbox.nextAttemptAt").lte(now))
+                .with(DUE_ORDER)
+                .limit(outboxProperties.getBatchSize());
+        List<Activity> due = mongoTemplate.find(dueQuery, Activity.class);
+        if (due.isEmpty()) {
+            return;
+        }
+
+        Map<String, List<Activity>> dueByUser = new HashMap<>();
+        for (Activity activity : due) {
+            dueByUser.computeIfAbsent(activity.getUserId(), userId -> new ArrayList<>()).add(activity);
+        }
+        Map<String, Activity.Outbox> blockers = earliestPendingOutside(dueByUser.keySet(), due);
+
+        Queue<Activity> acknowledged = new ConcurrentLinkedQueue<>();
+        Queue<Activity> failed = new ConcurrentLinkedQueue<>();
+        List<CompletableFuture<Void>> sends = new ArrayList<>(dueByUser.size());
+        BulkOperations updates = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, Activity.class);
+        int pendingUpdates = 0;
+
+        for (Map.Entry<String, List<Activity>> entry : dueByUser.entrySet()) {
+            List<Activity> activities = entry.getValue();
+            activities.sort(SAVE_ORDER);
+            Activity.Outbox blocker = blockers.get(entry.getKey());
+            if (blocker != null) {
+                // an earlier activity of this user is still pending: only what was saved before it may go now
+                activities = activities.stream()
+                        .filter(activity -> activity.getOutbox().getCreatedAt().isBefore(blocker.getCreatedAt()))
+                        .toList();
+                if (blocker.getNextAttemptAt() != null && blocker.getNextAttemptAt().isAfter(now)) {
+                    updates.updateMulti(laterActivities(entry.getKey(), null, blocker),
+                            new Update().max("outbox.nextAttemptAt", blocker.getNextAttemptAt()));
+                    pendingUpdates++;
+                }
+            }
+            if (!activities.isEmpty()) {
+                sends.add(sendInOrder(activities, acknowledged, failed));
+            }
+        }
+        CompletableFuture.allOf(sends.toArray(CompletableFuture[]::new)).join();
+
+        if (!acknowledged.isEmpty()) {
+            mongoTemplate.updateMulti(new Query(Criteria.where("_id").in(acknowledged.stream().map(Activity::getId).toList())),
+                    new Update().unset("outbox"), Activity.class);
+            publishedCounter.increment(acknowledged.size());
+        }
+        if (!failed.isEmpty()) {
+            failedCounter.increment(failed.size());
+            for (Activity activity : failed) {
+                Activity.Outbox outbox = activity.getOutbox();
+                // only the outbox fields: the rest of the document may have changed since it was read
+                updates.updateOne(new Query(Criteria.where("_id").is(activity.getId())), new Update()
+                        .set("outbox.attempts", outbox.getAttempts())
+                        .set("outbox.lastError", outbox.getLastError())
+                        .set("outbox.nextAttemptAt", outbox.getNextAttemptAt())
+                        .set("outbox.parkedAt", outbox.getParkedAt()));
+                pendingUpdates++;
+                if (outbox.getNextAttemptAt() != null) {
+                    updates.updateMulti(laterActivities(activity.getUserId(), activity.getId(), outbox),
+                            new Update().max("outbox.nextAttemptAt", outbox.getNextAttemptAt()));
+                    pendingUpdates++;
+                }
+            }
+        }
+        // held back activities are moved past their blocker's retry so they stop filling the due window
+        if (pendingUpdates > 0) {
+            updates.execute();
+        }
+    }
+
+    // Sends one user's activities in save order; the first failure ends the chain
+    private CompletableFuture<Void> sendInOrder(List<Activity> activities, Queue<Activity> acknowledged,
+                                                Queue<Activity> failed) {
+        CompletableFuture<Void> chain = CompletableFuture.completedFuture(null);
+        for (Activity activity : activities) {
+            chain = chain.thenCompose(previous -> send(activity)
+                    .orTimeout(outboxProperties.getSendTimeout().toMillis(), TimeUnit.MILLISECONDS)
+                    .handle((result, e) -> {
+                        if (e != null) {
+                            recordFailure(activity, e instanceof CompletionException && e.getCause() != null ? e.getCause() : e);
+                            failed.add(activity);
+                            throw new CompletionException(e);
+                        }
+                        acknowledged.add(activity);
+                        return null;
+                    }));
+        }
+        return chain.exceptionally(e -> null);
+    }
+
+    private CompletableFuture<SendResult<String, ActivityEvent>> send(Activity activity) {
+        try {
+            return kafkaTemplet.send(topicName, activity.getUserId(), activityMapper.toEvent(activity));
+        } catch (Exception e) {
+            // e.g. metadata not available within max.block.ms
+            return CompletableFuture.failedFuture(e);
+        }
+    }
+
+    private Optional<Activity> oldestPending() {
+        Query query = new Query(unparked()).with(Sort.by("outbox.createdAt")).limit(1);
+        query.fields().include("outbox.createdAt");
+        return Optional.ofNullable(mongoTemplate.findOne(query, Activity.class));
+    }
+
+    // For each user, the outbox state of the earliest pending activity that is not part of the batch, i.e.
+    // waiting on a retry or beyond the batch window. The user's activities saved after it have to wait.
+    private Map<String, Activity.Outbox> earliestPendingOutside(Set<String> userIds, List<Activity> batch) {
+        List<ObjectId> batchIds = batch.stream().map(activity -> new ObjectId(activity.getId())).toList();
+        Aggregation aggregation = Aggregation.newAggregation(
+                Aggregation.match(new Criteria().andOperator(
+                        Criteria.where("userId").in(userIds),
+                        unparked(),
+                        Criteria.where("_id").nin(batchIds))),
+                Aggregation.sort(Sort.by("userId", "outbox.createdAt")),
+                Aggregation.group("userId")
+                        .first("outbox.createdAt").as("createdAt")
+                        .first("outbox.nextAttemptAt").as("nextAttemptAt"));
+
+        Map<String, Activity.Outbox> blockers = new HashMap<>();
+        for (Document document : mongoTemplate.aggregate(aggregation, Activity.class, Document.class)) {
+            Date nextAttemptAt = document.getDate("nextAttemptAt");
+            blockers.put(document.getString("_id"), Activity.Outbox.builder()
+                    .createdAt(document.getDate("createdAt").toInstant())
+                    .nextAttemptAt(nextAttemptAt == null ? null : nextAttemptAt.toInstant())
+                    .build());
+        }
+        return blockers;
+    }
+
+    // The user's pending activities saved at or after the given one, except that activity itself
+    private static Query laterActivities(String userId, String activityId, Activity.Outbox outbox) {
+        Criteria later = new Criteria().andOperator(
+                Criteria.where("userId").is(userId),
+                unparked(),
+                Criteria.where("outbox.createdAt").gte(outbox.getCreatedAt()));
+        if (activityId != null) {
+            later = new Criteria().andOperator(later, Criteria.where("_id").ne(new ObjectId(activityId)));
+        }
+        return new Query(later);
+    }
+
+    // Matches the partial filter of the outbox indexes, so they can serve these queries
+    private static Criteria pending() {
+        return Criteria.where("outbox").exists(true);
+    }
+
+    private static Criteria unparked() {
+        return pending().and("outbox.parkedAt").is(null);
+    }
+
+    private long count(Criteria criteria) {
+        return mongoTemplate.count(new Query(criteria), Activity.class);
+    }
+
+    private void recordFailure(Activity activity, Throwable e) {
+        Activity.Outbox outbox = activity.getOutbox();
+        int attempts = outbox.getAttempts() + 1;
+        outbox.setAttempts(attempts);
+        outbox.setLastError(e.getMessage());
+
+        if (attempts >= outboxProperties.getMaxAttempts()) {
+            outbox.setNextAttemptAt(null);
+            outbox.setParkedAt(Instant.now());
+            log.error("Publishing activity {} failed {} times, parking it: {}", activity.getId(), attempts, e.getMessage());
+            return;
+        }
+
+        long backoffMillis = outboxProperties.getInitialBackoff().toMillis() << Math.min(attempts - 1, 20);
+        backoffMillis = Math.min(backoffMillis, outboxProperties.getMaxBackoff().toMillis());
+        outbox.setNextAttemptAt(Instant.now().plusMillis(backoffMillis));
+        log.warn("Publishing activity {} failed (attempt {}), retrying in {} ms: {}",
+                activity.getId(), attempts, backoffMillis, e.getMessage());
+    }
+}
@@ -0,0 +1,101 @@
+package com.fitness.activityservice.service;
+
+import com.fitness.activityservice.model.ActivitySample;
+
+// Running summary of an activity's samples, fed in time order
+class SampleSummary {
+
+    private static final double EARTH_RADIUS_M = 6_371_000;
+    // faster than any human-powered activity: such a jump is a GPS glitch, not distance covered
+    private static final double MAX_SPEED_MPS = 50;
+    // altitude has to move this far from the last turning point to count, so sensor jitter adds no climb
+    private static final double ELEVATION_HYSTERESIS_M = 1;
+
+    private long heartRateSum;
+    private int heartRateCount;
+    private Integer maxHeartRate;
+    private long cadenceSum;
+    private int cadenceCount;
+
+    private double distanceM;
+    private Double lastLatitude;
+    private Double lastLongitude;
+    private long lastPositionMillis;
+    private long firstMillis = Long.MAX_VALUE;
+    private long lastMillis = Long.MIN_VALUE;
+
+    private double elevationGainM;
+    private Double altitudeReference;
+
+    void add(ActivitySample sample) {
+        long millis = sample.getTime().toEpochMilli();
+        firstMillis = Math.min(firstMillis, millis);
+        lastMillis = Math.max(lastMillis, millis);
+
+        if (sample.getHeartRate() != null) {
+            heartRateSum += sample.getHeartRate();
+            heartRateCount++;
+            maxHeartRate = maxHeartRate == null ? sample.getHeartRate() : Math.max(maxHeartRate, sample.getHeartRate());
+        }
+        if (sample.getCadence() != null) {
+            cadenceSum += sample.getCadence();
+            cadenceCount++;
+        }
+        if (sample.getLatitude() != null && sample.getLongitude() != null) {
+            if (lastLatitude != null && millis > lastPositionMillis) {
+                double meters = haversine(lastLatitude, lastLongitude, sample.getLatitude(), sample.getLongitude());
+                if (meters / ((millis - lastPositionMillis) / 1000.0) <= MAX_SPEED_MPS) {
+                    distanceM += meters;
+                }
+            }
+            lastLatitude = sample.getLatitude();
+            lastLongitude = sample.getLongitude();
+            lastPositionMillis = millis;
+        }
+        if (sample.getAltitudeM() != null) {
+            double altitude = sample.getAltitudeM();
+            if (altitudeReference == null || altitude < altitudeReference) {
+                altitudeReference = altitude;
+            } else if (altitude - altitudeReference >= ELEVATION_HYSTERESIS_M) {
+                elevationGainM += altitude - altitudeReference;
+                altitudeReference = altitude;
+            }
+        }
+    }
+
+    Integer avgHeartRate() {
+        return heartRateCount == 0 ? null : (int) Math.round((double) heartRateSum / heartRateCount);
+    }
+
+    Integer maxHeartRate() {
+        return maxHeartRate;
+    }
+
+    Integer cadence() {
+        return cadenceCount == 0 ? null : (int) Math.round((double) cadenceSum / cadenceCount);
+    }
+
+    Double distanceKm() {
+        return lastLatitude == null ? null : Math.round(distanceM) / 1000.0;
+    }
+
+    // over the whole recording, pauses included, like the duration the client reports
+    Integer avgPaceSecPerKm() {
+        if (distanceM < 10 || lastMillis <= firstMillis) {
+            return null;
+        }
+        return (int) Math.round((lastMillis - firstMillis) / 1000.0 / (distanceM / 1000));
+    }
+
+    Integer elevationGainM() {
+        return altitudeReference == null ? null : (int) Math.round(elevationGainM);
+    }
+
+    private static double haversine(double lat1, double lon1, double lat2, double lon2) {
+        double dLat = Math.toRadians(lat2 - lat1);
+        double dLon = Math.toRadians(lon2 - lon1);
+        double a = Math.sin(dLat / 2) * Math.sin(dLat / 2)
+                + Math.cos(Math.toRadians(lat1)) * Math.cos(Math.toRadians(lat2)) * Math.sin(dLon / 2) * Math.sin(dLon / 2);
+        return 2 * EARTH_RADIUS_M * Math.asin(Math.min(1, Math.sqrt(a)));
+    }
+}
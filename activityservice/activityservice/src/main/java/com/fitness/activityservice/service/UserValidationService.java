@@ -1,32 +1,160 @@
 package com.fitness.activityservice.service;
 
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.ParameterizedTypeReference;
 import org.springframework.stereotype.Service;
 import org.springframework.web.reactive.function.client.WebClient;
-import org.springframework.web.reactive.function.client.WebClientException;
+import reactor.core.Disposable;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
 
+import java.time.Duration;
+import java.util.Collection;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Asks USER-SERVICE whether keycloak ids exist. Single lookups made within
+ * activity.user-validation.batch-max-wait of each other are coalesced into one POST /api/users/validate,
+ * so a burst of activity submissions costs one round trip instead of one per request.
+ */
 @Service
 @RequiredArgsConstructor
 @Slf4j
 public class UserValidationService {
 
+    private static final ParameterizedTypeReference<Map<String, Boolean>> VALIDATION_RESULT = new ParameterizedTypeReference<>() {
+    };
+
     @Autowired
     private WebClient userServiceWebClient;
 
+    @Value("${activity.user-validation.batch-max-size:100}")
+    private int maxItems;
+
+    @Value("${activity.user-validation.batch-max-wait:5ms}")
+    private Duration maxWait;
+
+    @Value("${activity.user-validation.batch-concurrency:4}")
+    private int concurrency;
+
+    @Value("${activity.user-validation.timeout:2s}")
+    private Duration timeout;
+
+    // request threads submit concurrently; the unsafe unicast sink needs serialized emissions
+    private final Object emitLock = new Object();
+    // lookups handed to the pipeline and not answered yet, failed if the pipeline ends
+    private final Set<PendingValidation> unanswered = ConcurrentHashMap.newKeySet();
+    private Sinks.Many<PendingValidation> pending;
+    private Disposable subscription;
+
+    @PostConstruct
+    void start() {
+        pending = Sinks.unsafe().many().unicast().onBackpressureBuffer();
+        subscription = pending.asFlux()
+                // fair: while every batch is in flight, lookups wait in the buffer instead of overflowing it
+                .bufferTimeout(maxItems, maxWait, true)
+                .flatMap(this::validateBatch, concurrency)
+                .subscribe(null, this::restart);
+    }
+
+    @PreDestroy
+    void stop() {
+        synchronized (emitLock) {
+            failUnanswered(new IllegalStateException("User validation is shutting down"));
+            subscription.dispose();
+        }
+    }
+
     public Boolean validateUser(String userId){
-        log.info("Calling User Service to validate user Id: {}", userId);
+        // validateBatch already times out; this also bounds time spent queued behind other batches
+        return validateUserReactive(userId).block(timeout.multipliedBy(2));
+    }
+
+    // Same contract as validateUser, but composed on the WebClient event loop instead of blocking the caller
+    public Mono<Boolean> validateUserReactive(String userId){
+        if (userId == null) {
+            return Mono.just(false);
+        }
+        log.debug("Queueing validation of user Id: {}", userId);
 
-        try {
-            return userServiceWebClient.get()
+        PendingValidation item = new PendingValidation(userId, Sinks.one());
+        Sinks.EmitResult emitted;
+        synchronized (emitLock) {
+            unanswered.add(item);
+            emitted = pending.tryEmitNext(item);
+        }
+        if (emitted.isFailure()) {
+            unanswered.remove(item);
+            return Mono.error(new RuntimeException("User validation unavailable: " + emitted));
+        }
+        return item.result().asMono();
+    }
+
+    // For callers that already hold many ids, e.g. batch jobs: one call, every id in the answer
+    public Mono<Map<String, Boolean>> validateUsers(Collection<String> userIds){
+        log.info("Calling User Service to validate {} user Ids", userIds.size());
+
+        return userServiceWebClient.post()
+                .uri("/api/users/validate")
+                .bodyValue(userIds)
+                .retrieve()
+                .bodyToMono(VALIDATION_RESULT)
+                .defaultIfEmpty(Map.of());
+    }
+
+    private Mono<Void> validateBatch(List<PendingValidation> batch) {
+        Mono<Map<String, Boolean>> found;
+        if (batch.size() == 1) {
+            // the single-id endpoint is served from USER-SERVICE's cache and needs no request body
+            String userId = batch.get(0).userId();
+            found = userServiceWebClient.get()
                     .uri("/api/users/{userId}/validate", userId)
                     .retrieve()
                     .bodyToMono(Boolean.class)
-                    .block();
-        }catch (WebClientException e){
-            e.printStackTrace();
+                    .map(exists -> Map.of(userId, exists));
+        } else {
+            Set<String> userIds = new LinkedHashSet<>();
+            batch.forEach(item -> userIds.add(item.userId()));
+            found = validateUsers(userIds);
         }
-        return false;
+
+        return found
+                .timeout(timeout)
+                // any error, not only WebClientException: an error escaping here would end the shared pipeline
+                .onErrorResume(e -> {
+                    log.error("User validation failed for {} user Ids: {}", batch.size(), e.getMessage());
+                    return Mono.just(Map.of());
+                })
+                .defaultIfEmpty(Map.of())
+                .doOnNext(results -> batch.forEach(item ->
+                        item.result().tryEmitValue(Boolean.TRUE.equals(results.get(item.userId())))))
+                .doFinally(signal -> batch.forEach(unanswered::remove))
+                .then();
+    }
+
+    // Only a bug gets here, validateBatch absorbs upstream errors; a dead pipeline would fail every later lookup
+    private void restart(Throwable error) {
+        log.error("User validation pipeline failed, restarting it", error);
+        synchronized (emitLock) {
+            failUnanswered(error);
+            start();
+        }
+    }
+
+    private void failUnanswered(Throwable error) {
+        unanswered.forEach(item -> item.result().tryEmitError(error));
+        unanswered.clear();
+    }
+
+    private record PendingValidation(String userId, Sinks.One<Boolean> result) {
     }
 }
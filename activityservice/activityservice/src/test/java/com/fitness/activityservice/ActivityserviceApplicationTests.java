@@ -3,7 +3,7 @@ package com.fitness.activityservice;
 import org.junit.jupiter.api.Test;
 import org.springframework.boot.test.context.SpringBootTest;
 
-@SpringBootTest
+@SpringBootTest(properties = "activity.outbox.migrate-on-startup=false")
 class ActivityserviceApplicationTests {
 
 	@Test
@@ -0,0 +1,91 @@
+package com.fitness.activityservice.benchmark;
+
+import com.fitness.common.activity.ActivityEvent;
+import com.fitness.common.activity.ActivityMetrics;
+import com.fitness.common.activity.ActivityType;
+import com.fitness.common.events.ActivityEventDeserializer;
+import com.fitness.common.events.ActivityEventSerializer;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.kafka.support.serializer.JsonDeserializer;
+import org.springframework.kafka.support.serializer.JsonSerializer;
+
+import java.time.LocalDateTime;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * activity-events value encoding: the JsonSerializer / JsonDeserializer pair used before, against the Avro
+ * single-object encoding. Payload sizes are printed once per fork in setUp.
+ *
+ * Run with: mvn test-compile exec:java -Dexec.classpathScope=test -Dexec.mainClass=org.openjdk.jmh.Main -Dexec.args="ActivityEventSerializationBenchmark -f 0"
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ActivityEventSerializationBenchmark {
+
+    private ActivityEvent event;
+    private JsonSerializer<ActivityEvent> jsonSerializer;
+    private JsonDeserializer<ActivityEvent> jsonDeserializer;
+    private ActivityEventSerializer avroSerializer;
+    private ActivityEventDeserializer avroDeserializer;
+    private byte[] json;
+    private byte[] avro;
+
+    @Setup
+    public void setUp() {
+        Map<String, Object> metrics = new LinkedHashMap<>();
+        metrics.put("distanceKm", 10.4);
+        metrics.put("avgHeartRate", 152);
+        metrics.put("maxHeartRate", 181);
+        metrics.put("avgPaceSecPerKm", 331);
+        metrics.put("elevationGainM", 84);
+        event = new ActivityEvent("65f0c0ffee0000000000abcd", "3f2b9a52-5d4e-4b7b-9a63-1c0f7e0d2a11",
+                ActivityType.RUNNING, 58, 640, LocalDateTime.of(2026, 3, 2, 7, 15), ActivityMetrics.fromMap(metrics),
+                LocalDateTime.of(2026, 3, 2, 8, 20, 11), LocalDateTime.of(2026, 3, 2, 8, 20, 11));
+
+        jsonSerializer = new JsonSerializer<>();
+        jsonSerializer.setAddTypeInfo(false);
+        jsonDeserializer = new JsonDeserializer<>(ActivityEvent.class);
+        jsonDeserializer.ignoreTypeHeaders();
+        avroSerializer = new ActivityEventSerializer();
+        avroDeserializer = new ActivityEventDeserializer();
+
+        json = jsonSerializer.serialize("activity-events", event);
+        avro = avroSerializer.serialize("activity-events", event);
+        System.out.printf("%npayload bytes: json=%d avro=%d%n", json.length, avro.length);
+    }
+
+    @Benchmark
+    public byte[] jsonSerialize() {
+        return jsonSerializer.serialize("activity-events", event);
+    }
+
+    @Benchmark
+    public byte[] avroSerialize() {
+        return avroSerializer.serialize("activity-events", event);
+    }
+
+    @Benchmark
+    public Object jsonDeserialize() {
+        return jsonDeserializer.deserialize("activity-events", json);
+    }
+
+    @Benchmark
+    public Object avroDeserialize() {
+        return avroDeserializer.deserialize("activity-events", avro);
+    }
+}
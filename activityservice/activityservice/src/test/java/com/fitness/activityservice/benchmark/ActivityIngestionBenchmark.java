@@ -0,0 +1,148 @@
+package com.fitness.activityservice.benchmark;
+
+import com.fitness.activityservice.config.ActivityIngestionProperties;
+import com.fitness.activityservice.controller.ActivityController;
+import com.fitness.activityservice.service.ActivityAggregateService;
+import com.fitness.activityservice.service.ActivityExportService;
+import com.fitness.activityservice.service.ActivityService;
+import com.fitness.activityservice.service.UserValidationService;
+import com.fitness.common.activity.ActivityResponse;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.boot.SpringBootConfiguration;
+import org.springframework.boot.autoconfigure.ImportAutoConfiguration;
+import org.springframework.boot.autoconfigure.context.ConfigurationPropertiesAutoConfiguration;
+import org.springframework.boot.autoconfigure.http.HttpMessageConvertersAutoConfiguration;
+import org.springframework.boot.autoconfigure.jackson.JacksonAutoConfiguration;
+import org.springframework.boot.autoconfigure.web.servlet.DispatcherServletAutoConfiguration;
+import org.springframework.boot.autoconfigure.web.servlet.ServletWebServerFactoryAutoConfiguration;
+import org.springframework.boot.autoconfigure.web.servlet.WebMvcAutoConfiguration;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.context.annotation.Import;
+import reactor.core.publisher.Mono;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * POST /api/activites throughput in the blocking and the reactive ingestion mode, over HTTP against a real
+ * Tomcat with 16 request threads and 64 concurrent clients. USER-SERVICE is simulated by a fixed 20 ms
+ * validation latency (a sleep in blocking mode, a timer in reactive mode); persistence and publishing are
+ * stubbed, so the difference is what holding a request thread during the user-service call costs.
+ *
+ * Run with: mvn test-compile exec:java -Dexec.classpathScope=test -Dexec.mainClass=org.openjdk.jmh.Main -Dexec.args="ActivityIngestionBenchmark -f 0"
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Threads(64)
+@Fork(1)
+public class ActivityIngestionBenchmark {
+
+    private static final Duration USER_SERVICE_LATENCY = Duration.ofMillis(20);
+    private static final String ACTIVITY = "{\"userId\": \"u-1\", \"type\": \"RUNNING\", \"duration\": 30, \"caloriesBurned\": 300}";
+
+    @Param({"BLOCKING", "REACTIVE"})
+    private ActivityIngestionProperties.Mode mode;
+
+    private ConfigurableApplicationContext context;
+    private HttpClient client;
+    private HttpRequest request;
+
+    @Setup
+    public void setUp() {
+        ActivityIngestionProperties ingestionProperties = new ActivityIngestionProperties();
+        ingestionProperties.setMode(mode);
+
+        UserValidationService userValidationService = mock(UserValidationService.class);
+        when(userValidationService.validateUser(anyString())).thenAnswer(invocation -> {
+            Thread.sleep(USER_SERVICE_LATENCY.toMillis());
+            return true;
+        });
+        when(userValidationService.validateUserReactive(anyString()))
+                .thenAnswer(invocation -> Mono.delay(USER_SERVICE_LATENCY).thenReturn(true));
+
+        ActivityResponse response = new ActivityResponse("a-1", "u-1", null, 30, 300, null, null, null, null);
+        ActivityService activityService = mock(ActivityService.class);
+        when(activityService.trackActivity(any())).thenReturn(response);
+        when(activityService.trackActivityReactive(any())).thenAnswer(invocation -> Mono.just(response));
+
+        context = new SpringApplicationBuilder(IngestionApplication.class)
+                .initializers(applicationContext -> {
+                    // registered as finished singletons: the mocks' @Autowired fields must not be injected
+                    var beanFactory = applicationContext.getBeanFactory();
+                    beanFactory.registerSingleton("activityIngestionProperties", ingestionProperties);
+                    beanFactory.registerSingleton("userValidationService", userValidationService);
+                    beanFactory.registerSingleton("activityService", activityService);
+                    beanFactory.registerSingleton("activityExportService", mock(ActivityExportService.class));
+                    beanFactory.registerSingleton("activityAggregateService", mock(ActivityAggregateService.class));
+                })
+                .properties(
+                        "server.port=0",
+                        "server.tomcat.threads.max=16",
+                        "server.tomcat.max-connections=1024",
+                        "spring.config.import=",
+                        "spring.cloud.config.enabled=false",
+                        "logging.level.root=WARN")
+                .run();
+
+        int port = ((WebServerApplicationContext) context).getWebServer().getPort();
+        client = HttpClient.newHttpClient();
+        request = HttpRequest.newBuilder(URI.create("http://localhost:" + port + "/api/activites"))
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString(ACTIVITY))
+                .build();
+    }
+
+    @TearDown
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public int trackActivity() throws Exception {
+        HttpResponse<Void> response = client.send(request, HttpResponse.BodyHandlers.discarding());
+        if (response.statusCode() != 200) {
+            throw new IllegalStateException("Unexpected status " + response.statusCode());
+        }
+        return response.statusCode();
+    }
+
+    // Only the web layer and ActivityController; no Mongo, Kafka, Eureka or config server
+    @SpringBootConfiguration
+    @ImportAutoConfiguration({
+            ServletWebServerFactoryAutoConfiguration.class,
+            DispatcherServletAutoConfiguration.class,
+            WebMvcAutoConfiguration.class,
+            HttpMessageConvertersAutoConfiguration.class,
+            JacksonAutoConfiguration.class,
+            ConfigurationPropertiesAutoConfiguration.class
+    })
+    @Import(ActivityController.class)
+    static class IngestionApplication {
+    }
+}
@@ -0,0 +1,139 @@
+package com.fitness.activityservice.controller;
+
+import com.fitness.activityservice.config.ActivityIngestionProperties;
+import com.fitness.activityservice.dto.ActivityBatchItemResult;
+import com.fitness.activityservice.dto.ActivityBatchResponse;
+import com.fitness.activityservice.service.ActivityAggregateService;
+import com.fitness.activityservice.service.ActivityExportService;
+import com.fitness.activityservice.service.ActivityService;
+import com.fitness.activityservice.service.UserValidationService;
+import com.fitness.common.activity.ActivityResponse;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import reactor.core.publisher.Mono;
+
+import java.util.Collections;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@WebMvcTest(ActivityController.class)
+@Import(ActivityIngestionProperties.class)
+class ActivityControllerTest {
+
+    private static final String ACTIVITY = """
+            {"userId": "u-1", "type": "RUNNING", "duration": 30, "caloriesBurned": 300}
+            """;
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private ActivityIngestionProperties ingestionProperties;
+
+    @MockitoBean
+    private ActivityService activityService;
+
+    @MockitoBean
+    private UserValidationService userValidationService;
+
+    @MockitoBean
+    private ActivityExportService activityExportService;
+
+    @MockitoBean
+    private ActivityAggregateService activityAggregateService;
+
+    @Test
+    void blockingModeAnswersWithoutAsyncDispatch() throws Exception {
+        ingestionProperties.setMode(ActivityIngestionProperties.Mode.BLOCKING);
+        when(userValidationService.validateUser("u-1")).thenReturn(true);
+        when(activityService.trackActivity(any())).thenReturn(response());
+
+        mockMvc.perform(post("/api/activites").contentType(MediaType.APPLICATION_JSON).content(ACTIVITY))
+                .andExpect(request().asyncNotStarted())
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.id").value("a-1"));
+    }
+
+    @Test
+    void reactiveModeReleasesTheRequestThread() throws Exception {
+        ingestionProperties.setMode(ActivityIngestionProperties.Mode.REACTIVE);
+        when(userValidationService.validateUserReactive(anyString())).thenReturn(Mono.just(true));
+        when(activityService.trackActivityReactive(any())).thenReturn(Mono.just(response()));
+
+        MvcResult result = mockMvc.perform(post("/api/activites").contentType(MediaType.APPLICATION_JSON).content(ACTIVITY))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.id").value("a-1"));
+    }
+
+    @Test
+    void batchPassesPerItemResultsThrough() throws Exception {
+        when(userValidationService.validateUser("u-1")).thenReturn(true);
+        ActivityBatchResponse batchResponse = new ActivityBatchResponse();
+        batchResponse.setReceived(2);
+        batchResponse.setAccepted(1);
+        batchResponse.setRejected(1);
+        batchResponse.setResults(List.of(
+                ActivityBatchItemResult.accepted(0, response()),
+                ActivityBatchItemResult.rejected(1, "Activity type is required")));
+        when(activityService.trackActivities(any())).thenReturn(batchResponse);
+
+        mockMvc.perform(post("/api/activites/batch").contentType(MediaType.APPLICATION_JSON).content(batch(2)))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.accepted").value(1))
+                .andExpect(jsonPath("$.results[0].activity.id").value("a-1"))
+                .andExpect(jsonPath("$.results[1].status").value("REJECTED"))
+                .andExpect(jsonPath("$.results[1].error").value("Activity type is required"));
+    }
+
+    @Test
+    void batchRejectsEmptyAndOversizedRequests() {
+        ingestionProperties.setBatchMaxSize(3);
+
+        assertThatThrownBy(() -> mockMvc.perform(post("/api/activites/batch")
+                .contentType(MediaType.APPLICATION_JSON).content(batch(0))))
+                .hasRootCauseMessage("Batch must contain at least one activity");
+        assertThatThrownBy(() -> mockMvc.perform(post("/api/activites/batch")
+                .contentType(MediaType.APPLICATION_JSON).content(batch(4))))
+                .hasRootCauseMessage("Batch size 4 exceeds the limit of 3");
+        verifyNoInteractions(userValidationService, activityService);
+    }
+
+    @Test
+    void batchOfUnknownUserIsRejected() {
+        when(userValidationService.validateUser("u-1")).thenReturn(false);
+
+        assertThatThrownBy(() -> mockMvc.perform(post("/api/activites/batch")
+                .contentType(MediaType.APPLICATION_JSON).content(batch(1))))
+                .hasRootCauseMessage("Invalid user Id : u-1");
+        verify(activityService, never()).trackActivities(any());
+    }
+
+    private static String batch(int size) {
+        return "{\"userId\": \"u-1\", \"activities\": [" + String.join(", ", Collections.nCopies(size, ACTIVITY.strip())) + "]}";
+    }
+
+    private static ActivityResponse response() {
+        return new ActivityResponse("a-1", "u-1", null, 30, 300, null, null, null, null);
+    }
+}
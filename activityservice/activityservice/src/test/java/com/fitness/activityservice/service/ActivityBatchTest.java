@@ -0,0 +1,108 @@
+package com.fitness.activityservice.service;
+
+import com.fitness.activityservice.dto.ActivityBatchItemResult;
+import com.fitness.activityservice.dto.ActivityBatchRequest;
+import com.fitness.activityservice.dto.ActivityBatchResponse;
+import com.fitness.activityservice.mapper.ActivityMapper;
+import com.fitness.activityservice.mapper.ActivityMapperImpl;
+import com.fitness.activityservice.model.Activity;
+import com.fitness.activityservice.repository.ActivityRepository;
+import com.fitness.common.activity.ActivityRequest;
+import com.fitness.common.activity.ActivityType;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.Spy;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class ActivityBatchTest {
+
+    @Mock
+    private ActivityRepository activityRepository;
+
+    @Mock
+    private ActivityAggregateService activityAggregateService;
+
+    @Spy
+    private ActivityMapper activityMapper = new ActivityMapperImpl();
+
+    @InjectMocks
+    private ActivityService activityService;
+
+    @Test
+    void rejectsInvalidItemsAndStoresTheRest() {
+        // Mongo assigns ids on insert
+        when(activityRepository.insert(anyList())).thenAnswer(invocation -> {
+            List<Activity> saved = new ArrayList<>();
+            for (Activity activity : invocation.<List<Activity>>getArgument(0)) {
+                activity.setId("a-" + saved.size());
+                saved.add(activity);
+            }
+            return saved;
+        });
+        ActivityBatchRequest request = new ActivityBatchRequest();
+        request.setUserId("u-1");
+        request.setActivities(Arrays.asList(
+                new ActivityRequest(null, ActivityType.RUNNING, 30, 300, null, null),
+                new ActivityRequest("u-2", ActivityType.RUNNING, 30, 300, null, null),
+                new ActivityRequest("u-1", null, 30, 300, null, null),
+                null,
+                new ActivityRequest("u-1", ActivityType.YOGA, -1, 100, null, null),
+                new ActivityRequest("u-1", ActivityType.CYCLING, 60, 500, null, null)));
+
+        ActivityBatchResponse response = activityService.trackActivities(request);
+
+        assertThat(response.getReceived()).isEqualTo(6);
+        assertThat(response.getAccepted()).isEqualTo(2);
+        assertThat(response.getRejected()).isEqualTo(4);
+        assertThat(response.getResults()).extracting(ActivityBatchItemResult::getStatus).containsExactly(
+                ActivityBatchItemResult.Status.ACCEPTED,
+                ActivityBatchItemResult.Status.REJECTED,
+                ActivityBatchItemResult.Status.REJECTED,
+                ActivityBatchItemResult.Status.REJECTED,
+                ActivityBatchItemResult.Status.REJECTED,
+                ActivityBatchItemResult.Status.ACCEPTED);
+        assertThat(response.getResults().get(1).getError()).isEqualTo("Activity belongs to a different user : u-2");
+        // results keep request positions, accepted items carry the stored activity
+        assertThat(response.getResults().get(5).getIndex()).isEqualTo(5);
+        assertThat(response.getResults().get(5).getActivity().id()).isEqualTo("a-1");
+        assertThat(response.getResults().get(0).getActivity().userId()).isEqualTo("u-1");
+
+        // each stored activity carries its pending event, written in the same insert
+        ArgumentCaptor<List<Activity>> inserted = ArgumentCaptor.captor();
+        verify(activityRepository).insert(inserted.capture());
+        assertThat(inserted.getValue()).hasSize(2).allSatisfy(activity -> {
+            assertThat(activity.getOutbox()).isNotNull();
+            assertThat(activity.getOutbox().getNextAttemptAt()).isNotNull();
+        });
+        verify(activityAggregateService).record(anyList());
+    }
+
+    @Test
+    void batchWithoutValidItemsWritesNothing() {
+        ActivityBatchRequest request = new ActivityBatchRequest();
+        request.setUserId("u-1");
+        request.setActivities(List.of(new ActivityRequest("u-1", null, 30, 300, null, null)));
+
+        ActivityBatchResponse response = activityService.trackActivities(request);
+
+        assertThat(response.getAccepted()).isZero();
+        assertThat(response.getRejected()).isEqualTo(1);
+        verify(activityRepository, never()).insert(anyList());
+        verifyNoInteractions(activityAggregateService);
+    }
+}
@@ -0,0 +1,128 @@
+package com.fitness.activityservice.service;
+
+import com.fitness.activityservice.dto.SampleUploadResult;
+import com.fitness.activityservice.mapper.ActivityMapper;
+import com.fitness.activityservice.mapper.ActivityMapperImpl;
+import com.fitness.activityservice.model.Activity;
+import com.fitness.activityservice.model.ActivitySample;
+import com.fitness.activityservice.repository.ActivityRepository;
+import com.fitness.common.samples.Sample;
+import com.fitness.common.samples.SampleBatchCodec;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.Spy;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.index.IndexOperations;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class ActivitySampleServiceTest {
+
+    private static final int MAX_FRAME_BYTES = 1024;
+
+    @Mock
+    private MongoTemplate mongoTemplate;
+
+    @Mock
+    private ActivityRepository activityRepository;
+
+    @Mock
+    private IndexOperations indexOperations;
+
+    @Spy
+    private ActivityMapper activityMapper = new ActivityMapperImpl();
+
+    @InjectMocks
+    private ActivitySampleService activitySampleService;
+
+    private final List<ActivitySample> stored = new ArrayList<>();
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(activitySampleService, "maxFrameBytes", MAX_FRAME_BYTES);
+        Activity activity = new Activity();
+        activity.setId("a-1");
+        activity.setUserId("u-1");
+        when(activityRepository.findById("a-1")).thenReturn(Optional.of(activity));
+        when(mongoTemplate.collectionExists(ActivitySample.class)).thenReturn(true);
+        when(mongoTemplate.indexOps(ActivitySample.class)).thenReturn(indexOperations);
+        when(mongoTemplate.insert(anyList(), eq(ActivitySample.class))).thenAnswer(invocation -> {
+            stored.addAll(invocation.getArgument(0));
+            return invocation.getArgument(0);
+        });
+        when(mongoTemplate.stream(any(Query.class), eq(ActivitySample.class)))
+                .thenAnswer(invocation -> stored.stream());
+    }
+
+    @Test
+    void oversizedFrameKeepsTheFramesBeforeItAndDerivesTheirMetrics() throws IOException {
+        ByteArrayOutputStream upload = new ByteArrayOutputStream();
+        SampleBatchCodec.writeFrame(upload, samples(0, 10, 150));
+        SampleBatchCodec.writeFrame(upload, samples(10, 10, 160));
+        SampleBatchCodec.writeFrame(upload, samples(20, 500, 170)); // well past MAX_FRAME_BYTES
+
+        SampleUploadResult result = activitySampleService.ingest("a-1", "u-1",
+                new ByteArrayInputStream(upload.toByteArray()));
+
+        assertThat(result.getError()).contains("exceeds the limit of " + MAX_FRAME_BYTES);
+        assertThat(result.getBatches()).isEqualTo(2);
+        assertThat(result.getSamples()).isEqualTo(20);
+        assertThat(result.getMetrics().avgHeartRate()).isEqualTo(155);
+        assertThat(result.getMetrics().maxHeartRate()).isEqualTo(160);
+    }
+
+    @Test
+    void truncatedFrameKeepsTheFramesBeforeIt() throws IOException {
+        ByteArrayOutputStream upload = new ByteArrayOutputStream();
+        SampleBatchCodec.writeFrame(upload, samples(0, 10, 150));
+        ByteArrayOutputStream last = new ByteArrayOutputStream();
+        SampleBatchCodec.writeFrame(last, samples(10, 10, 160));
+        upload.write(last.toByteArray(), 0, last.size() - 3); // the connection dropped mid-frame
+
+        SampleUploadResult result = activitySampleService.ingest("a-1", "u-1",
+                new ByteArrayInputStream(upload.toByteArray()));
+
+        assertThat(result.getError()).isEqualTo("Sample upload ended inside a batch");
+        assertThat(result.getSamples()).isEqualTo(10);
+        assertThat(result.getMetrics().avgHeartRate()).isEqualTo(150);
+    }
+
+    @Test
+    void completeUploadHasNoError() throws IOException {
+        ByteArrayOutputStream upload = new ByteArrayOutputStream();
+        SampleBatchCodec.writeFrame(upload, samples(0, 10, 150));
+
+        SampleUploadResult result = activitySampleService.ingest("a-1", "u-1",
+                new ByteArrayInputStream(upload.toByteArray()));
+
+        assertThat(result.getError()).isNull();
+        assertThat(result.getSamples()).isEqualTo(10);
+    }
+
+    // one sample a second at a constant heart rate, moving north so the frames do not compress to nothing
+    private static List<Sample> samples(int fromSecond, int count, int heartRate) {
+        List<Sample> samples = new ArrayList<>(count);
+        for (int i = fromSecond; i < fromSecond + count; i++) {
+            samples.add(new Sample(1_750_000_000_000L + i * 1000L, heartRate, 48.0 + i * 1e-5, 11.0, null, null));
+        }
+        return samples;
+    }
+}
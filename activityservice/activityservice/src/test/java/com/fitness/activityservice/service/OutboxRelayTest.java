@@ -0,0 +1,189 @@
+package com.fitness.activityservice.service;
+
+import com.fitness.activityservice.config.OutboxProperties;
+import com.fitness.activityservice.mapper.ActivityMapper;
+import com.fitness.activityservice.model.Activity;
+import com.fitness.common.activity.ActivityEvent;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.bson.Document;
+import org.bson.types.ObjectId;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.InOrder;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.mockito.junit.jupiter.MockitoSettings;
+import org.mockito.quality.Strictness;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.aggregation.Aggregation;
+import org.springframework.data.mongodb.core.aggregation.AggregationResults;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.support.SendResult;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+@MockitoSettings(strictness = Strictness.LENIENT)
+class OutboxRelayTest {
+
+    private static final String TOPIC = "activity-events";
+
+    @Mock
+    private MongoTemplate mongoTemplate;
+
+    @Mock
+    private BulkOperations bulkOperations;
+
+    @Mock
+    private KafkaTemplate<String, ActivityEvent> kafkaTemplet;
+
+    @Mock
+    private ActivityMapper activityMapper;
+
+    @InjectMocks
+    private OutboxRelay relay;
+
+    private final OutboxProperties outboxProperties = new OutboxProperties();
+    private final Instant start = Instant.now().minusSeconds(60);
+    private final List<Document> blockers = new ArrayList<>();
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(relay, "outboxProperties", outboxProperties);
+        ReflectionTestUtils.setField(relay, "meterRegistry", new SimpleMeterRegistry());
+        ReflectionTestUtils.setField(relay, "topicName", TOPIC);
+        relay.registerMetrics();
+
+        when(mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, Activity.class)).thenReturn(bulkOperations);
+        when(mongoTemplate.aggregate(any(Aggregation.class), eq(Activity.class), eq(Document.class)))
+                .thenAnswer(invocation -> new AggregationResults<>(blockers, new Document()));
+        when(activityMapper.toEvent(any())).thenAnswer(invocation -> event(invocation.getArgument(0)));
+    }
+
+    @Test
+    void sendsEachUsersActivitiesInOrderAndStopsAtTheFirstFailure() {
+        Activity first = pending("u-1", 0);
+        Activity second = pending("u-1", 1);
+        Activity third = pending("u-1", 2);
+        Activity other = pending("u-2", 1);
+        due(third, other, first, second);
+        sendSucceeds(first);
+        sendFails(second);
+        sendSucceeds(other);
+
+        relay.drainBatch();
+
+        InOrder order = inOrder(kafkaTemplet);
+        order.verify(kafkaTemplet).send(TOPIC, "u-1", event(first));
+        order.verify(kafkaTemplet).send(TOPIC, "u-1", event(second));
+        verify(kafkaTemplet, never()).send(TOPIC, "u-1", event(third));
+        // acknowledged activities lose their outbox state in one update
+        verify(mongoTemplate).updateMulti(argThat(query -> idsIn(query).containsAll(List.of(first.getId(), other.getId()))
+                && idsIn(query).size() == 2), eq(new Update().unset("outbox")), eq(Activity.class));
+
+        assertThat(second.getOutbox().getAttempts()).isEqualTo(1);
+        assertThat(second.getOutbox().getNextAttemptAt()).isAfter(Instant.now());
+        verify(bulkOperations).updateOne(any(Query.class), eq(failureUpdate(second)));
+        // the user's later activities wait for the retry instead of filling the next batches
+        verify(bulkOperations).updateMulti(any(Query.class), eq(new Update().max("outbox.nextAttemptAt", second.getOutbox().getNextAttemptAt())));
+        verify(bulkOperations).execute();
+    }
+
+    @Test
+    void holdsBackActivitiesSavedAfterAnEarlierPendingOne() {
+        Activity before = pending("u-1", 0);
+        Activity after = pending("u-1", 2);
+        due(before, after);
+        Instant retryAt = Instant.now().plusSeconds(30).truncatedTo(ChronoUnit.MILLIS); // as read back from Mongo
+        blockers.add(new Document("_id", "u-1")
+                .append("createdAt", Date.from(start.plusSeconds(1)))
+                .append("nextAttemptAt", Date.from(retryAt)));
+        sendSucceeds(before);
+
+        relay.drainBatch();
+
+        verify(kafkaTemplet).send(TOPIC, "u-1", event(before));
+        verify(kafkaTemplet, never()).send(TOPIC, "u-1", event(after));
+        verify(bulkOperations).updateMulti(any(Query.class), eq(new Update().max("outbox.nextAttemptAt", retryAt)));
+    }
+
+    @Test
+    void parksAnActivityAfterMaxAttempts() {
+        Activity activity = pending("u-1", 0);
+        activity.getOutbox().setAttempts(outboxProperties.getMaxAttempts() - 1);
+        due(activity);
+        sendFails(activity);
+
+        relay.drainBatch();
+
+        assertThat(activity.getOutbox().getParkedAt()).isNotNull();
+        assertThat(activity.getOutbox().getNextAttemptAt()).isNull();
+        verify(bulkOperations).updateOne(any(Query.class), eq(failureUpdate(activity)));
+        // a parked activity no longer holds back the user's later activities
+        verify(bulkOperations, never()).updateMulti(any(Query.class), any(Update.class));
+    }
+
+    private Activity pending(String userId, int secondsAfterStart) {
+        Activity activity = Activity.builder().id(new ObjectId().toHexString()).userId(userId).build();
+        activity.setOutbox(Activity.Outbox.pending());
+        activity.getOutbox().setCreatedAt(start.plusSeconds(secondsAfterStart));
+        activity.getOutbox().setNextAttemptAt(activity.getOutbox().getCreatedAt());
+        return activity;
+    }
+
+    private void due(Activity... activities) {
+        when(mongoTemplate.find(any(Query.class), eq(Activity.class))).thenReturn(new ArrayList<>(List.of(activities)));
+    }
+
+    private void sendSucceeds(Activity activity) {
+        when(kafkaTemplet.send(anyString(), anyString(), eq(event(activity))))
+                .thenReturn(CompletableFuture.completedFuture(null));
+    }
+
+    private void sendFails(Activity activity) {
+        when(kafkaTemplet.send(anyString(), anyString(), eq(event(activity))))
+                .thenReturn(CompletableFuture.<SendResult<String, ActivityEvent>>failedFuture(new IllegalStateException("broker down")));
+    }
+
+    private static Update failureUpdate(Activity activity) {
+        Activity.Outbox outbox = activity.getOutbox();
+        return new Update()
+                .set("outbox.attempts", outbox.getAttempts())
+                .set("outbox.lastError", outbox.getLastError())
+                .set("outbox.nextAttemptAt", outbox.getNextAttemptAt())
+                .set("outbox.parkedAt", outbox.getParkedAt());
+    }
+
+    // the mapper stub: one distinct event per activity, compared by id
+    private static ActivityEvent event(Activity activity) {
+        return new ActivityEvent(activity.getId(), activity.getUserId(), null, 0, 0, null, null, null, null);
+    }
+
+    @SuppressWarnings("unchecked")
+    private static List<String> idsIn(Query query) {
+        Document id = (Document) query.getQueryObject().get("_id");
+        return id == null ? List.of() : new ArrayList<>((Collection<String>) id.get("$in"));
+    }
+}
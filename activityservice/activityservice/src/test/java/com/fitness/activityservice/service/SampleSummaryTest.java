@@ -0,0 +1,50 @@
+package com.fitness.activityservice.service;
+
+import com.fitness.activityservice.model.ActivitySample;
+import org.junit.jupiter.api.Test;
+
+import java.time.Instant;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+class SampleSummaryTest {
+
+    private static final Instant START = Instant.parse("2025-06-01T07:00:00Z");
+
+    @Test
+    void derivesSummaryFromOneKilometreDueNorth() {
+        SampleSummary summary = new SampleSummary();
+        // 0.009 degrees of latitude is ~1000.8 m, covered in 300 s at 1 Hz
+        for (int i = 0; i <= 300; i++) {
+            summary.add(sample(i, 140 + i % 20, 48.0 + 0.009 * i / 300, 11.0, 500.0 + i * 0.1, 170));
+        }
+
+        assertEquals(149, summary.avgHeartRate()); // 15 full 140..159 cycles and one final 140
+        assertEquals(159, summary.maxHeartRate());
+        assertEquals(170, summary.cadence());
+        assertEquals(1.001, summary.distanceKm(), 0.002);
+        assertEquals(300, summary.avgPaceSecPerKm(), 1);
+        assertEquals(30, summary.elevationGainM());
+    }
+
+    @Test
+    void ignoresGpsJumpsAndAltitudeJitter() {
+        SampleSummary summary = new SampleSummary();
+        summary.add(sample(0, null, 48.0, 11.0, 500.0, null));
+        summary.add(sample(1, null, 48.1, 11.0, 500.6, null)); // 11 km in one second
+        summary.add(sample(2, null, 48.1, 11.0, 500.0, null));
+        summary.add(sample(3, null, 48.1, 11.0, 500.8, null));
+
+        assertEquals(0.0, summary.distanceKm());
+        assertEquals(0, summary.elevationGainM());
+        assertNull(summary.avgHeartRate());
+        assertNull(summary.avgPaceSecPerKm());
+    }
+
+    private static ActivitySample sample(int second, Integer heartRate, Double latitude, Double longitude,
+                                         Double altitude, Integer cadence) {
+        return new ActivitySample(START.plusSeconds(second), new ActivitySample.Meta("a1", "u1"),
+                heartRate, latitude, longitude, altitude, cadence);
+    }
+}
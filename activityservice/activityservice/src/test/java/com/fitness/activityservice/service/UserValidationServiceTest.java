@@ -0,0 +1,143 @@
+package com.fitness.activityservice.service;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.web.reactive.function.client.ClientResponse;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class UserValidationServiceTest {
+
+    private final AtomicInteger bulkCalls = new AtomicInteger();
+    private final AtomicInteger singleCalls = new AtomicInteger();
+    private final UserValidationService userValidationService = new UserValidationService();
+
+    private Duration userServiceLatency = Duration.ofMillis(10);
+
+    UserValidationServiceTest() {
+        WebClient webClient = WebClient.builder()
+                .exchangeFunction(request -> {
+                    String body;
+                    if (request.method() == HttpMethod.POST) {
+                        bulkCalls.incrementAndGet();
+                        // every id except "kc-nobody" exists; the stub answers for the ids used below
+                        StringBuilder json = new StringBuilder("{");
+                        for (int i = 0; i < 50; i++) {
+                            json.append(i == 0 ? "" : ",").append("\"kc-").append(i).append("\":true");
+                        }
+                        body = json.append(",\"kc-nobody\":false}").toString();
+                    } else {
+                        singleCalls.incrementAndGet();
+                        body = "true";
+                    }
+                    return Mono.just(ClientResponse.create(HttpStatus.OK)
+                                    .header(HttpHeaders.CONTENT_TYPE, MediaType.APPLICATION_JSON_VALUE)
+                                    .body(body)
+                                    .build())
+                            .delayElement(userServiceLatency);
+                })
+                .build();
+        ReflectionTestUtils.setField(userValidationService, "userServiceWebClient", webClient);
+        ReflectionTestUtils.setField(userValidationService, "maxItems", 100);
+        ReflectionTestUtils.setField(userValidationService, "maxWait", Duration.ofMillis(200));
+        ReflectionTestUtils.setField(userValidationService, "concurrency", 4);
+        ReflectionTestUtils.setField(userValidationService, "timeout", Duration.ofSeconds(2));
+        userValidationService.start();
+    }
+
+    @AfterEach
+    void tearDown() {
+        userValidationService.stop();
+    }
+
+    @Test
+    void concurrentLookupsShareOneBulkCall() throws Exception {
+        int callers = 51;
+        ExecutorService executor = Executors.newFixedThreadPool(callers);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<Boolean>> results = new ArrayList<>();
+        try {
+            for (int i = 0; i < callers; i++) {
+                String userId = i == 50 ? "kc-nobody" : "kc-" + i;
+                results.add(executor.submit(() -> {
+                    start.await();
+                    return userValidationService.validateUser(userId);
+                }));
+            }
+            start.countDown();
+
+            for (int i = 0; i < callers; i++) {
+                assertThat(results.get(i).get()).isEqualTo(i != 50);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+        assertThat(bulkCalls).hasValue(1);
+        assertThat(singleCalls).hasValue(0);
+    }
+
+    @Test
+    void lookupsWaitWhileEveryBatchIsInFlight() {
+        userServiceLatency = Duration.ofMillis(300);
+        ReflectionTestUtils.setField(userValidationService, "maxWait", Duration.ofMillis(5));
+        ReflectionTestUtils.setField(userValidationService, "concurrency", 2);
+        userValidationService.stop();
+        userValidationService.start();
+
+        // two single-id batches occupy both slots; the third flush comes due with no demand downstream
+        Mono<Boolean> first = userValidationService.validateUserReactive("kc-1").cache();
+        first.subscribe();
+        Mono.delay(Duration.ofMillis(50)).block();
+        Mono<Boolean> second = userValidationService.validateUserReactive("kc-2").cache();
+        second.subscribe();
+        Mono.delay(Duration.ofMillis(50)).block();
+
+        assertThat(userValidationService.validateUser("kc-3")).isTrue();
+        assertThat(first.block(Duration.ofSeconds(2))).isTrue();
+        assertThat(second.block(Duration.ofSeconds(2))).isTrue();
+        // the pipeline is still running afterwards
+        assertThat(userValidationService.validateUser("kc-4")).isTrue();
+        assertThat(singleCalls).hasValue(4);
+    }
+
+    @Test
+    void stoppingFailsLookupsStillWaiting() {
+        userServiceLatency = Duration.ofSeconds(30);
+        Mono<Boolean> lookup = userValidationService.validateUserReactive("kc-1").cache();
+        lookup.subscribe(value -> { }, e -> { });
+        Mono.delay(Duration.ofMillis(300)).block();
+
+        userValidationService.stop();
+
+        assertThat(lookup.materialize().block(Duration.ofSeconds(1)).isOnError()).isTrue();
+        assertThat(userValidationService.validateUserReactive("kc-2").materialize().block(Duration.ofSeconds(1)).isOnError()).isTrue();
+    }
+
+    @Test
+    void slowUserServiceAnswersInvalidAfterTheTimeout() {
+        userServiceLatency = Duration.ofSeconds(5);
+        ReflectionTestUtils.setField(userValidationService, "timeout", Duration.ofMillis(300));
+
+        long started = System.nanoTime();
+        Boolean valid = userValidationService.validateUser("kc-1");
+
+        assertThat(valid).isFalse();
+        assertThat(Duration.ofNanos(System.nanoTime() - started)).isLessThan(Duration.ofSeconds(1));
+    }
+}
@@ -0,0 +1,66 @@
+package com.fitness.aiservice.config;
+
+import io.netty.channel.ChannelOption;
+import io.netty.handler.timeout.ReadTimeoutHandler;
+import io.netty.handler.timeout.WriteTimeoutHandler;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.client.reactive.ReactorClientHttpConnector;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.netty.http.client.HttpClient;
+import reactor.netty.resources.ConnectionProvider;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+@Configuration
+public class GeminiClientConfig {
+
+    // Gemini is a single host and each HTTP/1.1 connection carries one call at a time, so the pool size
+    // is also the cap on concurrent calls; callers beyond it wait (bounded) for a free connection
+    @Value("${gemini.client.max-concurrent-calls:16}")
+    private int maxConcurrentCalls;
+
+    @Value("${gemini.client.pending-acquire-max-count:500}")
+    private int pendingAcquireMaxCount;
+
+    @Value("${gemini.client.pending-acquire-timeout:60s}")
+    private Duration pendingAcquireTimeout;
+
+    @Value("${gemini.client.max-idle-time:30s}")
+    private Duration maxIdleTime;
+
+    @Value("${gemini.client.connect-timeout:5s}")
+    private Duration connectTimeout;
+
+    @Value("${gemini.client.read-timeout:30s}")
+    private Duration readTimeout;
+
+    @Value("${gemini.client.response-timeout:60s}")
+    private Duration responseTimeout;
+
+    @Bean(destroyMethod = "dispose")
+    public ConnectionProvider geminiConnectionProvider() {
+        return ConnectionProvider.builder("gemini")
+                .maxConnections(maxConcurrentCalls)
+                .pendingAcquireMaxCount(pendingAcquireMaxCount)
+                .pendingAcquireTimeout(pendingAcquireTimeout)
+                .maxIdleTime(maxIdleTime)
+                .evictInBackground(maxIdleTime)
+                .metrics(true)
+                .build();
+    }
+
+    @Bean
+    public WebClient geminiWebClient(WebClient.Builder webClientBuilder, ConnectionProvider geminiConnectionProvider) {
+        HttpClient httpClient = HttpClient.create(geminiConnectionProvider)
+                .option(ChannelOption.CONNECT_TIMEOUT_MILLIS, (int) connectTimeout.toMillis())
+                .responseTimeout(responseTimeout)
+                .doOnConnected(connection -> connection
+                        .addHandlerLast(new ReadTimeoutHandler(readTimeout.toMillis(), TimeUnit.MILLISECONDS))
+                        .addHandlerLast(new WriteTimeoutHandler(readTimeout.toMillis(), TimeUnit.MILLISECONDS)));
+
+        return webClientBuilder.clientConnector(new ReactorClientHttpConnector(httpClient)).build();
+    }
+}
@@ -0,0 +1,18 @@
+package com.fitness.aiservice.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import reactor.core.scheduler.Scheduler;
+import reactor.core.scheduler.Schedulers;
+
+@Configuration
+public class GeminiWorkerConfig {
+
+    // Gemini responses are handed over to this pool so JSON parsing does not run on the Netty event loop
+    @Bean(destroyMethod = "dispose")
+    public Scheduler geminiScheduler(@Value("${gemini.worker.threads:8}") int threads,
+                                     @Value("${gemini.worker.queue-size:1000}") int queueSize) {
+        return Schedulers.newBoundedElastic(threads, queueSize, "gemini-worker");
+    }
+}
@@ -1,9 +1,11 @@
 // src/main/java/com/fitness/aiservice/config/KafkaConsumerConfig.java
 package com.fitness.aiservice.config;
 
-import com.fitness.aiservice.model.Activity;
+import com.fitness.common.activity.ActivityEvent;
+import com.fitness.common.events.ActivityEventDeserializer;
 import java.util.HashMap;
 import java.util.Map;
+import io.micrometer.core.instrument.MeterRegistry;
 import org.apache.kafka.clients.consumer.ConsumerConfig;
 import org.apache.kafka.common.serialization.StringDeserializer;
 import org.springframework.beans.factory.annotation.Value;
@@ -12,7 +14,7 @@ import org.springframework.context.annotation.Configuration;
 import org.springframework.kafka.config.ConcurrentKafkaListenerContainerFactory;
 import org.springframework.kafka.core.ConsumerFactory;
 import org.springframework.kafka.core.DefaultKafkaConsumerFactory;
-import org.springframework.kafka.support.serializer.JsonDeserializer;
+import org.springframework.kafka.core.MicrometerConsumerListener;
 
 @Configuration
 public class KafkaConsumerConfig {
@@ -20,26 +22,42 @@ public class KafkaConsumerConfig {
     @Value("${spring.kafka.bootstrap-servers}")
     private String bootstrapServers;
 
+    // One consumer thread per container; keep it <= the number of partitions of the topic
+    @Value("${kafka.consumer.concurrency:3}")
+    private int concurrency;
+
+    @Value("${kafka.consumer.max-poll-records:50}")
+    private int maxPollRecords;
+
+    // A whole poll is handed to the listener, so this must cover a batch of Gemini calls
+    @Value("${kafka.consumer.max-poll-interval-ms:600000}")
+    private int maxPollIntervalMs;
+
     @Bean
-    public ConsumerFactory<String, Activity> activityConsumerFactory() {
+    public ConsumerFactory<String, ActivityEvent> activityConsumerFactory(MeterRegistry meterRegistry) {
         Map<String, Object> props = new HashMap<>();
         props.put(ConsumerConfig.BOOTSTRAP_SERVERS_CONFIG, bootstrapServers);
         props.put(ConsumerConfig.KEY_DESERIALIZER_CLASS_CONFIG, StringDeserializer.class);
-        props.put(ConsumerConfig.VALUE_DESERIALIZER_CLASS_CONFIG, JsonDeserializer.class);
+        props.put(ConsumerConfig.VALUE_DESERIALIZER_CLASS_CONFIG, ActivityEventDeserializer.class);
         props.put(ConsumerConfig.AUTO_OFFSET_RESET_CONFIG, "earliest");
+        props.put(ConsumerConfig.MAX_POLL_RECORDS_CONFIG, maxPollRecords);
+        props.put(ConsumerConfig.MAX_POLL_INTERVAL_MS_CONFIG, maxPollIntervalMs);
 
-        JsonDeserializer<Activity> deserializer = new JsonDeserializer<>(Activity.class);
-        deserializer.addTrustedPackages("*");
-        deserializer.ignoreTypeHeaders(); // avoid header-based type resolving if you use default.type
-
-        return new DefaultKafkaConsumerFactory<>(props, new StringDeserializer(), deserializer);
+        // Avro activity-events; still reads JSON values published before the producer switched formats
+        DefaultKafkaConsumerFactory<String, ActivityEvent> factory =
+                new DefaultKafkaConsumerFactory<>(props, new StringDeserializer(), new ActivityEventDeserializer());
+        factory.addListener(new MicrometerConsumerListener<>(meterRegistry)); // exposes records-lag, fetch rate, ...
+        return factory;
     }
 
     @Bean
-    public ConcurrentKafkaListenerContainerFactory<String, Activity> activityKafkaListenerContainerFactory() {
-        ConcurrentKafkaListenerContainerFactory<String, Activity> factory =
+    public ConcurrentKafkaListenerContainerFactory<String, ActivityEvent> activityKafkaListenerContainerFactory(
+            ConsumerFactory<String, ActivityEvent> activityConsumerFactory) {
+        ConcurrentKafkaListenerContainerFactory<String, ActivityEvent> factory =
                 new ConcurrentKafkaListenerContainerFactory<>();
-        factory.setConsumerFactory(activityConsumerFactory());
+        factory.setConsumerFactory(activityConsumerFactory);
+        factory.setConcurrency(concurrency);
+        factory.setBatchListener(true);
         return factory;
     }
 }
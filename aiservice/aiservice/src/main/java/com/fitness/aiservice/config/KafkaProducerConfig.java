@@ -0,0 +1,41 @@
+package com.fitness.aiservice.config;
+
+import com.fitness.common.recommendation.RecommendationEvent;
+import org.apache.kafka.clients.producer.ProducerConfig;
+import org.apache.kafka.common.serialization.StringSerializer;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.kafka.core.DefaultKafkaProducerFactory;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.core.ProducerFactory;
+import org.springframework.kafka.support.serializer.JsonSerializer;
+
+import java.util.HashMap;
+import java.util.Map;
+
+@Configuration
+public class KafkaProducerConfig {
+
+    @Value("${spring.kafka.bootstrap-servers}")
+    private String bootstrapServers;
+
+    @Bean
+    public ProducerFactory<String, RecommendationEvent> recommendationProducerFactory() {
+        Map<String, Object> props = new HashMap<>();
+        props.put(ProducerConfig.BOOTSTRAP_SERVERS_CONFIG, bootstrapServers);
+        props.put(ProducerConfig.LINGER_MS_CONFIG, 20); // a listener batch publishes its recommendations back to back
+        props.put(ProducerConfig.COMPRESSION_TYPE_CONFIG, "lz4");
+
+        // plain JSON without type headers, so consumers do not need this class on their classpath
+        JsonSerializer<RecommendationEvent> valueSerializer = new JsonSerializer<>();
+        valueSerializer.setAddTypeInfo(false);
+        return new DefaultKafkaProducerFactory<>(props, new StringSerializer(), valueSerializer);
+    }
+
+    @Bean
+    public KafkaTemplate<String, RecommendationEvent> recommendationKafkaTemplate(
+            ProducerFactory<String, RecommendationEvent> recommendationProducerFactory) {
+        return new KafkaTemplate<>(recommendationProducerFactory);
+    }
+}
@@ -1,14 +1,22 @@
 package com.fitness.aiservice.controller;
 
+import com.fitness.aiservice.dto.RecommendationPage;
 import com.fitness.aiservice.model.Recommendation;
+import com.fitness.aiservice.service.RecommendationBroadcaster;
 import com.fitness.aiservice.service.RecommendationService;
+import com.fitness.common.recommendation.RecommendationEvent;
 import lombok.AllArgsConstructor;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.http.codec.ServerSentEvent;
 import org.springframework.stereotype.Controller;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import reactor.core.publisher.Flux;
 
 import java.util.List;
 
@@ -20,11 +28,46 @@ public class RecommendationController {
     @Autowired
     private RecommendationService recommendationService;
 
+    @Autowired
+    private RecommendationBroadcaster recommendationBroadcaster;
+
     @GetMapping("/user/{userId}")
     public ResponseEntity<List<Recommendation>> getUserRecommendations(@PathVariable("userId")  String userId){
         return ResponseEntity.ok(recommendationService.getUserRecommendations(userId));
     }
 
+    // Newest first, without the recommendation lists. Pass the returned nextCursor to get the following page;
+    // the full recommendation is fetched on demand from /{id} or /activity/{activityId}.
+    @GetMapping("/user/{userId}/summaries")
+    public ResponseEntity<RecommendationPage> getUserRecommendationPage(
+            @PathVariable("userId") String userId,
+            @RequestParam(value = "cursor", required = false) String cursor,
+            @RequestParam(value = "limit", required = false) Integer limit){
+        return ResponseEntity.ok(recommendationService.getUserRecommendationPage(userId, cursor, limit));
+    }
+
+    // Pushes each new recommendation of the user as soon as it is stored, instead of polling /activity/{activityId}.
+    // Through the gateway X-User-ID is the subject of the verified token; a userId naming someone else is refused.
+    @GetMapping(value = "/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public ResponseEntity<Flux<ServerSentEvent<RecommendationEvent>>> streamRecommendations(
+            @RequestParam(value = "userId", required = false) String userId,
+            @RequestHeader(value = "X-User-ID", required = false) String headerUserId){
+
+        if (headerUserId != null && userId != null && !userId.equals(headerUserId)) {
+            throw new RuntimeException("userId does not match the signed-in user");
+        }
+        String owner = headerUserId != null ? headerUserId : userId;
+        if (owner == null || owner.isBlank()) {
+            throw new RuntimeException("userId is required");
+        }
+        return ResponseEntity.ok(recommendationBroadcaster.subscribe(owner));
+    }
+
+    @GetMapping("/{id}")
+    public ResponseEntity<Recommendation> getRecommendation(@PathVariable("id") String id){
+        return ResponseEntity.ok(recommendationService.getRecommendation(id));
+    }
+
     @GetMapping("/activity/{activityId}")
     public ResponseEntity<Recommendation> getActivityRecommendation(@PathVariable("activityId")  String activityId){
         return ResponseEntity.ok(recommendationService.getActivityRecommendation(activityId));
@@ -0,0 +1,13 @@
+package com.fitness.aiservice.dto;
+
+import lombok.Data;
+
+import java.util.List;
+
+@Data
+public class RecommendationPage {
+
+    private List<RecommendationSummary> recommendations;
+    private String nextCursor; // null on the last page
+
+}
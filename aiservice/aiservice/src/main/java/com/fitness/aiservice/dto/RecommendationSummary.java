@@ -0,0 +1,17 @@
+package com.fitness.aiservice.dto;
+
+import lombok.Data;
+
+import java.time.LocalDateTime;
+
+// History list entry; the improvement, suggestion and safety lists are never read from Mongo
+@Data
+public class RecommendationSummary {
+
+    private String id;
+    private String activityId;
+    private String type;
+    private String preview; // start of the recommendation text
+    private LocalDateTime createdAt;
+
+}
@@ -1,38 +0,0 @@
-package com.fitness.aiservice.model;
-
-import lombok.AllArgsConstructor;
-import lombok.Builder;
-import lombok.Data;
-import lombok.NoArgsConstructor;
-import org.springframework.data.annotation.CreatedDate;
-import org.springframework.data.annotation.LastModifiedDate;
-import org.springframework.data.mongodb.core.mapping.Document;
-import org.springframework.data.mongodb.core.mapping.Field;
-
-import java.time.LocalDateTime;
-import java.util.Map;
-
-@Document(collation = "activities")
-@Data
-@Builder
-@AllArgsConstructor
-@NoArgsConstructor
-public class Activity {
-    private String id;
-    private String userId;
-    private ActivityType type;
-    private int duration; // in minutes
-    private int caloriesBurned;
-    private LocalDateTime startTime;
-
-    @Field("metrics")
-    private Map<String, Object> additionalMatrics;
-
-    @CreatedDate
-    private LocalDateTime createdAt;
-
-    @LastModifiedDate
-    private LocalDateTime updatedAt;
-
-
-}
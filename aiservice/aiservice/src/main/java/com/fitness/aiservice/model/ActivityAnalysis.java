@@ -0,0 +1,22 @@
+package com.fitness.aiservice.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+// The parsed part of a Gemini answer, independent of which activity it was generated for
+@Data
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+public class ActivityAnalysis {
+
+    private String recommendation;
+    private List<String> improvements;
+    private List<String> suggestions;
+    private List<String> safety;
+
+}
@@ -0,0 +1,15 @@
+package com.fitness.aiservice.model;
+
+import java.util.List;
+
+// One element of the JSON array Gemini is asked to return for a multi-activity prompt
+public record GeminiBatchAnalysis(String activityId,
+                                  GeminiAnalysis.Analysis analysis,
+                                  List<GeminiAnalysis.Improvement> improvements,
+                                  List<GeminiAnalysis.Suggestion> suggestions,
+                                  List<String> safety) {
+
+    public GeminiAnalysis toAnalysis() {
+        return new GeminiAnalysis(analysis, improvements, suggestions, safety);
+    }
+}
@@ -3,12 +3,15 @@ package com.fitness.aiservice.model;
 import lombok.Builder;
 import lombok.Data;
 import org.springframework.data.annotation.CreatedDate;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
 import org.springframework.data.mongodb.core.mapping.Document;
 
 import java.time.LocalDateTime;
 import java.util.List;
 
 @Document
+// Ends in the history sort order (createdAt desc, _id desc), so keyset pages are index scans
+@CompoundIndex(name = "user_created_idx", def = "{'userId': 1, 'createdAt': -1, '_id': -1}")
 @Data
 @Builder
 public class Recommendation {
@@ -16,7 +19,7 @@ public class Recommendation {
     private String id;
     private String userId;
     private  String type;
-    private  String activityId;
+    private  String activityId; // unique, see RecommendationIndexMigration
     private  String recommendation;
     private List<String> improvements;
     private List<String> suggestions;
@@ -0,0 +1,26 @@
+package com.fitness.aiservice.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.data.mongodb.core.index.Indexed;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import java.time.Instant;
+
+@Document(collection = "recommendation_cache")
+@Data
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+public class RecommendationCacheEntry {
+
+    private String id; // hash of the normalized prompt inputs
+    private ActivityAnalysis analysis;
+    private long geminiLatencyMs; // what the original call cost, reported as saved on every hit
+
+    @Indexed(name = "created_at_ttl_idx", expireAfter = "7d")
+    private Instant createdAt;
+
+}
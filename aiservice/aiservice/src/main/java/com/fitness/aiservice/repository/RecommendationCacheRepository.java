@@ -0,0 +1,9 @@
+package com.fitness.aiservice.repository;
+
+import com.fitness.aiservice.model.RecommendationCacheEntry;
+import org.springframework.data.mongodb.repository.MongoRepository;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public interface RecommendationCacheRepository extends MongoRepository<RecommendationCacheEntry, String> {
+}
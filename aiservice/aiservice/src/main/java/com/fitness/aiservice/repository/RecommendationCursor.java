@@ -0,0 +1,33 @@
+package com.fitness.aiservice.repository;
+
+import org.bson.types.ObjectId;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.Base64;
+
+/**
+ * Position of the last recommendation on a history page. Pages are ordered by (createdAt desc, id desc),
+ * so the next page starts strictly after this pair. Encoded as opaque base64url for clients.
+ */
+public record RecommendationCursor(LocalDateTime createdAt, String id) {
+
+    public String encode() {
+        String raw = createdAt + "|" + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    public static RecommendationCursor decode(String cursor) {
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            int separator = raw.indexOf('|');
+            String id = raw.substring(separator + 1);
+            if (!ObjectId.isValid(id)) {
+                throw new IllegalArgumentException("not a recommendation id");
+            }
+            return new RecommendationCursor(LocalDateTime.parse(raw.substring(0, separator)), id);
+        } catch (RuntimeException e) {
+            throw new RuntimeException("Invalid cursor : " + cursor);
+        }
+    }
+}
@@ -8,7 +8,7 @@ import java.util.List;
 import java.util.Optional;
 
 @Repository
-public interface RecommendationRepository extends MongoRepository<Recommendation, String> {
+public interface RecommendationRepository extends MongoRepository<Recommendation, String>, RecommendationRepositoryCustom {
     List<Recommendation> findByUserId(String userId);
 
     Optional<Recommendation> findByActivityId(String activityId);
@@ -0,0 +1,20 @@
+package com.fitness.aiservice.repository;
+
+import com.fitness.aiservice.dto.RecommendationSummary;
+import com.fitness.aiservice.model.Recommendation;
+
+import java.util.List;
+
+public interface RecommendationRepositoryCustom {
+
+    /**
+     * One page of a user's recommendations, newest first. after is optional.
+     */
+    List<RecommendationSummary> findSummaryPage(String userId, RecommendationCursor after, int limit);
+
+    /**
+     * Stores the recommendations whose activity has none yet, in one unordered bulk write, and returns
+     * those that were stored. Recommendations for an activity that already has one are left out.
+     */
+    List<Recommendation> insertNew(List<Recommendation> recommendations);
+}
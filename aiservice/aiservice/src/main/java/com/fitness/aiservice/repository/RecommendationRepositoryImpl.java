@@ -0,0 +1,82 @@
+package com.fitness.aiservice.repository;
+
+import com.fitness.aiservice.dto.RecommendationSummary;
+import com.fitness.aiservice.model.Recommendation;
+import com.mongodb.bulk.BulkWriteResult;
+import com.mongodb.bulk.BulkWriteUpsert;
+import org.bson.Document;
+import org.bson.types.ObjectId;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.aggregation.StringOperators;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+public class RecommendationRepositoryImpl implements RecommendationRepositoryCustom {
+
+    private static final int PREVIEW_LENGTH = 160;
+
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
+    @Override
+    public List<RecommendationSummary> findSummaryPage(String userId, RecommendationCursor after, int limit) {
+        Criteria criteria = Criteria.where("userId").is(userId);
+        if (after != null) {
+            criteria = new Criteria().andOperator(criteria, after(after));
+        }
+
+        Query query = new Query(criteria)
+                .with(Sort.by(Sort.Direction.DESC, "createdAt", "_id"))
+                .limit(limit);
+        query.fields().include("activityId", "type", "createdAt")
+                .project(StringOperators.valueOf("recommendation").substringCP(0, PREVIEW_LENGTH)).as("preview");
+
+        return mongoTemplate.query(Recommendation.class)
+                .as(RecommendationSummary.class)
+                .matching(query)
+                .all();
+    }
+
+    @Override
+    public List<Recommendation> insertNew(List<Recommendation> recommendations) {
+        LocalDateTime now = LocalDateTime.now();
+        BulkOperations bulk = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, Recommendation.class);
+        for (Recommendation recommendation : recommendations) {
+            // set here because auditing does not run for bulk updates, and the caller needs both
+            if (recommendation.getId() == null) {
+                recommendation.setId(new ObjectId().toHexString());
+            }
+            if (recommendation.getCreatedAt() == null) {
+                recommendation.setCreatedAt(now);
+            }
+            Document stored = new Document();
+            mongoTemplate.getConverter().write(recommendation, stored);
+            Update update = new Update();
+            stored.forEach(update::setOnInsert);
+            bulk.upsert(new Query(Criteria.where("activityId").is(recommendation.getActivityId())), update);
+        }
+
+        BulkWriteResult result = bulk.execute();
+        List<Recommendation> inserted = new ArrayList<>(result.getUpserts().size());
+        for (BulkWriteUpsert upsert : result.getUpserts()) {
+            inserted.add(recommendations.get(upsert.getIndex()));
+        }
+        return inserted;
+    }
+
+    // Everything sorting after the cursor in (createdAt desc, _id desc) order
+    private static Criteria after(RecommendationCursor cursor) {
+        return new Criteria().orOperator(
+                Criteria.where("createdAt").lt(cursor.createdAt()),
+                new Criteria().andOperator(Criteria.where("createdAt").is(cursor.createdAt()),
+                        Criteria.where("_id").lt(new ObjectId(cursor.id()))));
+    }
+}
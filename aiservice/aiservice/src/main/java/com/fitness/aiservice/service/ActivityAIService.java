@@ -1,19 +1,17 @@
 package com.fitness.aiservice.service;
 
-import com.fasterxml.jackson.databind.JsonNode;
-import com.fasterxml.jackson.databind.ObjectMapper;
-import com.fitness.aiservice.model.Activity;
+import com.fitness.aiservice.model.ActivityAnalysis;
 import com.fitness.aiservice.model.Recommendation;
+import com.fitness.common.activity.ActivityEvent;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Scheduler;
 
-import java.lang.runtime.ObjectMethods;
 import java.time.LocalDateTime;
-import java.util.ArrayList;
 import java.util.Collections;
-import java.util.List;
 
 @Service
 @Slf4j
@@ -23,104 +21,77 @@ public class ActivityAIService {
     @Autowired
     private GeminiService geminiService;
 
-    public Recommendation generateRecommendations(Activity activity){
-
-        String promt = createPromptForActivity(activity);
-
-        String aiResponse = geminiService.getRecommendations(promt);
-        log.info("Generated Prompt for Gemini AI: {}", aiResponse);
-
-        return processAiResponse(activity, aiResponse);
-    }
-
-    private Recommendation processAiResponse(Activity activity, String aiResponse) {
-
-        try{
-
-            ObjectMapper mapper = new ObjectMapper();
-            JsonNode rootNode = mapper.readTree(aiResponse); // convert string to json
-            JsonNode textNode = rootNode.path("candidates").get(0).path("content").path("parts").get(0).path("text");
-
-            String jsonContent = textNode.asText().replaceAll("```json\\n", "").replaceAll("\\n```", "").trim(); // coverts to string
-//            log.info("Extracted Clean AI Content: {}", jsonContent);
-
-            JsonNode analysisJson = mapper.readTree(jsonContent); // convert string to json
-            JsonNode analysisNode = analysisJson.path("analysis");
-
-            StringBuilder fullAnalysis = new StringBuilder();
-
-            addAnalysisSection(fullAnalysis, analysisNode, "overall", "Overall:");
-            addAnalysisSection(fullAnalysis, analysisNode, "pace", "Pace:");
-            addAnalysisSection(fullAnalysis, analysisNode, "heartRate", "HeartRate:");
-            addAnalysisSection(fullAnalysis, analysisNode, "caloriesBurned", "CaloriesBurned:");
-
-
-            List<String> improvements = extractImprovements(analysisJson.path("improvements"));
-            List<String> suggestions = extractSuggestions(analysisJson.path("suggestions"));
-            List<String> safety = extractSafety(analysisJson.path("safety"));
+    @Autowired
+    private Scheduler geminiScheduler;
 
-            return  Recommendation.builder().activityId(activity.getId()).userId(activity.getUserId()).type(activity.getType().toString()).recommendation(fullAnalysis.toString().trim()).improvements(improvements).suggestions(suggestions).safety(safety).createdAt(LocalDateTime.now()).build();
+    @Autowired
+    private RecommendationCache recommendationCache;
 
+    @Autowired
+    private GeminiResponseParser geminiResponseParser;
 
-        }catch (Exception e){
-            e.printStackTrace();
-            return createDefaultRecommendation(activity);
+    @Autowired(required = false) // only present when gemini.batch.enabled=true
+    private GeminiBatcher geminiBatcher;
 
-        }
+    public Mono<Recommendation> generateRecommendations(ActivityEvent activity){
 
-    }
+        String cacheKey = recommendationCache.keyFor(activity);
 
-    private Recommendation createDefaultRecommendation(Activity activity) {
-        return  Recommendation.builder().activityId(activity.getId()).userId(activity.getUserId()).type(activity.getType().toString()).recommendation("Unable to generate detailed recommendation").improvements(Collections.singletonList("Continue with your current routine")).suggestions(Collections.singletonList("Continue with your current routine")).safety(Collections.singletonList("Continue with your current routine")).createdAt(LocalDateTime.now()).build();
+        return recommendationCache.get(cacheKey)
+                .map(analysis -> toRecommendation(activity, analysis))
+                .switchIfEmpty(Mono.defer(() -> geminiBatcher == null
+                        ? analyseWithGemini(activity, cacheKey)
+                        : analyseInBatch(activity, cacheKey)))
+                .onErrorResume(e -> {
+                    log.error("Gemini call failed for Activity ID {}: {}", activity.id(), e.getMessage());
+                    return Mono.just(createDefaultRecommendation(activity));
+                });
     }
 
-    private List<String> extractSafety(JsonNode safetyNodes) {
-        List<String> safetyList = new ArrayList<>();
-        if(safetyNodes.isArray()){
-            safetyNodes.forEach( item -> safetyList.add(item.asText()));
-        }
-        return safetyList.isEmpty() ? Collections.singletonList("Follow general Safety guidelines"): safetyList; // Placeholder
-    }
+    // Shares one prompt with other pending activities; anything the combined answer did not cover
+    // goes through the single-item prompt instead
+    private Mono<Recommendation> analyseInBatch(ActivityEvent activity, String cacheKey) {
 
-    private List<String> extractSuggestions(JsonNode suggestionsNodes) {
-        List<String> suggestionList = new ArrayList<>();
-        if(suggestionsNodes.isArray()){
-            suggestionsNodes.forEach((suggestion) ->{
-                String workout = suggestion.path("workout").asText();
-                String description = suggestion.path("description").asText();
-                suggestionList.add(String .format("Workout: %s, Description: %s", workout, description));
-                log.info("Suggestion Workout: {}, Description: {}", workout, description);
+        long startNanos = System.nanoTime();
 
-            });
-        }
-        return suggestionList.isEmpty() ? Collections.singletonList("No Specific Suggestions provided"): suggestionList; // Placeholder
+        return geminiBatcher.analyse(activity)
+                .map(analysis -> {
+                    recommendationCache.put(cacheKey, analysis, (System.nanoTime() - startNanos) / 1_000_000);
+                    return toRecommendation(activity, analysis);
+                })
+                .switchIfEmpty(Mono.defer(() -> analyseWithGemini(activity, cacheKey)));
     }
 
-    private List<String> extractImprovements(JsonNode improvementsNodes) {
-
-        List<String> improvements = new ArrayList<>();
-        if(improvementsNodes.isArray()){
-            improvementsNodes.forEach( (improvement) -> {
-                String area = improvement.path("area").asText();
-                String detail = improvement.path("recommendation").asText();
-                improvements.add(String .format("Area: %s, Recommendation: %s", area, detail));
-                log.info("Improvement Area: {}, Recommendation: {}", area, detail);
-            });
+    private Mono<Recommendation> analyseWithGemini(ActivityEvent activity, String cacheKey) {
 
-        }
-        return improvements.isEmpty() ? Collections.singletonList("No Specific Improvements provided"): improvements; // Placeholder
+        String promt = createPromptForActivity(activity);
+        long startNanos = System.nanoTime();
+
+        return geminiService.getRecommendations(promt)
+                .publishOn(geminiScheduler) // parse off the Netty event loop
+                .map(aiResponse -> {
+                    log.debug("Gemini AI response: {}", aiResponse);
+                    long latencyMs = (System.nanoTime() - startNanos) / 1_000_000;
+                    try {
+                        ActivityAnalysis analysis = geminiResponseParser.parse(aiResponse);
+                        recommendationCache.put(cacheKey, analysis, latencyMs);
+                        return toRecommendation(activity, analysis);
+                    } catch (Exception e) {
+                        log.error("Could not parse the Gemini response for Activity ID {}", activity.id(), e);
+                        return createDefaultRecommendation(activity); // not cached, the next identical activity tries again
+                    }
+                });
+    }
 
+    private Recommendation toRecommendation(ActivityEvent activity, ActivityAnalysis analysis) {
+        return  Recommendation.builder().activityId(activity.id()).userId(activity.userId()).type(String.valueOf(activity.type())).recommendation(analysis.getRecommendation()).improvements(analysis.getImprovements()).suggestions(analysis.getSuggestions()).safety(analysis.getSafety()).createdAt(LocalDateTime.now()).build();
     }
 
-    private void addAnalysisSection(StringBuilder fullAnalysis, JsonNode analysisNode, String key, String prefix) {
-        if (!analysisNode.path(key).isMissingNode()) {
-            fullAnalysis.append(prefix)
-                    .append(analysisNode.path(key).asText())
-                    .append("\n\n");
-        }
+    private Recommendation createDefaultRecommendation(ActivityEvent activity) {
+        return  Recommendation.builder().activityId(activity.id()).userId(activity.userId()).type(String.valueOf(activity.type())).recommendation("Unable to generate detailed recommendation").improvements(Collections.singletonList("Continue with your current routine")).suggestions(Collections.singletonList("Continue with your current routine")).safety(Collections.singletonList("Continue with your current routine")).createdAt(LocalDateTime.now()).build();
     }
 
-    private String createPromptForActivity(Activity activity) {
+    private String createPromptForActivity(ActivityEvent activity) {
         return String.format("""
         Analyze this fitness activity and provide detailed recommendations in the following EXACT JSON format:
         {
@@ -157,10 +128,10 @@ public class ActivityAIService {
         Provide detailed analysis focusing on performance, improvements, next workout suggestions, and safety guidelines.
         Ensure the response follows the EXACT JSON format shown above.
         """,
-                activity.getType(),
-                activity.getDuration(),
-                activity.getCaloriesBurned(),
-                activity.getAdditionalMatrics()
+                activity.type(),
+                activity.duration(),
+                activity.caloriesBurned(),
+                activity.additionalMatrics()
         );
     }
 
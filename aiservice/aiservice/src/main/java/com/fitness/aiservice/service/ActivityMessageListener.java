@@ -1,14 +1,23 @@
 // src/main/java/com/fitness/aiservice/service/ActivityMessageListener.java
 package com.fitness.aiservice.service;
 
-import com.fitness.aiservice.model.Activity;
 import com.fitness.aiservice.model.Recommendation;
 import com.fitness.aiservice.repository.RecommendationRepository;
+import com.fitness.common.activity.ActivityEvent;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
-import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.kafka.annotation.KafkaListener;
 import org.springframework.stereotype.Service;
+import reactor.core.publisher.Flux;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
 
 @Service
 @Slf4j
@@ -16,20 +25,55 @@ import org.springframework.stereotype.Service;
 public class ActivityMessageListener {
 
     private final ActivityAIService activityAIService;
-    private final ActivityAIService aiService;
     private final RecommendationRepository recommendationRepository;
+    private final RecommendationEventPublisher recommendationEventPublisher;
+    private final MeterRegistry meterRegistry;
+
+    @Value("${gemini.worker.threads:8}")
+    private int workerThreads;
 
+    // below kafka.consumer.max-poll-interval-ms, so a stuck poll fails and is redelivered instead of
+    // stalling the listener until the consumer is evicted
+    @Value("${kafka.consumer.batch-timeout:9m}")
+    private Duration batchTimeout;
+
+    /**
+     * Receives a whole poll at once. Activities of different users are analysed in parallel (bounded by
+     * gemini.worker.threads), while one user's activities are handled one after another in offset order.
+     * The recommendations of the batch are then written with a single bulk write and announced on
+     * recommendation-events. A redelivered activity that already has a recommendation is neither stored
+     * nor announced again.
+     */
     @KafkaListener(topics = "${kafka.topic.name}",
             groupId = "activity-processor-group",
             containerFactory = "activityKafkaListenerContainerFactory")
-    public void processActivity(Activity activity) {
-        if (activity == null) {
-            log.warn("Received null Activity payload; skipping processing");
-            return;
+    public void processActivities(List<ActivityEvent> activities) {
+        Timer.Sample sample = Timer.start(meterRegistry);
+
+        Map<String, List<ActivityEvent>> activitiesByUser = new LinkedHashMap<>();
+        for (ActivityEvent activity : activities) {
+            if (activity == null) {
+                log.warn("Received null Activity payload; skipping processing");
+                continue;
+            }
+            activitiesByUser.computeIfAbsent(activity.userId(), userId -> new ArrayList<>()).add(activity);
         }
-        log.info("Received Activity for processing : {}", activity.getUserId());
-        Recommendation recommendation = activityAIService.generateRecommendations(activity);
-        recommendationRepository.save(recommendation);
-        log.info("Saved Recommendation for Activity ID in Recommendation Repo: {}", activity.getId());
+        log.info("Received {} Activities for processing from {} users", activities.size(), activitiesByUser.size());
+
+        List<Recommendation> recommendations = Flux.fromIterable(activitiesByUser.values())
+                .flatMap(userActivities -> Flux.fromIterable(userActivities)
+                        .concatMap(activityAIService::generateRecommendations), workerThreads)
+                .collectList()
+                .block(batchTimeout);
+
+        if (recommendations != null && !recommendations.isEmpty()) {
+            List<Recommendation> saved = recommendationRepository.insertNew(recommendations);
+            log.info("Saved {} Recommendations in Recommendation Repo", saved.size());
+            recommendationEventPublisher.publish(saved);
+        }
+
+        meterRegistry.counter("ai.activities.processed").increment(recommendations == null ? 0 : recommendations.size());
+        meterRegistry.summary("ai.batch.size").record(activities.size());
+        sample.stop(meterRegistry.timer("ai.batch.duration"));
     }
 }
@@ -0,0 +1,197 @@
+package com.fitness.aiservice.service;
+
+import com.fitness.aiservice.model.ActivityAnalysis;
+import com.fitness.common.activity.ActivityEvent;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Service;
+import reactor.core.Disposable;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+import reactor.core.scheduler.Scheduler;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Collects activities for up to gemini.batch.max-items items or gemini.batch.max-wait and asks Gemini
+ * for all of them in one prompt. Each caller gets its own analysis back, or an empty Mono when the
+ * combined answer could not be used for it, in which case the caller falls back to a single-item prompt.
+ */
+@Service
+@Slf4j
+@ConditionalOnProperty(name = "gemini.batch.enabled", havingValue = "true")
+public class GeminiBatcher {
+
+    @Autowired
+    private GeminiService geminiService;
+
+    @Autowired
+    private GeminiResponseParser geminiResponseParser;
+
+    @Autowired
+    private Scheduler geminiScheduler;
+
+    @Value("${gemini.batch.max-items:10}")
+    private int maxItems;
+
+    @Value("${gemini.batch.max-wait:200ms}")
+    private Duration maxWait;
+
+    @Value("${gemini.batch.concurrency:4}")
+    private int concurrency;
+
+    // several listener threads submit concurrently; the unsafe unicast sink needs serialized emissions
+    private final Object emitLock = new Object();
+    // activities handed to the pipeline and not answered yet, failed if the pipeline ends
+    private final Set<PendingAnalysis> unanswered = ConcurrentHashMap.newKeySet();
+    private Sinks.Many<PendingAnalysis> pending;
+    private Disposable subscription;
+
+    @PostConstruct
+    void start() {
+        pending = Sinks.unsafe().many().unicast().onBackpressureBuffer();
+        subscription = pending.asFlux()
+                // fair: a Gemini batch takes seconds, so the max-wait flush often finds every slot busy;
+                // activities then wait in the buffer instead of overflowing it
+                .bufferTimeout(maxItems, maxWait, true)
+                .flatMap(this::analyseBatch, concurrency)
+                .subscribe(null, this::restart);
+    }
+
+    @PreDestroy
+    void stop() {
+        synchronized (emitLock) {
+            failUnanswered(new IllegalStateException("Gemini batching is shutting down"));
+            subscription.dispose();
+        }
+    }
+
+    public Mono<ActivityAnalysis> analyse(ActivityEvent activity) {
+        PendingAnalysis item = new PendingAnalysis(activity, Sinks.one());
+        Sinks.EmitResult emitted;
+        synchronized (emitLock) {
+            unanswered.add(item);
+            emitted = pending.tryEmitNext(item);
+        }
+        if (emitted.isFailure()) {
+            unanswered.remove(item);
+            return Mono.error(new RuntimeException("Gemini batching unavailable: " + emitted));
+        }
+        return item.result().asMono();
+    }
+
+    // Only a bug gets here, analyseBatch absorbs Gemini errors; a dead pipeline would leave every later caller waiting
+    private void restart(Throwable error) {
+        log.error("Gemini batch pipeline failed, restarting it", error);
+        synchronized (emitLock) {
+            failUnanswered(error);
+            start();
+        }
+    }
+
+    private void failUnanswered(Throwable error) {
+        unanswered.forEach(item -> item.result().tryEmitError(error));
+        unanswered.clear();
+    }
+
+    private Mono<Void> analyseBatch(List<PendingAnalysis> batch) {
+        if (batch.size() == 1) {
+            batch.get(0).result().tryEmitEmpty(); // the single-item prompt is cheaper than a batch of one
+            unanswered.remove(batch.get(0));
+            return Mono.empty();
+        }
+
+        log.info("Sending {} activities to Gemini in one prompt", batch.size());
+        return geminiService.getRecommendations(createPromptForActivities(batch))
+                .publishOn(geminiScheduler)
+                .map(aiResponse -> {
+                    try {
+                        return geminiResponseParser.parseBatch(aiResponse);
+                    } catch (Exception e) {
+                        log.warn("Could not parse batched Gemini response, falling back to single prompts: {}", e.getMessage());
+                        return Map.<String, ActivityAnalysis>of();
+                    }
+                })
+                .onErrorResume(e -> {
+                    log.warn("Batched Gemini call failed, falling back to single prompts: {}", e.getMessage());
+                    return Mono.just(Map.of());
+                })
+                .doOnNext(analyses -> batch.forEach(item -> {
+                    ActivityAnalysis analysis = item.activity().id() == null ? null : analyses.get(item.activity().id());
+                    if (analysis != null) {
+                        item.result().tryEmitValue(analysis);
+                    } else {
+                        item.result().tryEmitEmpty();
+                    }
+                }))
+                .doFinally(signal -> batch.forEach(unanswered::remove))
+                .then();
+    }
+
+    private String createPromptForActivities(List<PendingAnalysis> batch) {
+        StringBuilder activities = new StringBuilder();
+        for (PendingAnalysis item : batch) {
+            ActivityEvent activity = item.activity();
+            activities.append(String.format("""
+                    - Activity ID: %s
+                      Activity Type: %s
+                      Duration: %d minutes
+                      Calories Burned: %d
+                      Additional Metrics: %s
+                    """,
+                    activity.id(),
+                    activity.type(),
+                    activity.duration(),
+                    activity.caloriesBurned(),
+                    activity.additionalMatrics()));
+        }
+
+        return String.format("""
+        Analyze each of the following fitness activities and provide detailed recommendations.
+        Respond with a JSON array containing exactly one element per activity, in the following EXACT format:
+        [
+          {
+            "activityId": "The Activity ID given below",
+            "analysis": {
+              "overall": "Overall analysis here",
+              "pace": "Pace analysis here",
+              "heartRate": "Heart rate analysis here",
+              "caloriesBurned": "Calories analysis here"
+            },
+            "improvements": [
+              {
+                "area": "Area name",
+                "recommendation": "Detailed recommendation"
+              }
+            ],
+            "suggestions": [
+              {
+                "workout": "Workout name",
+                "description": "Detailed workout description"
+              }
+            ],
+            "safety": [
+              "Safety point 1",
+              "Safety point 2"
+            ]
+          }
+        ]
+
+        Analyze these activities:
+        %s
+        Provide detailed analysis focusing on performance, improvements, next workout suggestions, and safety guidelines.
+        Ensure the response follows the EXACT JSON format shown above and copies every Activity ID unchanged.
+        """, activities);
+    }
+
+    private record PendingAnalysis(ActivityEvent activity, Sinks.One<ActivityAnalysis> result) {
+    }
+}
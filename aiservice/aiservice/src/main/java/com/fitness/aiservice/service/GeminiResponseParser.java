@@ -0,0 +1,163 @@
+package com.fitness.aiservice.service;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fitness.aiservice.model.ActivityAnalysis;
+import com.fitness.aiservice.model.GeminiAnalysis;
+import com.fitness.aiservice.model.GeminiBatchAnalysis;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * Turns a raw Gemini generateContent response into an ActivityAnalysis.
+ *
+ * Only candidates[0].content.parts[0].text is read, with a streaming parser that skips everything else
+ * (usage metadata, safety ratings, other candidates) without building a tree. The markdown fence around the
+ * model's JSON is cut off by index, and the inner JSON is bound directly to GeminiAnalysis.
+ */
+@Component
+public class GeminiResponseParser {
+
+    private static final ObjectMapper MAPPER = new ObjectMapper()
+            .configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false);
+    private static final ObjectReader ANALYSIS_READER = MAPPER.readerFor(GeminiAnalysis.class);
+    private static final ObjectReader BATCH_READER = MAPPER.readerForListOf(GeminiBatchAnalysis.class);
+
+    private static final String FENCE = "```";
+
+    public ActivityAnalysis parse(String aiResponse) throws IOException {
+        String text = extractText(aiResponse);
+        if (text == null) {
+            throw new IOException("Gemini response has no candidates[0].content.parts[0].text");
+        }
+        GeminiAnalysis analysis = ANALYSIS_READER.readValue(stripCodeFence(text));
+        return toActivityAnalysis(analysis);
+    }
+
+    /**
+     * Parses the answer to a multi-activity prompt into analyses keyed by activity id.
+     * Elements without an activity id are dropped; the caller decides what to do about missing ids.
+     */
+    public Map<String, ActivityAnalysis> parseBatch(String aiResponse) throws IOException {
+        String text = extractText(aiResponse);
+        if (text == null) {
+            throw new IOException("Gemini response has no candidates[0].content.parts[0].text");
+        }
+        List<GeminiBatchAnalysis> items = BATCH_READER.readValue(stripCodeFence(text));
+        Map<String, ActivityAnalysis> analyses = new HashMap<>(items.size() * 2);
+        for (GeminiBatchAnalysis item : items) {
+            if (item != null && item.activityId() != null) {
+                analyses.put(item.activityId(), toActivityAnalysis(item.toAnalysis()));
+            }
+        }
+        return analyses;
+    }
+
+    public ActivityAnalysis toActivityAnalysis(GeminiAnalysis analysis) {
+        StringBuilder fullAnalysis = new StringBuilder();
+        GeminiAnalysis.Analysis sections = analysis.analysis();
+        if (sections != null) {
+            addAnalysisSection(fullAnalysis, sections.overall(), "Overall:");
+            addAnalysisSection(fullAnalysis, sections.pace(), "Pace:");
+            addAnalysisSection(fullAnalysis, sections.heartRate(), "HeartRate:");
+            addAnalysisSection(fullAnalysis, sections.caloriesBurned(), "CaloriesBurned:");
+        }
+
+        List<String> improvements = new ArrayList<>();
+        if (analysis.improvements() != null) {
+            for (GeminiAnalysis.Improvement improvement : analysis.improvements()) {
+                improvements.add("Area: " + Objects.toString(improvement.area(), "")
+                        + ", Recommendation: " + Objects.toString(improvement.recommendation(), ""));
+            }
+        }
+
+        List<String> suggestions = new ArrayList<>();
+        if (analysis.suggestions() != null) {
+            for (GeminiAnalysis.Suggestion suggestion : analysis.suggestions()) {
+                suggestions.add("Workout: " + Objects.toString(suggestion.workout(), "")
+                        + ", Description: " + Objects.toString(suggestion.description(), ""));
+            }
+        }
+
+        List<String> safety = analysis.safety() == null ? List.of() : analysis.safety();
+
+        return ActivityAnalysis.builder()
+                .recommendation(fullAnalysis.toString().trim())
+                .improvements(improvements.isEmpty() ? Collections.singletonList("No Specific Improvements provided") : improvements)
+                .suggestions(suggestions.isEmpty() ? Collections.singletonList("No Specific Suggestions provided") : suggestions)
+                .safety(safety.isEmpty() ? Collections.singletonList("Follow general Safety guidelines") : safety)
+                .build();
+    }
+
+    // Walks candidates[0].content.parts[0].text; returns null if any step is missing
+    String extractText(String aiResponse) throws IOException {
+        try (JsonParser parser = MAPPER.getFactory().createParser(aiResponse)) {
+            if (parser.nextToken() != JsonToken.START_OBJECT
+                    || !moveToField(parser, "candidates")
+                    || !enterFirstArrayObject(parser)
+                    || !moveToField(parser, "content")
+                    || parser.nextToken() != JsonToken.START_OBJECT
+                    || !moveToField(parser, "parts")
+                    || !enterFirstArrayObject(parser)
+                    || !moveToField(parser, "text")) {
+                return null;
+            }
+            return parser.nextToken() == JsonToken.VALUE_STRING ? parser.getText() : null;
+        }
+    }
+
+    static String stripCodeFence(String text) {
+        int start = 0;
+        int end = text.length();
+        while (start < end && Character.isWhitespace(text.charAt(start))) {
+            start++;
+        }
+        while (end > start && Character.isWhitespace(text.charAt(end - 1))) {
+            end--;
+        }
+        if (text.startsWith(FENCE, start)) {
+            int lineEnd = text.indexOf('\n', start);
+            start = lineEnd < 0 ? start + FENCE.length() : lineEnd + 1; // drops the ```json language tag too
+        }
+        if (end - start >= FENCE.length() && text.startsWith(FENCE, end - FENCE.length())) {
+            end -= FENCE.length();
+        }
+        return text.substring(start, Math.max(start, end)).trim();
+    }
+
+    // Positioned inside an object: advances to the named field, skipping the values of other fields
+    private static boolean moveToField(JsonParser parser, String name) throws IOException {
+        JsonToken token;
+        while ((token = parser.nextToken()) == JsonToken.FIELD_NAME) {
+            if (name.equals(parser.currentName())) {
+                return true;
+            }
+            parser.nextToken();
+            parser.skipChildren();
+        }
+        return false;
+    }
+
+    // Positioned on a field whose value should be an array: enters the first element if it is an object
+    private static boolean enterFirstArrayObject(JsonParser parser) throws IOException {
+        return parser.nextToken() == JsonToken.START_ARRAY && parser.nextToken() == JsonToken.START_OBJECT;
+    }
+
+    private static void addAnalysisSection(StringBuilder fullAnalysis, String value, String prefix) {
+        if (value != null) {
+            fullAnalysis.append(prefix)
+                    .append(value)
+                    .append("\n\n");
+        }
+    }
+}
@@ -1,40 +1,93 @@
 package com.fitness.aiservice.service;
 
-import lombok.RequiredArgsConstructor;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.MediaType;
 import org.springframework.stereotype.Service;
 import org.springframework.web.reactive.function.client.WebClient;
+import org.springframework.web.reactive.function.client.WebClientResponseException;
+import reactor.core.publisher.Mono;
+import reactor.util.retry.Retry;
 
-import java.util.Map;
+import java.time.Duration;
+import java.util.List;
 
 @Service
+@Slf4j
 public class GeminiService {
 
     private final WebClient webClient;
+    private final MeterRegistry meterRegistry;
+    private final String geminiApiUrl;
+    private final String geminiApiKey;
+    private final int maxRetries;
+    private final Duration retryBackoff;
 
-    @Value("${gemini.api.url}")
-    private  String geminiApiUrl;
+    public GeminiService(WebClient geminiWebClient,
+                         MeterRegistry meterRegistry,
+                         @Value("${gemini.api.url}") String geminiApiUrl,
+                         @Value("${gemini.api.key}") String geminiApiKey,
+                         @Value("${gemini.client.max-retries:3}") int maxRetries,
+                         @Value("${gemini.client.retry-backoff:500ms}") Duration retryBackoff) {
+        this.webClient = geminiWebClient;
+        this.meterRegistry = meterRegistry;
+        this.geminiApiUrl = geminiApiUrl;
+        this.geminiApiKey = geminiApiKey;
+        this.maxRetries = maxRetries;
+        this.retryBackoff = retryBackoff;
+    }
+
+    /**
+     * Sends the prompt to Gemini and emits the raw response body.
+     * 429 and 5xx answers are retried with jittered exponential backoff; the whole call, retries included,
+     * is recorded in the gemini.request timer.
+     */
+    public Mono<String> getRecommendations(String details) {
+        GeminiRequest requestBody = new GeminiRequest(List.of(new Content(List.of(new Part(details)))));
+
+        return Mono.defer(() -> {
+            Timer.Sample sample = Timer.start(meterRegistry);
+            return webClient.post()
+                    .uri(geminiApiUrl)
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .header("x-goog-api-key", geminiApiKey)
+                    .bodyValue(requestBody)
+                    .retrieve()
+                    .bodyToMono(String.class)
+                    .retryWhen(Retry.backoff(maxRetries, retryBackoff)
+                            .jitter(0.5)
+                            .filter(GeminiService::isRetryable)
+                            .doBeforeRetry(signal -> log.warn("Retrying Gemini call (attempt {}): {}",
+                                    signal.totalRetries() + 1, signal.failure().getMessage()))
+                            .onRetryExhaustedThrow((spec, signal) -> signal.failure()))
+                    .doOnSuccess(response -> sample.stop(timer("success")))
+                    .doOnError(e -> sample.stop(timer(e.getClass().getSimpleName())));
+        });
+    }
 
-    @Value("${gemini.api.key}")
-    private String geminiApiKey;
+    private Timer timer(String outcome) {
+        return Timer.builder("gemini.request")
+                .tag("outcome", outcome)
+                .publishPercentileHistogram()
+                .register(meterRegistry);
+    }
+
+    private static boolean isRetryable(Throwable e) {
+        if (e instanceof WebClientResponseException responseException) {
+            int status = responseException.getStatusCode().value();
+            return status == 429 || status >= 500;
+        }
+        return false;
+    }
 
-    public GeminiService(WebClient.Builder webClientBuilder) {
-        this.webClient = webClientBuilder.build();
+    record GeminiRequest(List<Content> contents) {
     }
 
-    public  String getRecommendations(String details) {
-        Map<String, Object> requestBody = Map.of(
-                "contents", new Object[]{
-                        Map.of(
-                                "parts", new Object[]{
-                                        Map.of("text",details)
-                                }
-                        )
-                }
-        );
-
-        String response  =  webClient.post().uri(geminiApiUrl).header("Content-Type","application/json").header("x-goog-api-key", geminiApiKey).bodyValue(requestBody).retrieve().bodyToMono(String.class).block();
-        return response;
+    record Content(List<Part> parts) {
     }
 
+    record Part(String text) {
+    }
 }
@@ -0,0 +1,85 @@
+package com.fitness.aiservice.service;
+
+import com.fitness.common.recommendation.RecommendationEvent;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.codec.ServerSentEvent;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.BufferOverflowStrategy;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Sinks;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * In-process fan-out of new recommendations to the open streams of their user. Each user with at least one
+ * open stream has a channel; it is created by the first subscriber and dropped with the last one, so users
+ * without a stream cost nothing. Every replica is fed from recommendation-events, whichever replica stored
+ * the recommendation.
+ */
+@Service
+@Slf4j
+public class RecommendationBroadcaster {
+
+    private final Map<String, Channel> channels = new ConcurrentHashMap<>();
+
+    private final Duration heartbeat;
+    private final Duration maxAge;
+    private final int bufferSize;
+
+    public RecommendationBroadcaster(MeterRegistry meterRegistry,
+                                     @Value("${recommendation.stream.heartbeat:15s}") Duration heartbeat,
+                                     @Value("${recommendation.stream.max-age:30m}") Duration maxAge,
+                                     @Value("${recommendation.stream.buffer-size:32}") int bufferSize) {
+        this.heartbeat = heartbeat;
+        this.maxAge = maxAge;
+        this.bufferSize = bufferSize;
+        meterRegistry.gaugeMapSize("ai.recommendation-stream.users", List.of(), channels);
+    }
+
+    /**
+     * The user's new recommendations as server-sent events, with a comment line every heartbeat so idle
+     * connections stay open and dead clients are noticed. Ends after max-age; EventSource clients reconnect.
+     */
+    public Flux<ServerSentEvent<RecommendationEvent>> subscribe(String userId) {
+        Flux<ServerSentEvent<RecommendationEvent>> recommendations = Flux.defer(() -> {
+                    Channel channel = channels.compute(userId, (id, existing) -> {
+                        Channel joined = existing != null ? existing : new Channel();
+                        joined.subscribers++;
+                        return joined;
+                    });
+                    return channel.sink.asFlux()
+                            .doFinally(signal -> channels.computeIfPresent(userId,
+                                    (id, joined) -> --joined.subscribers == 0 ? null : joined));
+                })
+                // a slow client loses its oldest events instead of holding up the others
+                .onBackpressureBuffer(bufferSize, BufferOverflowStrategy.DROP_OLDEST)
+                .map(event -> ServerSentEvent.builder(event).id(event.id()).event("recommendation").build());
+
+        Flux<ServerSentEvent<RecommendationEvent>> heartbeats = Flux.interval(heartbeat)
+                .map(tick -> ServerSentEvent.<RecommendationEvent>builder().comment("heartbeat").build());
+
+        return Flux.merge(recommendations, heartbeats).take(maxAge);
+    }
+
+    public void publish(RecommendationEvent event) {
+        Channel channel = channels.get(event.userId());
+        if (channel == null) {
+            return;
+        }
+        Sinks.EmitResult result = channel.sink.tryEmitNext(event);
+        if (result.isFailure()) {
+            log.debug("Could not push recommendation {} to user {}: {}", event.id(), event.userId(), result);
+        }
+    }
+
+    private static final class Channel {
+        // the subscribers' buffers always have demand, so best effort delivers every event
+        private final Sinks.Many<RecommendationEvent> sink = Sinks.many().multicast().directBestEffort();
+        private int subscribers; // only changed inside ConcurrentHashMap.compute
+    }
+}
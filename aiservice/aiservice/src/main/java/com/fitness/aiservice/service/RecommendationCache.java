@@ -0,0 +1,147 @@
+package com.fitness.aiservice.service;
+
+import com.fitness.aiservice.model.ActivityAnalysis;
+import com.fitness.aiservice.model.RecommendationCacheEntry;
+import com.fitness.aiservice.repository.RecommendationCacheRepository;
+import com.fitness.common.activity.ActivityEvent;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Scheduler;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HexFormat;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Two-tier cache of Gemini analyses, keyed by a hash of everything that goes into the prompt
+ * (type, duration, calories and metrics). Activities that would produce the same prompt reuse the
+ * stored analysis instead of calling Gemini again. The in-memory tier is bounded; the Mongo tier
+ * (recommendation_cache) is shared between replicas and expires entries through a TTL index.
+ */
+@Service
+@Slf4j
+public class RecommendationCache {
+
+    private final RecommendationCacheRepository cacheRepository;
+    private final Scheduler geminiScheduler;
+    private final Cache<String, RecommendationCacheEntry> memoryCache;
+
+    private final Counter memoryHits;
+    private final Counter mongoHits;
+    private final Counter misses;
+    private final DistributionSummary savedLatency;
+
+    public RecommendationCache(RecommendationCacheRepository cacheRepository,
+                               Scheduler geminiScheduler,
+                               MeterRegistry meterRegistry,
+                               @Value("${gemini.cache.maximum-size:10000}") long maximumSize,
+                               @Value("${gemini.cache.memory-ttl:1h}") Duration memoryTtl) {
+        this.cacheRepository = cacheRepository;
+        this.geminiScheduler = geminiScheduler;
+        this.memoryCache = Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfterWrite(memoryTtl)
+                .recordStats()
+                .build();
+
+        CaffeineCacheMetrics.monitor(meterRegistry, memoryCache, "ai.recommendation-cache.memory", Collections.emptyList());
+        this.memoryHits = meterRegistry.counter("ai.recommendation-cache.requests", "result", "memory-hit");
+        this.mongoHits = meterRegistry.counter("ai.recommendation-cache.requests", "result", "mongo-hit");
+        this.misses = meterRegistry.counter("ai.recommendation-cache.requests", "result", "miss");
+        this.savedLatency = DistributionSummary.builder("ai.recommendation-cache.saved-latency")
+                .description("Gemini latency avoided by serving an analysis from the cache")
+                .baseUnit("milliseconds")
+                .register(meterRegistry);
+    }
+
+    public Mono<ActivityAnalysis> get(String key) {
+        RecommendationCacheEntry cached = memoryCache.getIfPresent(key);
+        if (cached != null) {
+            memoryHits.increment();
+            savedLatency.record(cached.getGeminiLatencyMs());
+            return Mono.just(cached.getAnalysis());
+        }
+
+        return Mono.fromCallable(() -> cacheRepository.findById(key).orElse(null))
+                .subscribeOn(geminiScheduler)
+                .map(entry -> {
+                    mongoHits.increment();
+                    savedLatency.record(entry.getGeminiLatencyMs());
+                    memoryCache.put(key, entry);
+                    return entry.getAnalysis();
+                })
+                .switchIfEmpty(Mono.<ActivityAnalysis>fromRunnable(misses::increment));
+    }
+
+    public void put(String key, ActivityAnalysis analysis, long geminiLatencyMs) {
+        RecommendationCacheEntry entry = RecommendationCacheEntry.builder()
+                .id(key)
+                .analysis(analysis)
+                .geminiLatencyMs(geminiLatencyMs)
+                .createdAt(Instant.now())
+                .build();
+        memoryCache.put(key, entry);
+        try {
+            cacheRepository.save(entry);
+        } catch (Exception e) {
+            log.warn("Could not store analysis {} in the recommendation cache: {}", key, e.getMessage());
+        }
+    }
+
+    public String keyFor(ActivityEvent activity) {
+        StringBuilder normalized = new StringBuilder(128)
+                .append(activity.type()).append('|')
+                .append(activity.duration()).append('|')
+                .append(activity.caloriesBurned()).append('|');
+        appendNormalized(normalized, activity.additionalMatrics() == null ? null : activity.additionalMatrics().toMap());
+        return sha256(normalized.toString());
+    }
+
+    // Maps are written in key order so that {a,b} and {b,a} hash the same
+    private static void appendNormalized(StringBuilder out, Object value) {
+        if (value instanceof Map<?, ?> map) {
+            Map<String, Object> sorted = new TreeMap<>();
+            map.forEach((k, v) -> sorted.put(String.valueOf(k), v));
+            out.append('{');
+            sorted.forEach((k, v) -> {
+                out.append(k).append('=');
+                appendNormalized(out, v);
+                out.append(',');
+            });
+            out.append('}');
+        } else if (value instanceof Collection<?> collection) {
+            out.append('[');
+            collection.forEach(item -> {
+                appendNormalized(out, item);
+                out.append(',');
+            });
+            out.append(']');
+        } else {
+            out.append(value);
+        }
+    }
+
+    private static String sha256(String value) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            return HexFormat.of().formatHex(digest.digest(value.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+}
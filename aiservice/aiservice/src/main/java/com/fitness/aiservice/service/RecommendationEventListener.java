@@ -0,0 +1,44 @@
+package com.fitness.aiservice.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fitness.common.recommendation.RecommendationEvent;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.springframework.kafka.annotation.KafkaListener;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+/**
+ * Feeds the broadcaster from recommendation-events. A user's stream may be open on any replica, so every
+ * replica consumes the topic in a group of its own, starting from the latest offset. The group is named after
+ * the replica (eureka.instance.instance-id, else host and port), so a restart reuses it instead of leaving a
+ * new group behind each time.
+ */
+@Component
+@Slf4j
+@RequiredArgsConstructor
+public class RecommendationEventListener {
+
+    private final RecommendationBroadcaster broadcaster;
+    private final ObjectMapper objectMapper;
+
+    @KafkaListener(topics = "${kafka.topic.recommendations:recommendation-events}",
+            groupId = "${recommendation.stream.consumer-group:${spring.application.name}-streams-${eureka.instance.instance-id:${spring.cloud.client.hostname}-${server.port:8080}}}",
+            batch = "true",
+            properties = {
+                    "auto.offset.reset=latest",
+                    "key.deserializer=org.apache.kafka.common.serialization.StringDeserializer",
+                    "value.deserializer=org.apache.kafka.common.serialization.ByteArrayDeserializer"
+            })
+    public void onRecommendations(List<ConsumerRecord<String, byte[]>> records) {
+        for (ConsumerRecord<String, byte[]> record : records) {
+            try {
+                broadcaster.publish(objectMapper.readValue(record.value(), RecommendationEvent.class));
+            } catch (Exception e) {
+                log.warn("Skipping unreadable recommendation event at offset {}: {}", record.offset(), e.getMessage());
+            }
+        }
+    }
+}
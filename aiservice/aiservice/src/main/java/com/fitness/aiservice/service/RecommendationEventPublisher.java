@@ -0,0 +1,51 @@
+package com.fitness.aiservice.service;
+
+import com.fitness.aiservice.model.Recommendation;
+import com.fitness.common.recommendation.RecommendationEvent;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.stereotype.Service;
+
+import java.util.List;
+
+/**
+ * Announces stored recommendations on recommendation-events, keyed by userId so that one user's events stay
+ * in order. Consumers (the gateway response cache) treat the event as a hint, so a failed send is only logged.
+ */
+@Service
+@Slf4j
+public class RecommendationEventPublisher {
+
+    @Autowired
+    private KafkaTemplate<String, RecommendationEvent> recommendationKafkaTemplate;
+
+    @Value("${kafka.topic.recommendations:recommendation-events}")
+    private String topic;
+
+    public void publish(List<Recommendation> recommendations) {
+        for (Recommendation recommendation : recommendations) {
+            recommendationKafkaTemplate.send(topic, recommendation.getUserId(), toEvent(recommendation))
+                    .whenComplete((result, e) -> {
+                        if (e != null) {
+                            log.warn("Could not publish recommendation {} for user {}: {}",
+                                    recommendation.getId(), recommendation.getUserId(), e.getMessage());
+                        }
+                    });
+        }
+    }
+
+    private RecommendationEvent toEvent(Recommendation recommendation) {
+        return new RecommendationEvent(
+                recommendation.getId(),
+                recommendation.getUserId(),
+                recommendation.getActivityId(),
+                recommendation.getType(),
+                recommendation.getRecommendation(),
+                recommendation.getImprovements(),
+                recommendation.getSuggestions(),
+                recommendation.getSafety(),
+                recommendation.getCreatedAt());
+    }
+}
@@ -0,0 +1,81 @@
+package com.fitness.aiservice.service;
+
+import com.fitness.aiservice.model.Recommendation;
+import lombok.extern.slf4j.Slf4j;
+import org.bson.Document;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.aggregation.Aggregation;
+import org.springframework.data.mongodb.core.aggregation.AggregationOptions;
+import org.springframework.data.mongodb.core.index.Index;
+import org.springframework.data.mongodb.core.index.IndexOperations;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+
+// Creates the unique activity_id_uk index on recommendations. Before it existed the listener stored one
+// recommendation per Kafka delivery, so a redelivered activity can have several; all but the first saved are
+// deleted first. Once the index exists this is a single listIndexes call, so it runs on every startup.
+@Component
+@Slf4j
+@ConditionalOnProperty(name = "recommendation.activity-index.ensure-on-startup", havingValue = "true", matchIfMissing = true)
+public class RecommendationIndexMigration implements ApplicationRunner {
+
+    static final String INDEX_NAME = "activity_id_uk";
+    private static final int ATTEMPTS = 3;
+
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
+    @Override
+    public void run(ApplicationArguments args) {
+        ensureIndex();
+    }
+
+    public void ensureIndex() {
+        IndexOperations indexOps = mongoTemplate.indexOps(Recommendation.class);
+        if (indexOps.getIndexInfo().stream().anyMatch(index -> INDEX_NAME.equals(index.getName()))) {
+            return;
+        }
+        for (int attempt = 1; ; attempt++) {
+            long removed = removeDuplicates();
+            try {
+                indexOps.createIndex(new Index().on("activityId", Sort.Direction.ASC).unique().named(INDEX_NAME));
+                log.info("Created {} after removing {} duplicate recommendations", INDEX_NAME, removed);
+                return;
+            } catch (DataIntegrityViolationException e) {
+                // a redelivery stored another duplicate in between
+                if (attempt == ATTEMPTS) {
+                    throw e;
+                }
+            }
+        }
+    }
+
+    // Keeps the earliest recommendation of every activity, the one that was announced first
+    long removeDuplicates() {
+        Aggregation aggregation = Aggregation.newAggregation(
+                Aggregation.sort(Sort.by("activityId", "createdAt", "_id")),
+                Aggregation.group("activityId").push("_id").as("ids").count().as("count"),
+                Aggregation.match(Criteria.where("count").gt(1)))
+                .withOptions(AggregationOptions.builder().allowDiskUse(true).build());
+
+        List<Object> duplicates = new ArrayList<>();
+        for (Document group : mongoTemplate.aggregate(aggregation, Recommendation.class, Document.class)) {
+            List<?> ids = group.getList("ids", Object.class);
+            duplicates.addAll(ids.subList(1, ids.size()));
+        }
+        if (duplicates.isEmpty()) {
+            return 0;
+        }
+        return mongoTemplate.remove(new Query(Criteria.where("_id").in(duplicates)), Recommendation.class).getDeletedCount();
+    }
+}
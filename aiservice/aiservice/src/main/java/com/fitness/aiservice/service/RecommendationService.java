@@ -1,9 +1,13 @@
 package com.fitness.aiservice.service;
 
+import com.fitness.aiservice.dto.RecommendationPage;
+import com.fitness.aiservice.dto.RecommendationSummary;
 import com.fitness.aiservice.model.Recommendation;
+import com.fitness.aiservice.repository.RecommendationCursor;
 import com.fitness.aiservice.repository.RecommendationRepository;
 import lombok.RequiredArgsConstructor;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
 import java.util.List;
@@ -14,6 +18,12 @@ public class RecommendationService {
     @Autowired
     private RecommendationRepository recommendationRepository;
 
+    @Value("${recommendation.history.default-limit:20}")
+    private int historyDefaultLimit;
+
+    @Value("${recommendation.history.max-limit:100}")
+    private int historyMaxLimit;
+
     public RecommendationService(RecommendationRepository recommendationRepository) {
         this.recommendationRepository = recommendationRepository;
     }
@@ -26,6 +36,26 @@ public class RecommendationService {
         return recommendations;
     }
 
+    public RecommendationPage getUserRecommendationPage(String userId, String cursor, Integer limit) {
+        int pageSize = limit == null ? historyDefaultLimit : Math.min(Math.max(limit, 1), historyMaxLimit);
+        RecommendationCursor after = cursor == null || cursor.isBlank() ? null : RecommendationCursor.decode(cursor);
+
+        List<RecommendationSummary> recommendations = recommendationRepository.findSummaryPage(userId, after, pageSize + 1);
+
+        RecommendationPage page = new RecommendationPage();
+        if (recommendations.size() > pageSize) {
+            recommendations = recommendations.subList(0, pageSize);
+            RecommendationSummary last = recommendations.get(pageSize - 1);
+            page.setNextCursor(new RecommendationCursor(last.getCreatedAt(), last.getId()).encode());
+        }
+        page.setRecommendations(recommendations);
+        return page;
+    }
+
+    public Recommendation getRecommendation(String id) {
+        return recommendationRepository.findById(id).orElseThrow(() -> new RuntimeException("Recommendation not found for id: " + id));
+    }
+
     public Recommendation getActivityRecommendation(String activityId) {
         return  recommendationRepository.findByActivityId(activityId).orElseThrow( () -> new RuntimeException("::::::::::::::::::::::::::::: Recommendation not found for activity id: " + activityId));
     }
@@ -3,7 +3,8 @@ package com.fitness.aiservice;
 import org.junit.jupiter.api.Test;
 import org.springframework.boot.test.context.SpringBootTest;
 
-@SpringBootTest
+// no MongoDB here; the index migration would wait for one
+@SpringBootTest(properties = "recommendation.activity-index.ensure-on-startup=false")
 class AiserviceApplicationTests {
 
 	@Test
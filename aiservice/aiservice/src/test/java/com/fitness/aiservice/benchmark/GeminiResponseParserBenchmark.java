@@ -0,0 +1,90 @@
+package com.fitness.aiservice.benchmark;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fitness.aiservice.model.ActivityAnalysis;
+import com.fitness.aiservice.service.GeminiResponseParser;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Per-message cost of turning a recorded Gemini response (src/test/resources/gemini-responses) into an
+ * ActivityAnalysis. {@code treeParse} is the previous ActivityAIService.processAiResponse logic,
+ * {@code streamingParse} is GeminiResponseParser.
+ *
+ * Run with allocation figures:
+ * mvn test-compile exec:java -Dexec.classpathScope=test -Dexec.mainClass=org.openjdk.jmh.Main -Dexec.args="GeminiResponseParserBenchmark -f 0 -prof gc"
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class GeminiResponseParserBenchmark {
+
+    @Param({"running", "cycling", "yoga"})
+    private String response;
+
+    private String aiResponse;
+    private GeminiResponseParser parser;
+
+    @Setup
+    public void setUp() throws Exception {
+        try (InputStream in = getClass().getResourceAsStream("/gemini-responses/" + response + ".json")) {
+            aiResponse = new String(in.readAllBytes(), StandardCharsets.UTF_8);
+        }
+        parser = new GeminiResponseParser();
+    }
+
+    @Benchmark
+    public ActivityAnalysis streamingParse() throws Exception {
+        return parser.parse(aiResponse);
+    }
+
+    @Benchmark
+    public ActivityAnalysis treeParse() throws Exception {
+        ObjectMapper mapper = new ObjectMapper();
+        JsonNode rootNode = mapper.readTree(aiResponse);
+        JsonNode textNode = rootNode.path("candidates").get(0).path("content").path("parts").get(0).path("text");
+
+        String jsonContent = textNode.asText().replaceAll("```json\\n", "").replaceAll("\\n```", "").trim();
+
+        JsonNode analysisJson = mapper.readTree(jsonContent);
+        JsonNode analysisNode = analysisJson.path("analysis");
+
+        StringBuilder fullAnalysis = new StringBuilder();
+        for (String[] section : new String[][]{{"overall", "Overall:"}, {"pace", "Pace:"}, {"heartRate", "HeartRate:"}, {"caloriesBurned", "CaloriesBurned:"}}) {
+            if (!analysisNode.path(section[0]).isMissingNode()) {
+                fullAnalysis.append(section[1]).append(analysisNode.path(section[0]).asText()).append("\n\n");
+            }
+        }
+
+        List<String> improvements = new ArrayList<>();
+        analysisJson.path("improvements").forEach(item -> improvements.add(String.format("Area: %s, Recommendation: %s",
+                item.path("area").asText(), item.path("recommendation").asText())));
+        List<String> suggestions = new ArrayList<>();
+        analysisJson.path("suggestions").forEach(item -> suggestions.add(String.format("Workout: %s, Description: %s",
+                item.path("workout").asText(), item.path("description").asText())));
+        List<String> safety = new ArrayList<>();
+        analysisJson.path("safety").forEach(item -> safety.add(item.asText()));
+
+        return ActivityAnalysis.builder().recommendation(fullAnalysis.toString().trim())
+                .improvements(improvements).suggestions(suggestions).safety(safety).build();
+    }
+}
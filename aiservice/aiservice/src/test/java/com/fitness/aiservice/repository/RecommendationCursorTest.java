@@ -0,0 +1,27 @@
+package com.fitness.aiservice.repository;
+
+import org.bson.types.ObjectId;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class RecommendationCursorTest {
+
+    @Test
+    void roundTrips() {
+        RecommendationCursor cursor = new RecommendationCursor(LocalDateTime.of(2025, 3, 1, 7, 30, 15, 123_000_000),
+                new ObjectId().toHexString());
+
+        assertThat(RecommendationCursor.decode(cursor.encode())).isEqualTo(cursor);
+    }
+
+    @Test
+    void rejectsTamperedCursors() {
+        assertThatThrownBy(() -> RecommendationCursor.decode("not-a-cursor"))
+                .isInstanceOf(RuntimeException.class)
+                .hasMessage("Invalid cursor : not-a-cursor");
+    }
+}
@@ -0,0 +1,113 @@
+package com.fitness.aiservice.service;
+
+import com.fitness.aiservice.model.ActivityAnalysis;
+import com.fitness.common.activity.ActivityEvent;
+import com.fitness.common.activity.ActivityType;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.mockito.junit.jupiter.MockitoSettings;
+import org.mockito.quality.Strictness;
+import org.springframework.test.util.ReflectionTestUtils;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+@MockitoSettings(strictness = Strictness.LENIENT)
+class GeminiBatcherTest {
+
+    // long enough for the first four activities to form two full batches even on a busy machine
+    private static final Duration MAX_WAIT = Duration.ofMillis(50);
+
+    @Mock
+    private GeminiService geminiService;
+
+    @Mock
+    private GeminiResponseParser geminiResponseParser;
+
+    @InjectMocks
+    private GeminiBatcher geminiBatcher;
+
+    private Duration geminiLatency = Duration.ofMillis(300);
+
+    @BeforeEach
+    void setUp() throws Exception {
+        ReflectionTestUtils.setField(geminiBatcher, "geminiScheduler", Schedulers.immediate());
+        ReflectionTestUtils.setField(geminiBatcher, "maxItems", 2);
+        ReflectionTestUtils.setField(geminiBatcher, "maxWait", MAX_WAIT);
+        ReflectionTestUtils.setField(geminiBatcher, "concurrency", 2);
+
+        when(geminiService.getRecommendations(anyString()))
+                .thenAnswer(invocation -> Mono.just((String) invocation.getArgument(0)).delayElement(geminiLatency));
+        // answers for every activity id mentioned in the prompt
+        when(geminiResponseParser.parseBatch(anyString())).thenAnswer(invocation -> {
+            Map<String, ActivityAnalysis> analyses = new HashMap<>();
+            for (int i = 0; i < 10; i++) {
+                if (invocation.<String>getArgument(0).contains("Activity ID: a-" + i + "\n")) {
+                    analyses.put("a-" + i, ActivityAnalysis.builder().recommendation("for a-" + i).build());
+                }
+            }
+            return analyses;
+        });
+        geminiBatcher.start();
+    }
+
+    @AfterEach
+    void tearDown() {
+        geminiBatcher.stop();
+    }
+
+    @Test
+    void activitiesWaitWhileEveryBatchIsInFlight() {
+        // two full batches occupy both slots; the lone fifth activity's flush comes due with no demand downstream
+        Mono<ActivityAnalysis> first = analyse("a-1");
+        analyse("a-2");
+        analyse("a-3");
+        Mono<ActivityAnalysis> fourth = analyse("a-4");
+        Mono.delay(MAX_WAIT.multipliedBy(2)).block();
+
+        // a batch of one is answered empty, so the caller falls back to a single prompt
+        assertThat(geminiBatcher.analyse(activity("a-5")).hasElement().block(Duration.ofSeconds(2))).isFalse();
+        assertThat(first.block(Duration.ofSeconds(2)).getRecommendation()).isEqualTo("for a-1");
+        assertThat(fourth.block(Duration.ofSeconds(2)).getRecommendation()).isEqualTo("for a-4");
+
+        // the pipeline is still running afterwards
+        Mono<ActivityAnalysis> sixth = analyse("a-6");
+        assertThat(analyse("a-7").block(Duration.ofSeconds(2)).getRecommendation()).isEqualTo("for a-7");
+        assertThat(sixth.block(Duration.ofSeconds(2)).getRecommendation()).isEqualTo("for a-6");
+    }
+
+    @Test
+    void stoppingFailsActivitiesStillWaiting() {
+        geminiLatency = Duration.ofSeconds(30);
+        Mono<ActivityAnalysis> first = analyse("a-1");
+        analyse("a-2");
+
+        geminiBatcher.stop();
+
+        assertThat(first.materialize().block(Duration.ofSeconds(1)).isOnError()).isTrue();
+        assertThat(geminiBatcher.analyse(activity("a-3")).materialize().block(Duration.ofSeconds(1)).isOnError()).isTrue();
+    }
+
+    private Mono<ActivityAnalysis> analyse(String activityId) {
+        Mono<ActivityAnalysis> result = geminiBatcher.analyse(activity(activityId)).cache();
+        result.subscribe(analysis -> { }, e -> { });
+        return result;
+    }
+
+    private static ActivityEvent activity(String activityId) {
+        return new ActivityEvent(activityId, "u-1", ActivityType.RUNNING, 30, 300, null, null, null, null);
+    }
+}
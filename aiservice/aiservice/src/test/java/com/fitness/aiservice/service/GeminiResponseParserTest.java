@@ -0,0 +1,68 @@
+package com.fitness.aiservice.service;
+
+import com.fitness.aiservice.model.ActivityAnalysis;
+import org.junit.jupiter.api.Test;
+
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class GeminiResponseParserTest {
+
+    private final GeminiResponseParser parser = new GeminiResponseParser();
+
+    @Test
+    void parsesRecordedResponse() throws Exception {
+        ActivityAnalysis analysis = parser.parse(recorded("running"));
+
+        assertTrue(analysis.getRecommendation().startsWith("Overall:Solid 5k effort"));
+        assertTrue(analysis.getRecommendation().contains("\n\nPace:Average pace"));
+        assertEquals("Area: Cadence, Recommendation: Increase cadence towards 170-175 spm to reduce ground contact time.",
+                analysis.getImprovements().get(0));
+        assertEquals("Workout: Interval session, Description: 6 x 400m at 5k pace with 90s jog recovery.",
+                analysis.getSuggestions().get(0));
+        assertEquals(2, analysis.getSafety().size());
+    }
+
+    @Test
+    void fillsPlaceholdersForEmptySections() throws Exception {
+        ActivityAnalysis analysis = parser.parse(recorded("yoga"));
+
+        assertEquals("Overall:A relaxing 45 minute flow session.", analysis.getRecommendation());
+        assertEquals(List.of("No Specific Improvements provided"), analysis.getImprovements());
+        assertEquals(List.of("Follow general Safety guidelines"), analysis.getSafety());
+    }
+
+    @Test
+    void stripsCodeFenceVariants() {
+        assertEquals("{\"a\":1}", GeminiResponseParser.stripCodeFence("```json\n{\"a\":1}\n```"));
+        assertEquals("{\"a\":1}", GeminiResponseParser.stripCodeFence("  ```\n{\"a\":1}```  "));
+        assertEquals("{\"a\":1}", GeminiResponseParser.stripCodeFence("{\"a\":1}"));
+    }
+
+    @Test
+    void parsesBatchedResponseByActivityId() throws Exception {
+        Map<String, ActivityAnalysis> analyses = parser.parseBatch(recorded("batch"));
+
+        assertEquals(2, analyses.size());
+        assertEquals("Overall:Steady 10k run.", analyses.get("act-1").getRecommendation());
+        assertEquals(List.of("Hydrate well"), analyses.get("act-1").getSafety());
+        assertEquals("Overall:Short recovery ride.", analyses.get("act-2").getRecommendation());
+    }
+
+    @Test
+    void rejectsResponseWithoutCandidates() {
+        assertThrows(Exception.class, () -> parser.parse("{\"promptFeedback\":{\"blockReason\":\"SAFETY\"}}"));
+    }
+
+    private String recorded(String name) throws Exception {
+        try (InputStream in = getClass().getResourceAsStream("/gemini-responses/" + name + ".json")) {
+            return new String(in.readAllBytes(), StandardCharsets.UTF_8);
+        }
+    }
+}
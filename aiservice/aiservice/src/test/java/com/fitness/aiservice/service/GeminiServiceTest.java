@@ -0,0 +1,74 @@
+package com.fitness.aiservice.service;
+
+import com.sun.net.httpserver.HttpServer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.web.reactive.function.client.WebClient;
+import org.springframework.web.reactive.function.client.WebClientResponseException;
+import reactor.test.StepVerifier;
+
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class GeminiServiceTest {
+
+    private HttpServer stub;
+    private final AtomicInteger calls = new AtomicInteger();
+    private volatile int failuresBeforeSuccess;
+    private volatile int failureStatus;
+
+    @BeforeEach
+    void startStub() throws Exception {
+        stub = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        stub.createContext("/generate", exchange -> {
+            int call = calls.incrementAndGet();
+            boolean fail = call <= failuresBeforeSuccess;
+            byte[] body = (fail ? "{\"error\":\"busy\"}" : "{\"candidates\":[]}").getBytes(StandardCharsets.UTF_8);
+            exchange.getResponseHeaders().add("Content-Type", "application/json");
+            exchange.sendResponseHeaders(fail ? failureStatus : 200, body.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(body);
+            }
+        });
+        stub.start();
+    }
+
+    @AfterEach
+    void stopStub() {
+        stub.stop(0);
+    }
+
+    private GeminiService geminiService() {
+        String url = "http://localhost:" + stub.getAddress().getPort() + "/generate";
+        return new GeminiService(WebClient.create(), new SimpleMeterRegistry(), url, "test-key", 3, Duration.ofMillis(10));
+    }
+
+    @Test
+    void retriesThrottledAndServerErrors() {
+        failuresBeforeSuccess = 2;
+        failureStatus = 429;
+
+        StepVerifier.create(geminiService().getRecommendations("prompt"))
+                .expectNext("{\"candidates\":[]}")
+                .verifyComplete();
+        assertEquals(3, calls.get());
+    }
+
+    @Test
+    void doesNotRetryClientErrors() {
+        failuresBeforeSuccess = 1;
+        failureStatus = 400;
+
+        StepVerifier.create(geminiService().getRecommendations("prompt"))
+                .expectError(WebClientResponseException.BadRequest.class)
+                .verify();
+        assertEquals(1, calls.get());
+    }
+}
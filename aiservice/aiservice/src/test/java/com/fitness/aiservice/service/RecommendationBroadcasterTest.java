@@ -0,0 +1,65 @@
+package com.fitness.aiservice.service;
+
+import com.fitness.common.recommendation.RecommendationEvent;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.codec.ServerSentEvent;
+import reactor.test.StepVerifier;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class RecommendationBroadcasterTest {
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final RecommendationBroadcaster broadcaster =
+            new RecommendationBroadcaster(meterRegistry, Duration.ofMinutes(1), Duration.ofMinutes(5), 32);
+
+    @Test
+    void pushesOnlyTheOwnersRecommendations() {
+        StepVerifier.create(broadcaster.subscribe("u-1"))
+                .then(() -> {
+                    broadcaster.publish(event("r-1", "u-2"));
+                    broadcaster.publish(event("r-2", "u-1"));
+                })
+                .assertNext(sse -> {
+                    assertThat(sse.id()).isEqualTo("r-2");
+                    assertThat(sse.event()).isEqualTo("recommendation");
+                    assertThat(sse.data().activityId()).isEqualTo("a-r-2");
+                })
+                .thenCancel()
+                .verify(Duration.ofSeconds(5));
+    }
+
+    @Test
+    void dropsTheUsersChannelWithItsLastStream() {
+        StepVerifier.create(broadcaster.subscribe("u-1"))
+                .then(() -> assertThat(openUsers()).isEqualTo(1))
+                .thenCancel()
+                .verify(Duration.ofSeconds(5));
+
+        assertThat(openUsers()).isZero();
+    }
+
+    @Test
+    void sendsHeartbeatsWhileIdle() {
+        StepVerifier.withVirtualTime(() -> new RecommendationBroadcaster(meterRegistry, Duration.ofSeconds(15),
+                        Duration.ofMinutes(5), 32).subscribe("u-1"))
+                .thenAwait(Duration.ofSeconds(15))
+                .assertNext(sse -> assertThat(sse.comment()).isEqualTo("heartbeat"))
+                .thenCancel()
+                .verify(Duration.ofSeconds(5));
+    }
+
+    private double openUsers() {
+        return meterRegistry.get("ai.recommendation-stream.users").gauge().value();
+    }
+
+    private static RecommendationEvent event(String id, String userId) {
+        return new RecommendationEvent(id, userId, "a-" + id, "RUNNING", "Keep going", List.of(), List.of(), List.of(),
+                LocalDateTime.now());
+    }
+}
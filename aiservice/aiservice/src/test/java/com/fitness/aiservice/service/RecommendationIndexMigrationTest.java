@@ -0,0 +1,78 @@
+package com.fitness.aiservice.service;
+
+import com.fitness.aiservice.model.Recommendation;
+import com.mongodb.client.result.DeleteResult;
+import org.bson.Document;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.aggregation.Aggregation;
+import org.springframework.data.mongodb.core.aggregation.AggregationResults;
+import org.springframework.data.mongodb.core.index.Index;
+import org.springframework.data.mongodb.core.index.IndexInfo;
+import org.springframework.data.mongodb.core.index.IndexOperations;
+import org.springframework.data.mongodb.core.query.Query;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class RecommendationIndexMigrationTest {
+
+    @Mock
+    private MongoTemplate mongoTemplate;
+
+    @Mock
+    private IndexOperations indexOps;
+
+    @InjectMocks
+    private RecommendationIndexMigration migration;
+
+    @BeforeEach
+    void setUp() {
+        when(mongoTemplate.indexOps(Recommendation.class)).thenReturn(indexOps);
+    }
+
+    @Test
+    void keepsTheFirstRecommendationOfEachActivityThenCreatesTheIndex() {
+        when(indexOps.getIndexInfo()).thenReturn(List.of());
+        when(mongoTemplate.aggregate(any(Aggregation.class), eq(Recommendation.class), eq(Document.class)))
+                .thenReturn(new AggregationResults<>(List.of(
+                        new Document("_id", "a-1").append("ids", List.of("r-1", "r-2", "r-3")).append("count", 3)),
+                        new Document()));
+        when(mongoTemplate.remove(any(Query.class), eq(Recommendation.class))).thenReturn(DeleteResult.acknowledged(2));
+
+        migration.ensureIndex();
+
+        ArgumentCaptor<Query> removed = ArgumentCaptor.forClass(Query.class);
+        verify(mongoTemplate).remove(removed.capture(), eq(Recommendation.class));
+        assertThat(removed.getValue().getQueryObject().toJson()).contains("r-2", "r-3").doesNotContain("r-1");
+
+        ArgumentCaptor<Index> index = ArgumentCaptor.forClass(Index.class);
+        verify(indexOps).createIndex(index.capture());
+        assertThat(index.getValue().getIndexOptions().getBoolean("unique")).isTrue();
+        assertThat(index.getValue().getIndexOptions().getString("name")).isEqualTo(RecommendationIndexMigration.INDEX_NAME);
+    }
+
+    @Test
+    void doesNothingOnceTheIndexExists() {
+        when(indexOps.getIndexInfo()).thenReturn(List.of(
+                new IndexInfo(List.of(), RecommendationIndexMigration.INDEX_NAME, true, false, null)));
+
+        migration.ensureIndex();
+
+        verify(mongoTemplate, never()).aggregate(any(Aggregation.class), eq(Recommendation.class), eq(Document.class));
+        verify(indexOps, never()).createIndex(any());
+    }
+}
@@ -0,0 +1,13 @@
+package com.fitness.analyticsservice;
+
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.autoconfigure.SpringBootApplication;
+
+@SpringBootApplication
+public class AnalyticsserviceApplication {
+
+	public static void main(String[] args) {
+		SpringApplication.run(AnalyticsserviceApplication.class, args);
+	}
+
+}
@@ -0,0 +1,41 @@
+package com.fitness.analyticsservice.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+
+@Component
+@ConfigurationProperties(prefix = "analytics")
+@Data
+public class AnalyticsProperties {
+
+    public enum Window {
+        TUMBLING, // back-to-back windows of tumbling-size, e.g. calendar days
+        HOPPING   // hopping-size windows starting every hopping-advance, e.g. the last 7 days, moved daily
+    }
+
+    private Duration tumblingSize = Duration.ofDays(1);
+
+    private Duration hoppingSize = Duration.ofDays(7);
+
+    private Duration hoppingAdvance = Duration.ofDays(1);
+
+    // how late (by startTime) an activity may arrive and still be counted in its window
+    private Duration grace = Duration.ofDays(2);
+
+    // how long closed windows stay queryable in the local stores
+    private Duration retention = Duration.ofDays(35);
+
+    // host other instances use to reach this one for interactive queries; must match application.server
+    private String advertisedHost = "localhost";
+
+    public Duration size(Window window) {
+        return window == Window.TUMBLING ? tumblingSize : hoppingSize;
+    }
+
+    public Duration advance(Window window) {
+        return window == Window.TUMBLING ? tumblingSize : hoppingAdvance;
+    }
+}
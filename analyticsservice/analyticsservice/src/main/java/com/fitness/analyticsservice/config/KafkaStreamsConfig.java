@@ -0,0 +1,18 @@
+package com.fitness.analyticsservice.config;
+
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.kafka.annotation.EnableKafkaStreams;
+import org.springframework.web.client.RestClient;
+
+// Streams settings (application id, state dir, application.server) come from spring.kafka.streams.*
+@Configuration
+@EnableKafkaStreams
+public class KafkaStreamsConfig {
+
+    // used to forward interactive queries to the instance that owns the key
+    @Bean
+    public RestClient analyticsRestClient(RestClient.Builder builder) {
+        return builder.build();
+    }
+}
@@ -0,0 +1,69 @@
+package com.fitness.analyticsservice.controller;
+
+import com.fitness.analyticsservice.config.AnalyticsProperties;
+import com.fitness.analyticsservice.dto.WindowedTotals;
+import com.fitness.analyticsservice.service.AnalyticsQueryService;
+import com.fitness.analyticsservice.stream.ActivityAnalyticsTopology;
+import com.fitness.common.activity.ActivityType;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+
+@RestController
+@RequestMapping("/api/analytics")
+public class AnalyticsController {
+
+    @Autowired
+    private AnalyticsQueryService analyticsQueryService;
+
+    // Windows of one user that start between from and to (default: the last 30 days)
+    @GetMapping("/users/{userId}")
+    public ResponseEntity<List<WindowedTotals>> getUserWindows(
+            @PathVariable("userId") String userId,
+            @RequestParam(value = "window", defaultValue = "TUMBLING") AnalyticsProperties.Window window,
+            @RequestParam(value = "from", required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) Instant from,
+            @RequestParam(value = "to", required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) Instant to,
+            @RequestParam(value = "local", defaultValue = "false") boolean local) {
+
+        String store = window == AnalyticsProperties.Window.TUMBLING
+                ? ActivityAnalyticsTopology.USER_TUMBLING_STORE : ActivityAnalyticsTopology.USER_HOPPING_STORE;
+        Instant end = to != null ? to : Instant.now();
+        Instant start = from != null ? from : end.minus(Duration.ofDays(30));
+        return ResponseEntity.ok(analyticsQueryService.windowsFor(store, "users", userId, start, end, local));
+    }
+
+    // Trend of one ActivityType across all users
+    @GetMapping("/types/{type}")
+    public ResponseEntity<List<WindowedTotals>> getTypeWindows(
+            @PathVariable("type") ActivityType type,
+            @RequestParam(value = "window", defaultValue = "TUMBLING") AnalyticsProperties.Window window,
+            @RequestParam(value = "from", required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) Instant from,
+            @RequestParam(value = "to", required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) Instant to,
+            @RequestParam(value = "local", defaultValue = "false") boolean local) {
+
+        String store = window == AnalyticsProperties.Window.TUMBLING
+                ? ActivityAnalyticsTopology.TYPE_TUMBLING_STORE : ActivityAnalyticsTopology.TYPE_HOPPING_STORE;
+        Instant end = to != null ? to : Instant.now();
+        Instant start = from != null ? from : end.minus(Duration.ofDays(30));
+        return ResponseEntity.ok(analyticsQueryService.windowsFor(store, "types", type.name(), start, end, local));
+    }
+
+    // Users ranked by minutes; HOPPING (default) is the rolling period up to now, TUMBLING the current window
+    @GetMapping("/leaderboard")
+    public ResponseEntity<List<WindowedTotals>> getLeaderboard(
+            @RequestParam(value = "window", defaultValue = "HOPPING") AnalyticsProperties.Window window,
+            @RequestParam(value = "at", required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) Instant at,
+            @RequestParam(value = "limit", defaultValue = "10") int limit,
+            @RequestParam(value = "local", defaultValue = "false") boolean local) {
+
+        String store = window == AnalyticsProperties.Window.TUMBLING
+                ? ActivityAnalyticsTopology.USER_TUMBLING_STORE : ActivityAnalyticsTopology.USER_HOPPING_STORE;
+        int boundedLimit = Math.min(Math.max(limit, 1), 100);
+        return ResponseEntity.ok(analyticsQueryService.leaderboard(store, at != null ? at : Instant.now(), boundedLimit, local));
+    }
+}
@@ -0,0 +1,21 @@
+package com.fitness.analyticsservice.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.Instant;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class WindowedTotals {
+
+    private String key; // userId or ActivityType
+    private Instant windowStart;
+    private Instant windowEnd;
+    private long sessions;
+    private long minutes;
+    private long calories;
+
+}
@@ -0,0 +1,23 @@
+package com.fitness.analyticsservice.model;
+
+import com.fitness.common.activity.ActivityEvent;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+// Aggregate kept per key and window in the state stores
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ActivityTotals {
+    private long sessions;
+    private long minutes;
+    private long calories;
+
+    public ActivityTotals add(ActivityEvent activity) {
+        sessions++;
+        minutes += activity.duration();
+        calories += activity.caloriesBurned();
+        return this;
+    }
+}
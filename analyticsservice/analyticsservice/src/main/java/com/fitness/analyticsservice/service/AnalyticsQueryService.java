@@ -0,0 +1,167 @@
+package com.fitness.analyticsservice.service;
+
+import com.fitness.analyticsservice.config.AnalyticsProperties;
+import com.fitness.analyticsservice.dto.WindowedTotals;
+import com.fitness.analyticsservice.model.ActivityTotals;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.kafka.common.serialization.Serdes;
+import org.apache.kafka.streams.KafkaStreams;
+import org.apache.kafka.streams.KeyQueryMetadata;
+import org.apache.kafka.streams.KeyValue;
+import org.apache.kafka.streams.StoreQueryParameters;
+import org.apache.kafka.streams.StreamsMetadata;
+import org.apache.kafka.streams.kstream.Windowed;
+import org.apache.kafka.streams.state.HostInfo;
+import org.apache.kafka.streams.state.KeyValueIterator;
+import org.apache.kafka.streams.state.QueryableStoreTypes;
+import org.apache.kafka.streams.state.ReadOnlyWindowStore;
+import org.apache.kafka.streams.state.WindowStoreIterator;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.ParameterizedTypeReference;
+import org.springframework.kafka.config.StreamsBuilderFactoryBean;
+import org.springframework.stereotype.Service;
+import org.springframework.web.client.RestClient;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Interactive queries over the window stores of ActivityAnalyticsTopology.
+ *
+ * Each instance only holds the partitions assigned to it. A lookup by key is answered locally when this
+ * instance owns the key and otherwise forwarded to the owner; a leaderboard asks every instance hosting the
+ * store for its local top entries and merges them. Forwarded calls carry local=true so they are never
+ * forwarded again.
+ */
+@Service
+@Slf4j
+public class AnalyticsQueryService {
+
+    private static final ParameterizedTypeReference<List<WindowedTotals>> TOTALS_LIST = new ParameterizedTypeReference<>() {
+    };
+
+    @Autowired
+    private StreamsBuilderFactoryBean streamsBuilderFactoryBean;
+
+    @Autowired
+    private AnalyticsProperties analyticsProperties;
+
+    @Autowired
+    private RestClient analyticsRestClient;
+
+    @Value("${server.port:8080}")
+    private int serverPort;
+
+    public List<WindowedTotals> windowsFor(String storeName, String path, String key, Instant from, Instant to,
+                                           boolean local) {
+        KafkaStreams streams = kafkaStreams();
+        if (!local) {
+            KeyQueryMetadata metadata = streams.queryMetadataForKey(storeName, key, Serdes.String().serializer());
+            HostInfo owner = metadata.activeHost();
+            if (owner != null && !KeyQueryMetadata.NOT_AVAILABLE.equals(metadata) && !isSelf(owner)) {
+                return analyticsRestClient.get()
+                        .uri("http://{host}:{port}/api/analytics/{path}/{key}?window={window}&from={from}&to={to}&local=true",
+                                owner.host(), owner.port(), path, key, windowOf(storeName), from, to)
+                        .retrieve()
+                        .body(TOTALS_LIST);
+            }
+        }
+
+        long size = sizeOf(storeName);
+        List<WindowedTotals> windows = new ArrayList<>();
+        try (WindowStoreIterator<ActivityTotals> iterator = store(streams, storeName).fetch(key, from, to)) {
+            while (iterator.hasNext()) {
+                KeyValue<Long, ActivityTotals> window = iterator.next();
+                windows.add(toTotals(key, window.key, size, window.value));
+            }
+        }
+        return windows;
+    }
+
+    /**
+     * Keys of the store ranked by minutes in the window that ends next after {@code at}: for the hopping
+     * store that is the rolling hopping-size period up to now, for the tumbling store the current window.
+     */
+    public List<WindowedTotals> leaderboard(String storeName, Instant at, int limit, boolean local) {
+        KafkaStreams streams = kafkaStreams();
+        List<WindowedTotals> entries = new ArrayList<>(localLeaderboard(streams, storeName, at, limit));
+
+        if (!local) {
+            for (StreamsMetadata metadata : streams.streamsMetadataForStore(storeName)) {
+                if (isSelf(metadata.hostInfo())) {
+                    continue;
+                }
+                try {
+                    List<WindowedTotals> remote = analyticsRestClient.get()
+                            .uri("http://{host}:{port}/api/analytics/leaderboard?window={window}&at={at}&limit={limit}&local=true",
+                                    metadata.host(), metadata.port(), windowOf(storeName), at, limit)
+                            .retrieve()
+                            .body(TOTALS_LIST);
+                    if (remote != null) {
+                        entries.addAll(remote);
+                    }
+                } catch (Exception e) {
+                    log.warn("Leaderboard is missing the partitions of {}: {}", metadata.hostInfo(), e.getMessage());
+                }
+            }
+        }
+
+        return entries.stream()
+                .sorted(Comparator.comparingLong(WindowedTotals::getMinutes).reversed())
+                .limit(limit)
+                .toList();
+    }
+
+    private List<WindowedTotals> localLeaderboard(KafkaStreams streams, String storeName, Instant at, int limit) {
+        AnalyticsProperties.Window window = windowOf(storeName);
+        long size = analyticsProperties.size(window).toMillis();
+        long advance = analyticsProperties.advance(window).toMillis();
+        long latestStart = at.toEpochMilli() - Math.floorMod(at.toEpochMilli(), advance);
+        Instant windowStart = Instant.ofEpochMilli(latestStart - size + advance);
+
+        List<WindowedTotals> entries = new ArrayList<>();
+        try (KeyValueIterator<Windowed<String>, ActivityTotals> iterator =
+                     store(streams, storeName).fetchAll(windowStart, windowStart)) {
+            while (iterator.hasNext()) {
+                KeyValue<Windowed<String>, ActivityTotals> entry = iterator.next();
+                entries.add(toTotals(entry.key.key(), entry.key.window().start(), size, entry.value));
+            }
+        }
+        return entries.stream()
+                .sorted(Comparator.comparingLong(WindowedTotals::getMinutes).reversed())
+                .limit(limit)
+                .toList();
+    }
+
+    private long sizeOf(String storeName) {
+        return analyticsProperties.size(windowOf(storeName)).toMillis();
+    }
+
+    private static AnalyticsProperties.Window windowOf(String storeName) {
+        return storeName.endsWith("-hopping") ? AnalyticsProperties.Window.HOPPING : AnalyticsProperties.Window.TUMBLING;
+    }
+
+    private static WindowedTotals toTotals(String key, long windowStart, long size, ActivityTotals totals) {
+        return new WindowedTotals(key, Instant.ofEpochMilli(windowStart), Instant.ofEpochMilli(windowStart + size),
+                totals.getSessions(), totals.getMinutes(), totals.getCalories());
+    }
+
+    private ReadOnlyWindowStore<String, ActivityTotals> store(KafkaStreams streams, String storeName) {
+        return streams.store(StoreQueryParameters.fromNameAndType(storeName, QueryableStoreTypes.windowStore()));
+    }
+
+    private KafkaStreams kafkaStreams() {
+        KafkaStreams streams = streamsBuilderFactoryBean.getKafkaStreams();
+        if (streams == null || streams.state() != KafkaStreams.State.RUNNING) {
+            throw new RuntimeException("Analytics stores are not ready yet");
+        }
+        return streams;
+    }
+
+    private boolean isSelf(HostInfo hostInfo) {
+        return hostInfo.host().equals(analyticsProperties.getAdvertisedHost()) && hostInfo.port() == serverPort;
+    }
+}
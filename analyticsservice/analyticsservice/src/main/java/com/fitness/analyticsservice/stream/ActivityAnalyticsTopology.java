@@ -0,0 +1,87 @@
+package com.fitness.analyticsservice.stream;
+
+import com.fitness.analyticsservice.config.AnalyticsProperties;
+import com.fitness.analyticsservice.model.ActivityTotals;
+import com.fitness.common.activity.ActivityEvent;
+import org.apache.kafka.common.serialization.Serdes;
+import org.apache.kafka.common.utils.Bytes;
+import org.apache.kafka.streams.StreamsBuilder;
+import org.apache.kafka.streams.kstream.Consumed;
+import org.apache.kafka.streams.kstream.Grouped;
+import org.apache.kafka.streams.kstream.KGroupedStream;
+import org.apache.kafka.streams.kstream.KStream;
+import org.apache.kafka.streams.kstream.Materialized;
+import org.apache.kafka.streams.kstream.TimeWindows;
+import org.apache.kafka.streams.state.WindowStore;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * Windowed totals (sessions, minutes, calories) over activity-events, kept in RocksDB window stores:
+ *
+ *   user-tumbling / user-hopping   keyed by userId (the record key, so no repartition)
+ *   type-tumbling / type-hopping   keyed by ActivityType (repartitioned through an internal topic)
+ *
+ * The stores are changelogged, so a restarted or rebalanced instance restores them from Kafka.
+ * AnalyticsQueryService serves them over HTTP.
+ */
+@Component
+public class ActivityAnalyticsTopology {
+
+    public static final String USER_TUMBLING_STORE = "user-tumbling";
+    public static final String USER_HOPPING_STORE = "user-hopping";
+    public static final String TYPE_TUMBLING_STORE = "type-tumbling";
+    public static final String TYPE_HOPPING_STORE = "type-hopping";
+
+    @Autowired
+    private AnalyticsProperties analyticsProperties;
+
+    @Value("${kafka.topic.name}")
+    private String topicName;
+
+    @Autowired
+    void buildPipeline(StreamsBuilder streamsBuilder) {
+        define(streamsBuilder, topicName, analyticsProperties);
+    }
+
+    public static void define(StreamsBuilder streamsBuilder, String topicName, AnalyticsProperties properties) {
+        KStream<String, ActivityEvent> activities = streamsBuilder
+                .stream(topicName, Consumed.with(Serdes.String(), AnalyticsSerdes.activity())
+                        .withTimestampExtractor(new ActivityTimestampExtractor()))
+                .filter((key, activity) -> key != null && activity != null);
+
+        // the outbox relay in activityservice keys every record by userId, so the input is already partitioned by user
+        KGroupedStream<String, ActivityEvent> byUser = activities
+                .groupByKey(Grouped.with(Serdes.String(), AnalyticsSerdes.activity()));
+        aggregate(byUser, tumbling(properties), USER_TUMBLING_STORE, properties);
+        aggregate(byUser, hopping(properties), USER_HOPPING_STORE, properties);
+
+        KGroupedStream<String, ActivityEvent> byType = activities
+                .filter((key, activity) -> activity.type() != null)
+                .groupBy((key, activity) -> activity.type().name(),
+                        Grouped.with("by-type", Serdes.String(), AnalyticsSerdes.activity()));
+        aggregate(byType, tumbling(properties), TYPE_TUMBLING_STORE, properties);
+        aggregate(byType, hopping(properties), TYPE_HOPPING_STORE, properties);
+    }
+
+    private static void aggregate(KGroupedStream<String, ActivityEvent> grouped, TimeWindows windows, String storeName,
+                                  AnalyticsProperties properties) {
+        grouped.windowedBy(windows)
+                .aggregate(ActivityTotals::new,
+                        (key, activity, totals) -> totals.add(activity),
+                        Materialized.<String, ActivityTotals, WindowStore<Bytes, byte[]>>as(storeName)
+                                .withKeySerde(Serdes.String())
+                                .withValueSerde(AnalyticsSerdes.totals())
+                                .withRetention(properties.getRetention()));
+    }
+
+    private static TimeWindows tumbling(AnalyticsProperties properties) {
+        return TimeWindows.ofSizeAndGrace(properties.getTumblingSize(), properties.getGrace());
+    }
+
+    private static TimeWindows hopping(AnalyticsProperties properties) {
+        return TimeWindows.ofSizeAndGrace(properties.getHoppingSize(), properties.getGrace())
+                .advanceBy(properties.getHoppingAdvance());
+    }
+}
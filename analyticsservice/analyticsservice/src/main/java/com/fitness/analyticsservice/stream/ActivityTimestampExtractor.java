@@ -0,0 +1,23 @@
+package com.fitness.analyticsservice.stream;
+
+import com.fitness.common.activity.ActivityEvent;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.streams.processor.TimestampExtractor;
+
+import java.time.ZoneOffset;
+
+/**
+ * Windows are based on when the workout happened, not when it was synced. startTime carries no zone,
+ * so it is read as UTC: a day window then covers the user's own calendar day. Records without a
+ * startTime fall back to the Kafka record timestamp.
+ */
+public class ActivityTimestampExtractor implements TimestampExtractor {
+
+    @Override
+    public long extract(ConsumerRecord<Object, Object> record, long partitionTime) {
+        if (record.value() instanceof ActivityEvent activity && activity.startTime() != null) {
+            return activity.startTime().toInstant(ZoneOffset.UTC).toEpochMilli();
+        }
+        return record.timestamp() >= 0 ? record.timestamp() : partitionTime;
+    }
+}
@@ -0,0 +1,26 @@
+package com.fitness.analyticsservice.stream;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fitness.analyticsservice.model.ActivityTotals;
+import com.fitness.common.activity.ActivityEvent;
+import com.fitness.common.events.ActivityEventSerde;
+import org.apache.kafka.common.serialization.Serde;
+import org.springframework.kafka.support.JacksonUtils;
+import org.springframework.kafka.support.serializer.JsonSerde;
+
+public final class AnalyticsSerdes {
+
+    // same Jackson setup as spring-kafka's JsonSerializer
+    private static final ObjectMapper MAPPER = JacksonUtils.enhancedObjectMapper();
+
+    private AnalyticsSerdes() {
+    }
+
+    public static Serde<ActivityEvent> activity() {
+        return new ActivityEventSerde();
+    }
+
+    public static JsonSerde<ActivityTotals> totals() {
+        return new JsonSerde<>(ActivityTotals.class, MAPPER).ignoreTypeHeaders().noTypeInfo();
+    }
+}
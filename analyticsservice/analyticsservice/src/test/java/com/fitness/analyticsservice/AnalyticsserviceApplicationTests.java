@@ -0,0 +1,22 @@
+package com.fitness.analyticsservice;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.test.context.SpringBootTest;
+
+@SpringBootTest(properties = {
+		"spring.config.import=",
+		"spring.cloud.config.enabled=false",
+		"eureka.client.enabled=false",
+		"kafka.topic.name=activity-events",
+		"spring.kafka.bootstrap-servers=localhost:9092",
+		"spring.kafka.streams.application-id=analytics-service-test",
+		// builds the topology without starting the streams client, so no broker is needed
+		"spring.kafka.streams.auto-startup=false"
+})
+class AnalyticsserviceApplicationTests {
+
+	@Test
+	void contextLoads() {
+	}
+
+}
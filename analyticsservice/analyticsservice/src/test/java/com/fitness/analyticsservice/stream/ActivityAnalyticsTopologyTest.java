@@ -0,0 +1,127 @@
+package com.fitness.analyticsservice.stream;
+
+import com.fitness.analyticsservice.config.AnalyticsProperties;
+import com.fitness.analyticsservice.model.ActivityTotals;
+import com.fitness.common.activity.ActivityEvent;
+import com.fitness.common.activity.ActivityType;
+import org.apache.kafka.common.serialization.StringSerializer;
+import org.apache.kafka.streams.KeyValue;
+import org.apache.kafka.streams.StreamsBuilder;
+import org.apache.kafka.streams.StreamsConfig;
+import org.apache.kafka.streams.TestInputTopic;
+import org.apache.kafka.streams.TopologyTestDriver;
+import org.apache.kafka.streams.state.WindowStore;
+import org.apache.kafka.streams.state.WindowStoreIterator;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Properties;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class ActivityAnalyticsTopologyTest {
+
+    private static final String TOPIC = "activity-events";
+
+    @TempDir
+    Path stateDir;
+
+    private TopologyTestDriver driver;
+    private TestInputTopic<String, ActivityEvent> input;
+
+    @BeforeEach
+    void setUp() {
+        StreamsBuilder builder = new StreamsBuilder();
+        ActivityAnalyticsTopology.define(builder, TOPIC, new AnalyticsProperties());
+
+        Properties config = new Properties();
+        config.put(StreamsConfig.APPLICATION_ID_CONFIG, "analytics-test");
+        config.put(StreamsConfig.BOOTSTRAP_SERVERS_CONFIG, "dummy:9092");
+        config.put(StreamsConfig.STATE_DIR_CONFIG, stateDir.toString());
+        driver = new TopologyTestDriver(builder.build(), config);
+        input = driver.createInputTopic(TOPIC, new StringSerializer(), AnalyticsSerdes.activity().serializer());
+    }
+
+    @AfterEach
+    void tearDown() {
+        driver.close();
+    }
+
+    @Test
+    void sumsEachUserPerDayByStartTime() {
+        send("u1", ActivityType.RUNNING, 30, 300, "2026-03-02T07:00");
+        send("u1", ActivityType.CYCLING, 60, 500, "2026-03-02T18:30");
+        send("u1", ActivityType.RUNNING, 20, 200, "2026-03-03T07:00");
+        send("u2", ActivityType.RUNNING, 45, 400, "2026-03-02T09:00");
+
+        List<KeyValue<Long, ActivityTotals>> days = fetch(ActivityAnalyticsTopology.USER_TUMBLING_STORE, "u1",
+                "2026-03-01T00:00", "2026-03-04T00:00");
+
+        assertEquals(2, days.size());
+        assertEquals(at("2026-03-02T00:00").toEpochMilli(), days.get(0).key);
+        assertEquals(new ActivityTotals(2, 90, 800), days.get(0).value);
+        assertEquals(new ActivityTotals(1, 20, 200), days.get(1).value);
+    }
+
+    @Test
+    void hoppingWindowsCoverTheLastSevenDays() {
+        send("u1", ActivityType.RUNNING, 30, 300, "2026-03-02T07:00");
+        send("u1", ActivityType.RUNNING, 40, 350, "2026-03-07T07:00");
+
+        // the window starting 2026-03-01 ends 2026-03-08 and contains both runs
+        List<KeyValue<Long, ActivityTotals>> windows = fetch(ActivityAnalyticsTopology.USER_HOPPING_STORE, "u1",
+                "2026-03-01T00:00", "2026-03-01T00:00");
+
+        assertEquals(1, windows.size());
+        assertEquals(new ActivityTotals(2, 70, 650), windows.get(0).value);
+    }
+
+    @Test
+    void aggregatesAcrossUsersPerActivityType() {
+        send("u1", ActivityType.RUNNING, 30, 300, "2026-03-02T07:00");
+        send("u2", ActivityType.RUNNING, 45, 400, "2026-03-02T09:00");
+        send("u2", ActivityType.YOGA, 60, 150, "2026-03-02T20:00");
+
+        List<KeyValue<Long, ActivityTotals>> running = fetch(ActivityAnalyticsTopology.TYPE_TUMBLING_STORE, "RUNNING",
+                "2026-03-02T00:00", "2026-03-02T00:00");
+
+        assertEquals(List.of(KeyValue.pair(at("2026-03-02T00:00").toEpochMilli(), new ActivityTotals(2, 75, 700))), running);
+    }
+
+    @Test
+    void dropsActivitiesArrivingAfterTheGracePeriod() {
+        send("u1", ActivityType.RUNNING, 30, 300, "2026-03-10T07:00");
+        send("u1", ActivityType.RUNNING, 99, 999, "2026-03-02T07:00"); // 8 days late, grace is 2 days
+
+        List<KeyValue<Long, ActivityTotals>> days = fetch(ActivityAnalyticsTopology.USER_TUMBLING_STORE, "u1",
+                "2026-03-02T00:00", "2026-03-02T00:00");
+
+        assertEquals(List.of(), days);
+    }
+
+    private void send(String userId, ActivityType type, int minutes, int calories, String startTime) {
+        input.pipeInput(userId, new ActivityEvent(null, userId, type, minutes, calories,
+                LocalDateTime.parse(startTime), null, null, null));
+    }
+
+    private List<KeyValue<Long, ActivityTotals>> fetch(String storeName, String key, String from, String to) {
+        WindowStore<String, ActivityTotals> store = driver.getWindowStore(storeName);
+        List<KeyValue<Long, ActivityTotals>> windows = new ArrayList<>();
+        try (WindowStoreIterator<ActivityTotals> iterator = store.fetch(key, at(from), at(to))) {
+            iterator.forEachRemaining(windows::add);
+        }
+        return windows;
+    }
+
+    private static Instant at(String localDateTime) {
+        return LocalDateTime.parse(localDateTime).toInstant(ZoneOffset.UTC);
+    }
+}
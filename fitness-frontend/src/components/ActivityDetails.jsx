@@ -1,8 +1,12 @@
 // src/components/ActivityDetails.jsx
 import React, { useState, useEffect } from "react";
+import { useSelector } from "react-redux";
 import { useParams, useNavigate } from "react-router-dom";
 import { getActivityById } from "../service/activity-service";
-import { getRecommendationsByActivityId } from "../service/recommendation-service";
+import {
+  getRecommendationsByActivityId,
+  subscribeToRecommendations,
+} from "../service/recommendation-service";
 import {
   Box,
   Paper,
@@ -34,6 +38,7 @@ import {
 const ActivityDetails = () => {
   const { id } = useParams();
   const navigate = useNavigate();
+  const token = useSelector((state) => state.auth.token);
   const [activity, setActivity] = useState(null);
   const [recommendation, setRecommendation] = useState(null);
   const [loading, setLoading] = useState(true);
@@ -43,6 +48,18 @@ const ActivityDetails = () => {
     fetchActivityDetails();
   }, [id]);
 
+  // Until the recommendation exists, wait for it to be pushed instead of reloading
+  useEffect(() => {
+    if (!token || recommendation) {
+      return undefined;
+    }
+    return subscribeToRecommendations(token, (pushed) => {
+      if (pushed.activityId === id) {
+        setRecommendation(pushed);
+      }
+    });
+  }, [id, token, recommendation]);
+
   const fetchActivityDetails = async () => {
     setLoading(true);
     setError(null);
@@ -29,6 +29,35 @@ export const getRecommendationsByUserId = async (userId) => {
   }
 };
 
+/**
+ * Get one page of a user's recommendation summaries, newest first
+ * @param {string} userId - User ID
+ * @param {string} [cursor] - nextCursor of the previous page
+ * @returns {Promise<{recommendations: Object[], nextCursor: string|null}>}
+ */
+export const getRecommendationSummaries = async (userId, cursor) => {
+  try {
+    const query = cursor ? `?cursor=${encodeURIComponent(cursor)}` : "";
+    const response = await fetch(`${BASE_URL}/user/${userId}/summaries${query}`, {
+      method: "GET",
+      headers: {
+        "Content-Type": "application/json",
+      },
+    });
+
+    if (!response.ok) {
+      throw new Error(
+        `Failed to fetch recommendations: ${response.statusText}`
+      );
+    }
+
+    return await response.json();
+  } catch (error) {
+    console.error("Error fetching recommendation summaries:", error);
+    throw error;
+  }
+};
+
 /**
  * Get recommendations by activity ID
  * @param {string} activityId - Activity ID
@@ -54,7 +83,28 @@ export const getRecommendationsByActivityId = async (activityId) => {
   }
 };
 
+/**
+ * Receive the signed-in user's new recommendations as they are stored.
+ * EventSource cannot send an Authorization header, so the gateway takes the
+ * token as ?access_token= on this endpoint only and derives the user from it.
+ * @param {string} token - Access token of the signed-in user
+ * @param {(recommendation: Recommendation) => void} onRecommendation - called for each new recommendation
+ * @returns {() => void} closes the stream
+ */
+export const subscribeToRecommendations = (token, onRecommendation) => {
+  const source = new EventSource(
+    `${BASE_URL}/stream?access_token=${encodeURIComponent(token)}`
+  );
+  source.addEventListener("recommendation", (event) => {
+    onRecommendation(JSON.parse(event.data));
+  });
+  // EventSource reconnects on its own after errors and when the server ends the stream
+  return () => source.close();
+};
+
 export default {
   getRecommendationsByUserId,
+  getRecommendationSummaries,
   getRecommendationsByActivityId,
+  subscribeToRecommendations,
 };
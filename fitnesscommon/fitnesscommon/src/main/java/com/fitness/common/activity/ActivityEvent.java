@@ -0,0 +1,20 @@
+package com.fitness.common.activity;
+
+import java.time.LocalDateTime;
+
+/**
+ * Value of the activity-events topic, written by activityservice and read by aiservice and analyticsservice.
+ * On the wire it is the Avro record described by avro/activity-event-v*.avsc (see com.fitness.common.events).
+ * type is null when the producer used an ActivityType this build does not know.
+ */
+public record ActivityEvent(
+        String id,
+        String userId,
+        ActivityType type,
+        int duration, // in minutes
+        int caloriesBurned,
+        LocalDateTime startTime,
+        ActivityMetrics additionalMatrics,
+        LocalDateTime createdAt,
+        LocalDateTime updatedAt) {
+}
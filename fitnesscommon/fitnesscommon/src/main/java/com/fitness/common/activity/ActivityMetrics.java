@@ -0,0 +1,120 @@
+package com.fitness.common.activity;
+
+import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonValue;
+
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Measurements of one activity. The metrics most devices report have their own typed field; anything
+ * else is kept in other. In JSON this is still the flat object clients send as additionalMatrics, e.g.
+ * {"distanceKm": 5.2, "avgHeartRate": 148, "indoor": false}.
+ *
+ * "distance" and "heartRate" (what the web form sends) are read as distanceKm and avgHeartRate; a value
+ * that cannot be read as a number stays in other under its original key.
+ */
+public record ActivityMetrics(
+        Integer avgHeartRate, // bpm
+        Integer maxHeartRate, // bpm
+        Double distanceKm,
+        Integer avgPaceSecPerKm,
+        Integer cadence, // steps or revolutions per minute
+        Integer elevationGainM,
+        Map<String, Object> other) {
+
+    public static final String AVG_HEART_RATE = "avgHeartRate";
+    public static final String MAX_HEART_RATE = "maxHeartRate";
+    public static final String DISTANCE_KM = "distanceKm";
+    public static final String AVG_PACE_SEC_PER_KM = "avgPaceSecPerKm";
+    public static final String CADENCE = "cadence";
+    public static final String ELEVATION_GAIN_M = "elevationGainM";
+
+    @JsonCreator(mode = JsonCreator.Mode.DELEGATING)
+    public static ActivityMetrics fromMap(Map<String, Object> values) {
+        if (values == null || values.isEmpty()) {
+            return null;
+        }
+        Integer avgHeartRate = null;
+        Integer maxHeartRate = null;
+        Double distanceKm = null;
+        Integer avgPaceSecPerKm = null;
+        Integer cadence = null;
+        Integer elevationGainM = null;
+        Map<String, Object> other = new LinkedHashMap<>();
+
+        for (Map.Entry<String, Object> entry : values.entrySet()) {
+            String key = entry.getKey();
+            Object value = entry.getValue();
+            Double number;
+            if ((AVG_HEART_RATE.equals(key) || "heartRate".equals(key)) && avgHeartRate == null
+                    && (number = number(value, "bpm")) != null) {
+                avgHeartRate = (int) Math.round(number);
+            } else if (MAX_HEART_RATE.equals(key) && maxHeartRate == null && (number = number(value, "bpm")) != null) {
+                maxHeartRate = (int) Math.round(number);
+            } else if ((DISTANCE_KM.equals(key) || "distance".equals(key)) && distanceKm == null
+                    && (number = number(value, "km")) != null) {
+                distanceKm = number;
+            } else if (AVG_PACE_SEC_PER_KM.equals(key) && avgPaceSecPerKm == null && (number = number(value, null)) != null) {
+                avgPaceSecPerKm = (int) Math.round(number);
+            } else if (CADENCE.equals(key) && cadence == null && (number = number(value, null)) != null) {
+                cadence = (int) Math.round(number);
+            } else if (ELEVATION_GAIN_M.equals(key) && elevationGainM == null && (number = number(value, "m")) != null) {
+                elevationGainM = (int) Math.round(number);
+            } else {
+                other.put(key, value);
+            }
+        }
+        return new ActivityMetrics(avgHeartRate, maxHeartRate, distanceKm, avgPaceSecPerKm, cadence, elevationGainM,
+                other.isEmpty() ? null : other);
+    }
+
+    // The flat form: typed fields under their canonical names, followed by the other entries
+    @JsonValue
+    public Map<String, Object> toMap() {
+        Map<String, Object> values = new LinkedHashMap<>();
+        putIfSet(values, AVG_HEART_RATE, avgHeartRate);
+        putIfSet(values, MAX_HEART_RATE, maxHeartRate);
+        putIfSet(values, DISTANCE_KM, distanceKm);
+        putIfSet(values, AVG_PACE_SEC_PER_KM, avgPaceSecPerKm);
+        putIfSet(values, CADENCE, cadence);
+        putIfSet(values, ELEVATION_GAIN_M, elevationGainM);
+        if (other != null) {
+            values.putAll(other);
+        }
+        return values;
+    }
+
+    // Prompts and log lines show the metrics the way the client sent them
+    @Override
+    public String toString() {
+        return toMap().toString();
+    }
+
+    private static void putIfSet(Map<String, Object> values, String key, Object value) {
+        if (value != null) {
+            values.put(key, value);
+        }
+    }
+
+    // Numbers as they are; strings such as "5", "5.2km" or "148 bpm" when they end in the expected unit
+    private static Double number(Object value, String unit) {
+        if (value instanceof Number number) {
+            return number.doubleValue();
+        }
+        if (!(value instanceof String text)) {
+            return null;
+        }
+        String trimmed = text.trim().toLowerCase(Locale.ROOT);
+        if (unit != null && trimmed.endsWith(unit)) {
+            trimmed = trimmed.substring(0, trimmed.length() - unit.length()).trim();
+        }
+        try {
+            double parsed = Double.parseDouble(trimmed);
+            return Double.isFinite(parsed) ? parsed : null;
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+}
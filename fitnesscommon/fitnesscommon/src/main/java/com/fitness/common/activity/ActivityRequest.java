@@ -0,0 +1,16 @@
+package com.fitness.common.activity;
+
+import java.time.LocalDateTime;
+
+public record ActivityRequest(
+        String userId,
+        ActivityType type,
+        int duration, // in minutes
+        int caloriesBurned,
+        LocalDateTime startTime,
+        ActivityMetrics additionalMatrics) {
+
+    public ActivityRequest withUserId(String userId) {
+        return new ActivityRequest(userId, type, duration, caloriesBurned, startTime, additionalMatrics);
+    }
+}
@@ -0,0 +1,15 @@
+package com.fitness.common.activity;
+
+import java.time.LocalDateTime;
+
+public record ActivityResponse(
+        String id,
+        String userId,
+        ActivityType type,
+        int duration, // in minutes
+        int caloriesBurned,
+        LocalDateTime startTime,
+        ActivityMetrics additionalMatrics,
+        LocalDateTime createdAt,
+        LocalDateTime updatedAt) {
+}
@@ -1,4 +1,4 @@
-package com.fitness.aiservice.model;
+package com.fitness.common.activity;
 
 public enum ActivityType {
     RUNNING,
@@ -0,0 +1,150 @@
+package com.fitness.common.events;
+
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import com.fitness.common.activity.ActivityEvent;
+import com.fitness.common.activity.ActivityMetrics;
+import com.fitness.common.activity.ActivityType;
+import org.apache.avro.Schema;
+import org.apache.avro.SchemaNormalization;
+import org.apache.avro.generic.GenericDatumReader;
+import org.apache.avro.generic.GenericRecord;
+import org.apache.avro.io.DecoderFactory;
+import org.apache.kafka.common.errors.SerializationException;
+import org.apache.kafka.common.serialization.Deserializer;
+
+import java.io.IOException;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Reads activity-events values written by ActivityEventSerializer. The fingerprint in the header selects the
+ * writer schema; the record is resolved against the newest schema, so fields added later get their defaults
+ * and unknown fields are skipped.
+ *
+ * Values that do not start with the Avro marker are read as JSON, which covers messages published before
+ * the producer switched formats.
+ */
+public class ActivityEventDeserializer implements Deserializer<ActivityEvent> {
+
+    private static final Map<Long, GenericDatumReader<GenericRecord>> READERS = readers();
+    private static final ObjectMapper JSON = new ObjectMapper()
+            .registerModule(new JavaTimeModule())
+            .configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false);
+
+    @Override
+    public ActivityEvent deserialize(String topic, byte[] data) {
+        if (data == null) {
+            return null;
+        }
+        if (data.length < 10 || data[0] != (byte) 0xC3 || data[1] != (byte) 0x01) {
+            return readJson(data);
+        }
+
+        long fingerprint = 0;
+        for (int i = 0; i < 8; i++) {
+            fingerprint |= (data[2 + i] & 0xFFL) << (8 * i);
+        }
+        GenericDatumReader<GenericRecord> reader = READERS.get(fingerprint);
+        if (reader == null) {
+            throw new SerializationException("Unknown activity-event schema fingerprint " + Long.toHexString(fingerprint)
+                    + "; this build is missing a newer avro/activity-event-v*.avsc");
+        }
+        try {
+            GenericRecord record = reader.read(null, DecoderFactory.get().binaryDecoder(data, 10, data.length - 10, null));
+            return toEvent(record);
+        } catch (IOException | RuntimeException e) {
+            throw new SerializationException("Could not decode activity-event", e);
+        }
+    }
+
+    private static ActivityEvent readJson(byte[] data) {
+        try {
+            return JSON.readValue(data, ActivityEvent.class);
+        } catch (IOException e) {
+            throw new SerializationException("Value is neither an Avro activity-event nor JSON", e);
+        }
+    }
+
+    private static Map<Long, GenericDatumReader<GenericRecord>> readers() {
+        Map<Long, GenericDatumReader<GenericRecord>> readers = new HashMap<>();
+        for (Schema writer : ActivityEventSchemas.VERSIONS) {
+            readers.put(SchemaNormalization.parsingFingerprint64(writer),
+                    new GenericDatumReader<>(writer, ActivityEventSchemas.CURRENT));
+        }
+        return Map.copyOf(readers);
+    }
+
+    static ActivityEvent toEvent(GenericRecord record) {
+        return new ActivityEvent(
+                string(record.get("id")),
+                string(record.get("userId")),
+                toType(record.get("type")),
+                (Integer) record.get("duration"),
+                (Integer) record.get("caloriesBurned"),
+                toTime(record.get("startTime")),
+                toMetrics(record),
+                toTime(record.get("createdAt")),
+                toTime(record.get("updatedAt")));
+    }
+
+    // OTHER is what the schema falls back to for types this build does not know yet
+    private static ActivityType toType(Object symbol) {
+        if (symbol == null || "OTHER".equals(symbol.toString())) {
+            return null;
+        }
+        try {
+            return ActivityType.valueOf(symbol.toString());
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+
+    private static LocalDateTime toTime(Object millis) {
+        return millis == null ? null : LocalDateTime.ofEpochSecond(Math.floorDiv((Long) millis, 1000L),
+                (int) Math.floorMod((Long) millis, 1000L) * 1_000_000, ZoneOffset.UTC);
+    }
+
+    // v1 producers put every metric in the map; fromMap promotes the well-known ones to their typed fields
+    private static ActivityMetrics toMetrics(GenericRecord record) {
+        ActivityMetrics fromMap = ActivityMetrics.fromMap(toMap(record.get("metrics")));
+        Integer avgHeartRate = (Integer) record.get("avgHeartRate");
+        Integer maxHeartRate = (Integer) record.get("maxHeartRate");
+        Double distanceKm = (Double) record.get("distanceKm");
+        Integer avgPaceSecPerKm = (Integer) record.get("avgPaceSecPerKm");
+        Integer cadence = (Integer) record.get("cadence");
+        Integer elevationGainM = (Integer) record.get("elevationGainM");
+        if (fromMap == null && avgHeartRate == null && maxHeartRate == null && distanceKm == null
+                && avgPaceSecPerKm == null && cadence == null && elevationGainM == null) {
+            return null;
+        }
+        if (fromMap == null) {
+            return new ActivityMetrics(avgHeartRate, maxHeartRate, distanceKm, avgPaceSecPerKm, cadence, elevationGainM, null);
+        }
+        return new ActivityMetrics(
+                avgHeartRate != null ? avgHeartRate : fromMap.avgHeartRate(),
+                maxHeartRate != null ? maxHeartRate : fromMap.maxHeartRate(),
+                distanceKm != null ? distanceKm : fromMap.distanceKm(),
+                avgPaceSecPerKm != null ? avgPaceSecPerKm : fromMap.avgPaceSecPerKm(),
+                cadence != null ? cadence : fromMap.cadence(),
+                elevationGainM != null ? elevationGainM : fromMap.elevationGainM(),
+                fromMap.other());
+    }
+
+    private static Map<String, Object> toMap(Object metrics) {
+        if (metrics == null) {
+            return null;
+        }
+        Map<?, ?> values = (Map<?, ?>) metrics;
+        Map<String, Object> result = new HashMap<>(values.size() * 2);
+        values.forEach((key, value) -> result.put(key.toString(), value instanceof CharSequence ? value.toString() : value));
+        return result;
+    }
+
+    private static String string(Object value) {
+        return value == null ? null : value.toString();
+    }
+}
@@ -0,0 +1,72 @@
+package com.fitness.common.events;
+
+import org.apache.avro.Schema;
+import org.apache.avro.SchemaCompatibility;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Every published version of the activity-events value schema, read from avro/activity-event-v{n}.avsc.
+ * Producers write the newest one; consumers resolve each message's writer version (found by fingerprint)
+ * against it, so no registry is needed. Loading fails if the newest version cannot read an older one.
+ */
+public final class ActivityEventSchemas {
+
+    public static final List<Schema> VERSIONS = load();
+    public static final Schema CURRENT = VERSIONS.get(VERSIONS.size() - 1);
+
+    static {
+        for (int i = 0; i < VERSIONS.size() - 1; i++) {
+            SchemaCompatibility.SchemaPairCompatibility compatibility =
+                    SchemaCompatibility.checkReaderWriterCompatibility(CURRENT, VERSIONS.get(i));
+            if (compatibility.getType() != SchemaCompatibility.SchemaCompatibilityType.COMPATIBLE) {
+                throw new IllegalStateException("activity-event schema v" + VERSIONS.size()
+                        + " cannot read v" + (i + 1) + ": " + compatibility.getDescription());
+            }
+        }
+    }
+
+    private ActivityEventSchemas() {
+    }
+
+    /**
+     * Versions that cannot read, or cannot be read by, the current schema. Must stay empty: old consumers
+     * have to read new messages and new consumers old ones while a deployment rolls.
+     */
+    public static List<String> incompatibleVersions() {
+        List<String> problems = new ArrayList<>();
+        for (int i = 0; i < VERSIONS.size() - 1; i++) {
+            Schema previous = VERSIONS.get(i);
+            SchemaCompatibility.SchemaPairCompatibility backward = SchemaCompatibility.checkReaderWriterCompatibility(CURRENT, previous);
+            SchemaCompatibility.SchemaPairCompatibility forward = SchemaCompatibility.checkReaderWriterCompatibility(previous, CURRENT);
+            if (backward.getType() != SchemaCompatibility.SchemaCompatibilityType.COMPATIBLE) {
+                problems.add("v" + (i + 1) + " written, current read: " + backward.getDescription());
+            }
+            if (forward.getType() != SchemaCompatibility.SchemaCompatibilityType.COMPATIBLE) {
+                problems.add("current written, v" + (i + 1) + " read: " + forward.getDescription());
+            }
+        }
+        return problems;
+    }
+
+    private static List<Schema> load() {
+        List<Schema> versions = new ArrayList<>();
+        for (int version = 1; ; version++) {
+            try (InputStream in = ActivityEventSchemas.class.getResourceAsStream("/avro/activity-event-v" + version + ".avsc")) {
+                if (in == null) {
+                    break;
+                }
+                versions.add(new Schema.Parser().parse(in));
+            } catch (IOException e) {
+                throw new IllegalStateException("Could not read activity-event schema v" + version, e);
+            }
+        }
+        if (versions.isEmpty()) {
+            throw new IllegalStateException("No activity-event schema on the classpath");
+        }
+        return List.copyOf(versions);
+    }
+}
@@ -0,0 +1,12 @@
+package com.fitness.common.events;
+
+import com.fitness.common.activity.ActivityEvent;
+import org.apache.kafka.common.serialization.Serdes;
+
+// ActivityEventSerializer / ActivityEventDeserializer as one Serde, for Kafka Streams
+public class ActivityEventSerde extends Serdes.WrapperSerde<ActivityEvent> {
+
+    public ActivityEventSerde() {
+        super(new ActivityEventSerializer(), new ActivityEventDeserializer());
+    }
+}
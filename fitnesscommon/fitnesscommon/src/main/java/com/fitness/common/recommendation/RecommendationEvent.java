@@ -0,0 +1,20 @@
+package com.fitness.common.recommendation;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Value of the recommendation-events topic, written by aiservice once a recommendation is stored and keyed by
+ * userId. Sent as JSON. It carries the whole recommendation, so consumers can show it without reading it back.
+ */
+public record RecommendationEvent(
+        String id,
+        String userId,
+        String activityId,
+        String type,
+        String recommendation,
+        List<String> improvements,
+        List<String> suggestions,
+        List<String> safety,
+        LocalDateTime createdAt) {
+}
@@ -0,0 +1,14 @@
+package com.fitness.common.samples;
+
+/**
+ * One wearable reading. Every measurement is optional; a watch without GPS sends only heartRate.
+ * latitude/longitude survive the wire format to 1e-7 degrees (about 1 cm), altitude to 0.1 m.
+ */
+public record Sample(
+        long timeMillis, // epoch millis, UTC
+        Integer heartRate, // bpm
+        Double latitude,
+        Double longitude,
+        Double altitudeM,
+        Integer cadence) {
+}
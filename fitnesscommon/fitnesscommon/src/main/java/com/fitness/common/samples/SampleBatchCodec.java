@@ -0,0 +1,334 @@
+package com.fitness.common.samples;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Compact wire format for batches of samples, sent as application/x-fitness-samples.
+ *
+ * A batch is stored column by column: first all timestamps, then all heart rates, and so on. Each value is
+ * written as the zigzag varint of its difference to the previous value of the same column. Timestamps store
+ * the change of that difference instead, which is 0 for a steady sampling rate, so a 1 Hz heart rate stream
+ * costs about one byte per timestamp and one per heart rate:
+ *
+ * <pre>
+ * batch   := 'F' 'S' version=1  varint(count)  byte(columns)  time-column  [value-column...]
+ * time    := zigzag(first millis)  zigzag(delta - previous delta)...
+ * column  := 0x00 values                       every sample has the value
+ *          | 0x01 presence-bitmap values       only samples whose bit is set have a value
+ * values  := zigzag(first)  zigzag(delta)...
+ * </pre>
+ *
+ * Columns, in this order when their bit is set: heart rate, latitude and longitude (1e-7 degrees),
+ * altitude (decimetres), cadence. An upload is a sequence of frames, each varint(length) followed by a batch.
+ */
+public final class SampleBatchCodec {
+
+    public static final String CONTENT_TYPE = "application/x-fitness-samples";
+
+    private static final byte MAGIC_0 = 'F';
+    private static final byte MAGIC_1 = 'S';
+    private static final byte VERSION = 1;
+
+    private static final int HEART_RATE = 1;
+    private static final int POSITION = 2;
+    private static final int ALTITUDE = 4;
+    private static final int CADENCE = 8;
+
+    private static final double DEGREE_SCALE = 1e7;
+    private static final double ALTITUDE_SCALE = 10;
+
+    private SampleBatchCodec() {
+    }
+
+    public static byte[] encode(List<Sample> samples) {
+        int count = samples.size();
+        int columns = 0;
+        for (Sample sample : samples) {
+            columns |= (sample.heartRate() != null ? HEART_RATE : 0)
+                    | (sample.latitude() != null && sample.longitude() != null ? POSITION : 0)
+                    | (sample.altitudeM() != null ? ALTITUDE : 0)
+                    | (sample.cadence() != null ? CADENCE : 0);
+        }
+
+        Output out = new Output(16 + count * 4);
+        out.write(MAGIC_0);
+        out.write(MAGIC_1);
+        out.write(VERSION);
+        out.writeVarint(count);
+        out.write(columns);
+
+        long previous = 0;
+        long previousDelta = 0;
+        for (int i = 0; i < count; i++) {
+            long time = samples.get(i).timeMillis();
+            long delta = i == 0 ? time : time - previous;
+            out.writeZigzag(i == 0 ? time : delta - previousDelta);
+            previousDelta = i == 0 ? 0 : delta;
+            previous = time;
+        }
+
+        Long[] values = new Long[count];
+        if ((columns & HEART_RATE) != 0) {
+            for (int i = 0; i < count; i++) {
+                Integer heartRate = samples.get(i).heartRate();
+                values[i] = heartRate == null ? null : heartRate.longValue();
+            }
+            writeColumn(out, values);
+        }
+        if ((columns & POSITION) != 0) {
+            for (int i = 0; i < count; i++) {
+                Sample sample = samples.get(i);
+                values[i] = sample.latitude() == null || sample.longitude() == null ? null
+                        : Math.round(sample.latitude() * DEGREE_SCALE);
+            }
+            writeColumn(out, values);
+            for (int i = 0; i < count; i++) {
+                Sample sample = samples.get(i);
+                values[i] = sample.latitude() == null || sample.longitude() == null ? null
+                        : Math.round(sample.longitude() * DEGREE_SCALE);
+            }
+            writeColumn(out, values);
+        }
+        if ((columns & ALTITUDE) != 0) {
+            for (int i = 0; i < count; i++) {
+                Double altitude = samples.get(i).altitudeM();
+                values[i] = altitude == null ? null : Math.round(altitude * ALTITUDE_SCALE);
+            }
+            writeColumn(out, values);
+        }
+        if ((columns & CADENCE) != 0) {
+            for (int i = 0; i < count; i++) {
+                Integer cadence = samples.get(i).cadence();
+                values[i] = cadence == null ? null : cadence.longValue();
+            }
+            writeColumn(out, values);
+        }
+        return out.toByteArray();
+    }
+
+    public static List<Sample> decode(byte[] data) {
+        Input in = new Input(data);
+        if (in.read() != MAGIC_0 || in.read() != MAGIC_1) {
+            throw new IllegalArgumentException("Not a sample batch");
+        }
+        int version = in.read();
+        if (version != VERSION) {
+            throw new IllegalArgumentException("Unsupported sample batch version " + version);
+        }
+        long declared = in.readVarint();
+        // every sample takes at least one byte for its timestamp
+        if (declared < 0 || declared > data.length) {
+            throw new IllegalArgumentException("Sample count " + declared + " does not fit in " + data.length + " bytes");
+        }
+        int count = (int) declared;
+        int columns = in.read();
+
+        long[] times = new long[count];
+        long delta = 0;
+        for (int i = 0; i < count; i++) {
+            if (i == 0) {
+                times[0] = in.readZigzag();
+            } else {
+                delta += in.readZigzag();
+                times[i] = times[i - 1] + delta;
+            }
+        }
+        Long[] heartRates = (columns & HEART_RATE) != 0 ? readColumn(in, count) : null;
+        Long[] latitudes = (columns & POSITION) != 0 ? readColumn(in, count) : null;
+        Long[] longitudes = (columns & POSITION) != 0 ? readColumn(in, count) : null;
+        Long[] altitudes = (columns & ALTITUDE) != 0 ? readColumn(in, count) : null;
+        Long[] cadences = (columns & CADENCE) != 0 ? readColumn(in, count) : null;
+        if (in.remaining() != 0) {
+            throw new IllegalArgumentException(in.remaining() + " unexpected bytes after the sample batch");
+        }
+
+        List<Sample> samples = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            Long latitude = latitudes == null ? null : latitudes[i];
+            Long longitude = longitudes == null ? null : longitudes[i];
+            samples.add(new Sample(
+                    times[i],
+                    heartRates == null || heartRates[i] == null ? null : heartRates[i].intValue(),
+                    latitude == null ? null : latitude / DEGREE_SCALE,
+                    longitude == null ? null : longitude / DEGREE_SCALE,
+                    altitudes == null || altitudes[i] == null ? null : altitudes[i] / ALTITUDE_SCALE,
+                    cadences == null || cadences[i] == null ? null : cadences[i].intValue()));
+        }
+        return samples;
+    }
+
+    public static void writeFrame(OutputStream out, List<Sample> samples) throws IOException {
+        byte[] batch = encode(samples);
+        Output length = new Output(5);
+        length.writeVarint(batch.length);
+        out.write(length.toByteArray());
+        out.write(batch);
+    }
+
+    /**
+     * Reads the next frame of an upload, or returns null at the end of the stream. Frames longer than
+     * maxFrameBytes are rejected before they are buffered.
+     */
+    public static List<Sample> readFrame(InputStream in, int maxFrameBytes) throws IOException {
+        long length = 0;
+        for (int shift = 0; ; shift += 7) {
+            int b = in.read();
+            if (b < 0) {
+                if (shift == 0) {
+                    return null;
+                }
+                throw new EOFException("Sample upload ended inside a frame header");
+            }
+            if (shift > 28) {
+                throw new IllegalArgumentException("Malformed frame length");
+            }
+            length |= (long) (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+                break;
+            }
+        }
+        if (length > maxFrameBytes) {
+            throw new IllegalArgumentException("Sample batch of " + length + " bytes exceeds the limit of " + maxFrameBytes);
+        }
+        byte[] batch = in.readNBytes((int) length);
+        if (batch.length != length) {
+            throw new EOFException("Sample upload ended inside a batch");
+        }
+        return decode(batch);
+    }
+
+    private static void writeColumn(Output out, Long[] values) {
+        boolean complete = true;
+        for (Long value : values) {
+            complete &= value != null;
+        }
+        if (complete) {
+            out.write(0);
+        } else {
+            out.write(1);
+            byte[] presence = new byte[(values.length + 7) / 8];
+            for (int i = 0; i < values.length; i++) {
+                if (values[i] != null) {
+                    presence[i >> 3] |= (byte) (1 << (i & 7));
+                }
+            }
+            out.write(presence);
+        }
+        long previous = 0;
+        for (Long value : values) {
+            if (value != null) {
+                out.writeZigzag(value - previous);
+                previous = value;
+            }
+        }
+    }
+
+    private static Long[] readColumn(Input in, int count) {
+        int mode = in.read();
+        byte[] presence = null;
+        if (mode == 1) {
+            presence = in.readBytes((count + 7) / 8);
+        } else if (mode != 0) {
+            throw new IllegalArgumentException("Unknown column encoding " + mode);
+        }
+        Long[] values = new Long[count];
+        long previous = 0;
+        for (int i = 0; i < count; i++) {
+            if (presence == null || (presence[i >> 3] & (1 << (i & 7))) != 0) {
+                previous += in.readZigzag();
+                values[i] = previous;
+            }
+        }
+        return values;
+    }
+
+    private static final class Output {
+        private byte[] buffer;
+        private int size;
+
+        private Output(int capacity) {
+            buffer = new byte[capacity];
+        }
+
+        private void write(int b) {
+            if (size == buffer.length) {
+                buffer = Arrays.copyOf(buffer, buffer.length * 2);
+            }
+            buffer[size++] = (byte) b;
+        }
+
+        private void write(byte[] bytes) {
+            for (byte b : bytes) {
+                write(b);
+            }
+        }
+
+        private void writeVarint(long value) {
+            while ((value & ~0x7FL) != 0) {
+                write((int) ((value & 0x7F) | 0x80));
+                value >>>= 7;
+            }
+            write((int) value);
+        }
+
+        private void writeZigzag(long value) {
+            writeVarint((value << 1) ^ (value >> 63));
+        }
+
+        private byte[] toByteArray() {
+            return Arrays.copyOf(buffer, size);
+        }
+    }
+
+    private static final class Input {
+        private final byte[] data;
+        private int position;
+
+        private Input(byte[] data) {
+            this.data = data;
+        }
+
+        private int read() {
+            if (position >= data.length) {
+                throw new IllegalArgumentException("Sample batch is truncated");
+            }
+            return data[position++] & 0xFF;
+        }
+
+        private byte[] readBytes(int length) {
+            if (length > remaining()) {
+                throw new IllegalArgumentException("Sample batch is truncated");
+            }
+            byte[] bytes = Arrays.copyOfRange(data, position, position + length);
+            position += length;
+            return bytes;
+        }
+
+        private long readVarint() {
+            long value = 0;
+            for (int shift = 0; shift < 64; shift += 7) {
+                int b = read();
+                value |= (long) (b & 0x7F) << shift;
+                if ((b & 0x80) == 0) {
+                    return value;
+                }
+            }
+            throw new IllegalArgumentException("Malformed varint in sample batch");
+        }
+
+        private long readZigzag() {
+            long value = readVarint();
+            return (value >>> 1) ^ -(value & 1);
+        }
+
+        private int remaining() {
+            return data.length - position;
+        }
+    }
+}
@@ -0,0 +1,22 @@
+package com.fitness.common.user;
+
+import jakarta.validation.constraints.Email;
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.Size;
+
+public record RegisterRequest(
+
+        @Email(message = "Email should be valid")
+        @NotBlank(message = "Email is mandatory")
+        String email,
+
+        String keycloakId,
+
+        @NotBlank(message = "Password is mandatory")
+        @Size(min = 6, message = "Password must be atleast 6 digit")
+        String password,
+
+        String firstName,
+
+        String lastName) {
+}
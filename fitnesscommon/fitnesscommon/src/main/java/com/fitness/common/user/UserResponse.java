@@ -0,0 +1,14 @@
+package com.fitness.common.user;
+
+import java.time.LocalDateTime;
+
+public record UserResponse(
+        String id,
+        String keycloakId,
+        String email,
+        String password,
+        String firstName,
+        String lastName,
+        LocalDateTime createdAt,
+        LocalDateTime updatedAt) {
+}
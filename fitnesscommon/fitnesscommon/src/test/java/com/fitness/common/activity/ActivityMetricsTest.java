@@ -0,0 +1,48 @@
+package com.fitness.common.activity;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+class ActivityMetricsTest {
+
+    @Test
+    void readsWhatTheWebFormSends() {
+        ActivityMetrics metrics = ActivityMetrics.fromMap(Map.of("distance", "5.2 km", "heartRate", 148));
+
+        assertEquals(5.2, metrics.distanceKm());
+        assertEquals(148, metrics.avgHeartRate());
+        assertNull(metrics.other());
+    }
+
+    @Test
+    void keepsValuesThatAreNotNumbersInOther() {
+        Map<String, Object> values = new LinkedHashMap<>();
+        values.put("distance", "3 miles");
+        values.put("cadence", 172);
+        values.put("shoes", "trail");
+
+        ActivityMetrics metrics = ActivityMetrics.fromMap(values);
+
+        assertNull(metrics.distanceKm());
+        assertEquals(172, metrics.cadence());
+        assertEquals(Map.of("distance", "3 miles", "shoes", "trail"), metrics.other());
+    }
+
+    @Test
+    void isTheFlatObjectInJson() throws Exception {
+        ObjectMapper mapper = new ObjectMapper();
+
+        ActivityMetrics metrics = mapper.readValue("{\"distanceKm\":10.4,\"maxHeartRate\":181,\"indoor\":false}",
+                ActivityMetrics.class);
+
+        assertEquals(10.4, metrics.distanceKm());
+        assertEquals(181, metrics.maxHeartRate());
+        assertEquals("{\"maxHeartRate\":181,\"distanceKm\":10.4,\"indoor\":false}", mapper.writeValueAsString(metrics));
+    }
+}
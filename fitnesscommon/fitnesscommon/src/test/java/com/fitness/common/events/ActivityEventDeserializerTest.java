@@ -0,0 +1,78 @@
+package com.fitness.common.events;
+
+import com.fitness.common.activity.ActivityEvent;
+import com.fitness.common.activity.ActivityMetrics;
+import com.fitness.common.activity.ActivityType;
+import org.apache.avro.Schema;
+import org.apache.avro.SchemaBuilder;
+import org.apache.avro.generic.GenericData;
+import org.apache.avro.generic.GenericRecord;
+import org.apache.avro.message.BinaryMessageEncoder;
+import org.apache.kafka.common.errors.SerializationException;
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class ActivityEventDeserializerTest {
+
+    private final ActivityEventDeserializer deserializer = new ActivityEventDeserializer();
+
+    @Test
+    void readsWhatTheSerializerWrites() {
+        LocalDateTime start = LocalDateTime.of(2026, 3, 2, 7, 15, 30);
+        ActivityEvent event = new ActivityEvent("65f0c0ffee0000000000abcd", "user-1", ActivityType.CYCLING, 45, 410,
+                start, ActivityMetrics.fromMap(Map.of("distanceKm", 18.5, "avgHeartRate", 139L, "route", "river loop")), null, null);
+
+        ActivityEvent read = deserializer.deserialize("activity-events",
+                new ActivityEventSerializer().serialize("activity-events", event));
+
+        assertEquals(event, read);
+        assertNull(read.createdAt());
+    }
+
+    @Test
+    void promotesMetricsOfVersionOneMessages() throws Exception {
+        Schema v1 = ActivityEventSchemas.VERSIONS.get(0);
+        GenericRecord record = new GenericData.Record(v1);
+        record.put("userId", "user-1");
+        record.put("duration", 45);
+        record.put("caloriesBurned", 410);
+        record.put("metrics", Map.of("distanceKm", 18.5, "avgHeartRate", 139L, "route", "river loop"));
+        byte[] bytes = new BinaryMessageEncoder<GenericRecord>(GenericData.get(), v1).encode(record).array();
+
+        ActivityMetrics metrics = deserializer.deserialize("activity-events", bytes).additionalMatrics();
+
+        assertEquals(18.5, metrics.distanceKm());
+        assertEquals(139, metrics.avgHeartRate());
+        assertEquals(Map.of("route", "river loop"), metrics.other());
+    }
+
+    @Test
+    void readsJsonPublishedBeforeTheSwitch() {
+        String json = "{\"id\":\"a1\",\"userId\":\"user-1\",\"type\":\"YOGA\",\"duration\":30,\"caloriesBurned\":90,"
+                + "\"startTime\":\"2026-03-02T07:15:30\",\"additionalMatrics\":{\"mat\":\"cork\"}}";
+
+        ActivityEvent event = deserializer.deserialize("activity-events", json.getBytes(StandardCharsets.UTF_8));
+
+        assertEquals(ActivityType.YOGA, event.type());
+        assertEquals(LocalDateTime.of(2026, 3, 2, 7, 15, 30), event.startTime());
+        assertEquals(Map.of("mat", "cork"), event.additionalMatrics().other());
+    }
+
+    @Test
+    void rejectsSchemaItHasNoCopyOf() throws Exception {
+        Schema unknown = SchemaBuilder.record("ActivityEvent").namespace("com.fitness.events")
+                .fields().requiredString("userId").endRecord();
+        GenericRecord record = new GenericData.Record(unknown);
+        record.put("userId", "user-1");
+        byte[] bytes = new BinaryMessageEncoder<GenericRecord>(GenericData.get(), unknown).encode(record).array();
+
+        assertThrows(SerializationException.class, () -> deserializer.deserialize("activity-events", bytes));
+    }
+}
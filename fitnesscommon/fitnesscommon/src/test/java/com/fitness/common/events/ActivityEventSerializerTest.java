@@ -0,0 +1,62 @@
+package com.fitness.common.events;
+
+import com.fitness.common.activity.ActivityEvent;
+import com.fitness.common.activity.ActivityMetrics;
+import com.fitness.common.activity.ActivityType;
+import org.apache.avro.generic.GenericData;
+import org.apache.avro.generic.GenericRecord;
+import org.apache.avro.message.BinaryMessageDecoder;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+class ActivityEventSerializerTest {
+
+    private final ActivityEventSerializer serializer = new ActivityEventSerializer();
+
+    @Test
+    void allSchemaVersionsStayCompatible() {
+        assertEquals(List.of(), ActivityEventSchemas.incompatibleVersions());
+    }
+
+    @Test
+    void encodesActivityAsSingleObject() throws Exception {
+        LocalDateTime start = LocalDateTime.of(2026, 3, 2, 7, 15, 30);
+        Map<String, Object> metrics = new LinkedHashMap<>();
+        metrics.put("distanceKm", 5.2);
+        metrics.put("avgHeartRate", 148);
+        metrics.put("indoor", false);
+        metrics.put("splits", List.of(301, 298));
+        ActivityEvent event = new ActivityEvent("65f0c0ffee0000000000abcd", "user-1", ActivityType.RUNNING,
+                31, 320, start, ActivityMetrics.fromMap(metrics), null, null);
+
+        byte[] bytes = serializer.serialize("activity-events", event);
+
+        assertEquals((byte) 0xC3, bytes[0]);
+        assertEquals((byte) 0x01, bytes[1]);
+        GenericRecord record = new BinaryMessageDecoder<GenericRecord>(GenericData.get(), ActivityEventSchemas.CURRENT)
+                .decode(bytes);
+        assertEquals("user-1", record.get("userId").toString());
+        assertEquals("RUNNING", record.get("type").toString());
+        assertEquals(31, record.get("duration"));
+        assertEquals(start.toInstant(ZoneOffset.UTC).toEpochMilli(), record.get("startTime"));
+        assertNull(record.get("createdAt"));
+
+        assertEquals(5.2, record.get("distanceKm"));
+        assertEquals(148, record.get("avgHeartRate"));
+        assertNull(record.get("cadence"));
+
+        // only the metrics without a typed field are left in the map
+        Map<?, ?> encodedMetrics = (Map<?, ?>) record.get("metrics");
+        Map<String, Object> decoded = new LinkedHashMap<>();
+        encodedMetrics.forEach((k, v) -> decoded.put(k.toString(), v instanceof CharSequence ? v.toString() : v));
+        assertEquals(Map.of("indoor", false, "splits", "[301,298]"), decoded);
+    }
+}
@@ -0,0 +1,72 @@
+package com.fitness.common.samples;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class SampleBatchCodecTest {
+
+    private static final long START = 1_772_435_730_000L; // 2026-03-02T07:15:30Z
+
+    @Test
+    void roundTripsSamplesWithGaps() {
+        List<Sample> samples = List.of(
+                new Sample(START, 92, 52.5200066, 13.4049540, 34.2, 80),
+                new Sample(START + 1000, 95, null, null, null, 82),
+                new Sample(START + 2000, null, 52.5200310, 13.4050021, 34.5, null),
+                new Sample(START + 3000, 101, 52.5200592, 13.4050517, 34.1, 84));
+
+        assertEquals(samples, SampleBatchCodec.decode(SampleBatchCodec.encode(samples)));
+    }
+
+    @Test
+    void oneHertzHeartRateCostsAboutTwoBytesPerSample() {
+        List<Sample> samples = new ArrayList<>();
+        for (int i = 0; i < 3600; i++) {
+            samples.add(new Sample(START + i * 1000L, 120 + (i % 7) - 3, null, null, null, null));
+        }
+
+        byte[] encoded = SampleBatchCodec.encode(samples);
+
+        assertTrue(encoded.length < 3600 * 2 + 16, "encoded to " + encoded.length + " bytes");
+        assertEquals(samples, SampleBatchCodec.decode(encoded));
+    }
+
+    @Test
+    void readsFramesUntilTheEndOfTheUpload() throws Exception {
+        List<Sample> first = List.of(new Sample(START, 90, null, null, null, null));
+        List<Sample> second = List.of(new Sample(START + 1000, 91, null, null, null, null),
+                new Sample(START + 2000, 93, null, null, null, null));
+        ByteArrayOutputStream upload = new ByteArrayOutputStream();
+        SampleBatchCodec.writeFrame(upload, first);
+        SampleBatchCodec.writeFrame(upload, second);
+
+        ByteArrayInputStream in = new ByteArrayInputStream(upload.toByteArray());
+
+        assertEquals(first, SampleBatchCodec.readFrame(in, 1024));
+        assertEquals(second, SampleBatchCodec.readFrame(in, 1024));
+        assertNull(SampleBatchCodec.readFrame(in, 1024));
+    }
+
+    @Test
+    void rejectsTruncatedAndOversizedBatches() {
+        byte[] encoded = SampleBatchCodec.encode(List.of(new Sample(START, 90, 52.52, 13.40, null, null)));
+
+        assertThrows(IllegalArgumentException.class,
+                () -> SampleBatchCodec.decode(Arrays.copyOf(encoded, encoded.length - 1)));
+        assertThrows(IllegalArgumentException.class, () -> {
+            ByteArrayOutputStream upload = new ByteArrayOutputStream();
+            SampleBatchCodec.writeFrame(upload, List.of(new Sample(START, 90, null, null, null, null)));
+            SampleBatchCodec.readFrame(new ByteArrayInputStream(upload.toByteArray()), 4);
+        });
+    }
+}
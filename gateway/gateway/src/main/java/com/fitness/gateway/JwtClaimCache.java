@@ -0,0 +1,141 @@
+package com.fitness.gateway;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import com.nimbusds.jwt.JWTClaimsSet;
+import com.nimbusds.jwt.SignedJWT;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.oauth2.jwt.Jwt;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Base64;
+import java.util.Collections;
+import java.util.Date;
+
+/**
+ * Holds the user claims of tokens the gateway has already seen, keyed by a SHA-256 of the raw token
+ * and kept until the token's own {@code exp}.
+ * The resource-server decoder feeds it once per token after signature verification, so the
+ * sync filter no longer has to parse the JWT again on every request.
+ */
+@Component
+@Slf4j
+public class JwtClaimCache {
+
+    private static final String BEARER_PREFIX = "Bearer";
+
+    private final Cache<String, UserClaims> cache;
+
+    public JwtClaimCache(MeterRegistry meterRegistry,
+                         @Value("${gateway.jwt-cache.maximum-size:50000}") long maximumSize,
+                         @Value("${gateway.jwt-cache.default-ttl:5m}") Duration defaultTtl) {
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfter(new Expiry<String, UserClaims>() {
+                    @Override
+                    public long expireAfterCreate(String key, UserClaims claims, long currentTime) {
+                        if (claims.expiresAt() == null) {
+                            return defaultTtl.toNanos();
+                        }
+                        return Math.max(0, Duration.between(Instant.now(), claims.expiresAt()).toNanos());
+                    }
+
+                    @Override
+                    public long expireAfterUpdate(String key, UserClaims claims, long currentTime, long currentDuration) {
+                        return expireAfterCreate(key, claims, currentTime);
+                    }
+
+                    @Override
+                    public long expireAfterRead(String key, UserClaims claims, long currentTime, long currentDuration) {
+                        return currentDuration;
+                    }
+                })
+                .recordStats()
+                .build();
+
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, "gateway.jwt-claims", Collections.emptyList());
+    }
+
+    /**
+     * Called by the resource-server decoder once the token signature has been verified.
+     */
+    public void put(String token, Jwt jwt) {
+        cache.put(hash(token), new UserClaims(
+                jwt.getSubject(),
+                jwt.getClaimAsString("email"),
+                jwt.getClaimAsString("given_name"),
+                jwt.getClaimAsString("family_name"),
+                jwt.getExpiresAt()));
+    }
+
+    /**
+     * Returns the claims for an {@code Authorization} header value, parsing the token only when
+     * it has not been seen before. Returns null when the header does not carry a readable JWT.
+     */
+    public UserClaims claimsFor(String authorizationHeader) {
+        String token = stripBearer(authorizationHeader);
+        if (token == null) {
+            return null;
+        }
+        return cache.get(hash(token), key -> parse(token));
+    }
+
+    static String stripBearer(String authorizationHeader) {
+        if (authorizationHeader == null) {
+            return null;
+        }
+        String token = authorizationHeader;
+        if (token.regionMatches(true, 0, BEARER_PREFIX, 0, BEARER_PREFIX.length())
+                && token.length() > BEARER_PREFIX.length()
+                && Character.isWhitespace(token.charAt(BEARER_PREFIX.length()))) {
+            token = token.substring(BEARER_PREFIX.length());
+        }
+        token = token.trim();
+        return token.isEmpty() ? null : token;
+    }
+
+    private UserClaims parse(String token) {
+        try {
+            JWTClaimsSet claims = SignedJWT.parse(token).getJWTClaimsSet();
+            if (claims == null) {
+                log.warn("JWT claims are null");
+                return null;
+            }
+            if (claims.getSubject() == null) {
+                log.warn("`sub` claim is null — full claims: {}", claims.toJSONObject());
+            }
+            Date expiration = claims.getExpirationTime();
+            return new UserClaims(
+                    claims.getSubject(),
+                    claims.getStringClaim("email"),
+                    claims.getStringClaim("given_name"),
+                    claims.getStringClaim("family_name"),
+                    expiration == null ? null : expiration.toInstant());
+        } catch (Exception e) {
+            log.warn("Failed to parse JWT from Authorization header: {}", e.getMessage());
+            return null;
+        }
+    }
+
+    private static String hash(String token) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            byte[] bytes = digest.digest(token.getBytes(StandardCharsets.US_ASCII));
+            return Base64.getUrlEncoder().withoutPadding().encodeToString(bytes);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+
+    public record UserClaims(String subject, String email, String firstName, String lastName, Instant expiresAt) {
+    }
+}
@@ -1,10 +1,9 @@
 // java
 package com.fitness.gateway;
 
-import com.fitness.gateway.user.RegisterRequest;
+import com.fitness.common.user.RegisterRequest;
+import com.fitness.gateway.user.UserExistenceCache;
 import com.fitness.gateway.user.UserService;
-import com.nimbusds.jwt.JWTClaimsSet;
-import com.nimbusds.jwt.SignedJWT;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.http.server.reactive.ServerHttpRequest;
@@ -12,16 +11,30 @@ import org.springframework.stereotype.Component;
 import org.springframework.web.server.ServerWebExchange;
 import org.springframework.web.server.WebFilter;
 import org.springframework.web.server.WebFilterChain;
+import org.springframework.web.util.UriComponentsBuilder;
+import org.springframework.web.util.pattern.PathPattern;
+import org.springframework.web.util.pattern.PathPatternParser;
 import reactor.core.publisher.Mono;
 
+import java.net.URI;
+
 @Component
 @Slf4j
 @RequiredArgsConstructor
 public class KeycloakUserSyncFilter implements WebFilter {
     private final UserService userService;
+    private final UserExistenceCache userExistenceCache;
+    private final JwtClaimCache jwtClaimCache;
+
+    static final PathPattern RECOMMENDATION_STREAM =
+            PathPatternParser.defaultInstance.parse("/api/recommendations/stream");
 
     @Override
     public Mono<Void> filter(ServerWebExchange exchange, WebFilterChain chain) {
+        if (RECOMMENDATION_STREAM.matches(exchange.getRequest().getPath().pathWithinApplication())) {
+            return filterStream(exchange, chain);
+        }
+
         String token = exchange.getRequest().getHeaders().getFirst("Authorization");
         String userId = exchange.getRequest().getHeaders().getFirst("X-User-ID");
 
@@ -32,15 +45,17 @@ public class KeycloakUserSyncFilter implements WebFilter {
         RegisterRequest registerRequest = getUserDetails(token);
 
         if (userId == null && registerRequest != null) {
-            userId = registerRequest.getKeycloakId();
+            userId = registerRequest.keycloakId();
         }
 
         if (userId != null) {
             String finalUserId = userId;
-            return userService.validateUser(finalUserId)
+            return userExistenceCache.exists(finalUserId)
                     .flatMap(exist -> {
                         if (!exist && registerRequest != null) {
-                            return userService.registerUser(registerRequest).then();
+                            return userService.registerUser(registerRequest)
+                                    .doOnSuccess(registered -> userExistenceCache.markExists(finalUserId))
+                                    .then();
                         } else {
                             log.info("User already exists or no register details, skipping sync.");
                             return Mono.empty();
@@ -57,51 +72,36 @@ public class KeycloakUserSyncFilter implements WebFilter {
         return chain.filter(exchange);
     }
 
-    private RegisterRequest getUserDetails(String token) {
+    // The stream may carry its token as ?access_token= (EventSource cannot send headers). Its owner always
+    // comes from that verified token, whatever X-User-ID the client sent, and the token is not forwarded.
+    private Mono<Void> filterStream(ServerWebExchange exchange, WebFilterChain chain) {
+        ServerHttpRequest request = exchange.getRequest();
+        String token = request.getHeaders().getFirst("Authorization");
         if (token == null) {
-            return null;
+            token = request.getQueryParams().getFirst("access_token");
         }
-        try {
-            String tokenWithoutBearer = token.replaceAll("(?i)^Bearer\\s+", "").trim();
-            if (tokenWithoutBearer.isEmpty()) {
-                return null;
-            }
-            SignedJWT signedJWT = SignedJWT.parse(tokenWithoutBearer);
-            JWTClaimsSet claims = signedJWT.getJWTClaimsSet();
+        JwtClaimCache.UserClaims claims = token == null ? null : jwtClaimCache.claimsFor(token);
 
-            if (claims == null) {
-                log.warn("JWT claims are null");
-                return null;
-            }
-
-            RegisterRequest registerRequest = new RegisterRequest();
-            registerRequest.setEmail(claims.getStringClaim("email"));
-
-            String sub = claims.getSubject();
-            if (sub == null) {
-                try {
-                    Object raw = claims.getClaim("sub");
-                    if (raw != null) {
-                        sub = String.valueOf(raw);
+        URI uri = UriComponentsBuilder.fromUri(request.getURI()).replaceQueryParam("access_token").build(true).toUri();
+        ServerHttpRequest mutatedRequest = request.mutate()
+                .uri(uri)
+                .headers(headers -> {
+                    headers.remove("X-User-ID");
+                    if (claims != null && claims.subject() != null) {
+                        headers.set("X-User-ID", claims.subject());
                     }
-                } catch (Exception ex) {
-                    // ignore fallback error
-                }
-            }
-
-            if (sub == null) {
-                log.warn("`sub` claim is null — full claims: {}", claims.toJSONObject());
-            } else {
-                registerRequest.setKeycloakId(sub);
-            }
+                })
+                .build();
+        return chain.filter(exchange.mutate().request(mutatedRequest).build());
+    }
 
-            registerRequest.setPassword("dummy@123123");
-            registerRequest.setFirstName(claims.getStringClaim("given_name"));
-            registerRequest.setLastName(claims.getStringClaim("family_name"));
-            return registerRequest;
-        } catch (Exception e) {
-            log.warn("Failed to parse JWT from Authorization header: {}", e.getMessage());
+    private RegisterRequest getUserDetails(String token) {
+        JwtClaimCache.UserClaims claims = jwtClaimCache.claimsFor(token);
+        if (claims == null) {
             return null;
         }
+
+        return new RegisterRequest(claims.email(), claims.subject(), "dummy@123123",
+                claims.firstName(), claims.lastName());
     }
 }
@@ -1,12 +1,18 @@
 package com.fitness.gateway;
 
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.security.config.Customizer;
 import org.springframework.security.config.annotation.web.configuration.EnableWebSecurity;
 import org.springframework.security.config.annotation.web.reactive.EnableWebFluxSecurity;
 import org.springframework.security.config.web.server.ServerHttpSecurity;
+import org.springframework.security.oauth2.jwt.NimbusReactiveJwtDecoder;
+import org.springframework.security.oauth2.jwt.ReactiveJwtDecoder;
+import org.springframework.security.oauth2.server.resource.web.server.authentication.ServerBearerTokenAuthenticationConverter;
 import org.springframework.security.web.SecurityFilterChain;
 import org.springframework.security.web.server.SecurityWebFilterChain;
+import org.springframework.security.web.server.authentication.ServerAuthenticationConverter;
 
 import org.springframework.context.annotation.Bean;
 
@@ -19,10 +25,30 @@ import java.util.List;
 @Configuration
 @EnableWebFluxSecurity
 public class SecurityConfig {
+    @Bean
+    @ConditionalOnProperty("spring.security.oauth2.resourceserver.jwt.jwk-set-uri")
     SecurityWebFilterChain springSecurityFilterChain(ServerHttpSecurity http) {
-        return http.csrf(ServerHttpSecurity.CsrfSpec::disable).authorizeExchange( exchange -> exchange.anyExchange().authenticated()).oauth2ResourceServer(oauth2 -> oauth2.jwt(Customizer.withDefaults())).build();
+        return http.csrf(ServerHttpSecurity.CsrfSpec::disable).authorizeExchange( exchange -> exchange.anyExchange().authenticated()).oauth2ResourceServer(oauth2 -> oauth2.bearerTokenConverter(bearerTokenConverter()).jwt(Customizer.withDefaults())).build();
+    }
+
+    // EventSource cannot send an Authorization header, so the recommendation stream alone also takes ?access_token=
+    private static ServerAuthenticationConverter bearerTokenConverter() {
+        ServerBearerTokenAuthenticationConverter headerOnly = new ServerBearerTokenAuthenticationConverter();
+        ServerBearerTokenAuthenticationConverter headerOrQuery = new ServerBearerTokenAuthenticationConverter();
+        headerOrQuery.setAllowUriQueryParameter(true);
+        return exchange -> KeycloakUserSyncFilter.RECOMMENDATION_STREAM.matches(exchange.getRequest().getPath().pathWithinApplication())
+                ? headerOrQuery.convert(exchange)
+                : headerOnly.convert(exchange);
     }
 
+    // Verified tokens are handed to the claim cache so KeycloakUserSyncFilter does not parse them again
+    @Bean
+    @ConditionalOnProperty("spring.security.oauth2.resourceserver.jwt.jwk-set-uri")
+    public ReactiveJwtDecoder jwtDecoder(@Value("${spring.security.oauth2.resourceserver.jwt.jwk-set-uri}") String jwkSetUri,
+                                         JwtClaimCache jwtClaimCache) {
+        NimbusReactiveJwtDecoder delegate = NimbusReactiveJwtDecoder.withJwkSetUri(jwkSetUri).build();
+        return token -> delegate.decode(token).doOnNext(jwt -> jwtClaimCache.put(token, jwt));
+    }
 
     @Bean
     public CorsConfigurationSource corsConfigurationSource() {
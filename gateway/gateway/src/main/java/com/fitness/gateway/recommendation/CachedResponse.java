@@ -0,0 +1,8 @@
+package com.fitness.gateway.recommendation;
+
+import org.springframework.http.HttpStatusCode;
+import org.springframework.http.MediaType;
+
+// A complete upstream response; etag is only set for 200 responses, which are the only ones kept in the cache
+public record CachedResponse(HttpStatusCode status, MediaType contentType, byte[] body, String etag) {
+}
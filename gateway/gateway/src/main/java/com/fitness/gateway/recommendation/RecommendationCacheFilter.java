@@ -0,0 +1,171 @@
+package com.fitness.gateway.recommendation;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.reactivestreams.Publisher;
+import org.springframework.cloud.gateway.filter.GatewayFilterChain;
+import org.springframework.cloud.gateway.filter.GlobalFilter;
+import org.springframework.cloud.gateway.filter.NettyWriteResponseFilter;
+import org.springframework.core.Ordered;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferUtils;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.HttpStatusCode;
+import org.springframework.http.server.reactive.ServerHttpRequest;
+import org.springframework.http.server.reactive.ServerHttpResponse;
+import org.springframework.http.server.reactive.ServerHttpResponseDecorator;
+import org.springframework.stereotype.Component;
+import org.springframework.util.DigestUtils;
+import org.springframework.web.server.ServerWebExchange;
+import org.springframework.web.util.pattern.PathPattern;
+import org.springframework.web.util.pattern.PathPatternParser;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Serves GET /api/recommendations/user/{userId} from RecommendationResponseCache. Responses carry an ETag
+ * and "Cache-Control: private, no-cache", so a polling browser revalidates with If-None-Match and gets a 304
+ * without reaching ai-service. On a miss one request per user goes upstream and concurrent ones share its
+ * response. Runs after security and KeycloakUserSyncFilter, which are web filters.
+ */
+@Component
+@Slf4j
+public class RecommendationCacheFilter implements GlobalFilter, Ordered {
+
+    private static final PathPattern USER_RECOMMENDATIONS =
+            PathPatternParser.defaultInstance.parse("/api/recommendations/user/{userId}");
+    private static final String CACHE_CONTROL = "private, no-cache";
+
+    private final RecommendationResponseCache cache;
+    private final Counter hits;
+    private final Counter notModified;
+    private final Counter coalesced;
+    private final Counter misses;
+
+    public RecommendationCacheFilter(RecommendationResponseCache cache, MeterRegistry meterRegistry) {
+        this.cache = cache;
+        this.hits = meterRegistry.counter("gateway.recommendation-cache.requests", "result", "hit");
+        this.notModified = meterRegistry.counter("gateway.recommendation-cache.requests", "result", "not-modified");
+        this.coalesced = meterRegistry.counter("gateway.recommendation-cache.requests", "result", "coalesced");
+        this.misses = meterRegistry.counter("gateway.recommendation-cache.requests", "result", "miss");
+    }
+
+    @Override
+    public Mono<Void> filter(ServerWebExchange exchange, GatewayFilterChain chain) {
+        ServerHttpRequest request = exchange.getRequest();
+        if (request.getMethod() != HttpMethod.GET) {
+            return chain.filter(exchange);
+        }
+        PathPattern.PathMatchInfo match = USER_RECOMMENDATIONS.matchAndExtract(request.getPath().pathWithinApplication());
+        if (match == null) {
+            return chain.filter(exchange);
+        }
+        String userId = match.getUriVariables().get("userId");
+
+        CachedResponse cached = cache.get(userId);
+        if (cached != null) {
+            hits.increment();
+            return write(request, exchange.getResponse(), cached);
+        }
+
+        RecommendationResponseCache.Fetch fetch = cache.join(userId);
+        if (!fetch.leader()) {
+            coalesced.increment();
+            return fetch.result().asMono()
+                    .map(Optional::of)
+                    .defaultIfEmpty(Optional.empty())
+                    .flatMap(shared -> shared.isPresent()
+                            ? write(request, exchange.getResponse(), shared.get())
+                            : chain.filter(exchange));
+        }
+
+        misses.increment();
+        CapturingResponse response = new CapturingResponse(exchange, userId, fetch.result());
+        return chain.filter(exchange.mutate().response(response).build())
+                // no-op once the response was captured; otherwise releases the requests waiting on it
+                .doFinally(signal -> cache.abandon(userId, fetch.result()));
+    }
+
+    @Override
+    public int getOrder() {
+        // must wrap the response before NettyWriteResponseFilter writes the upstream body to it
+        return NettyWriteResponseFilter.WRITE_RESPONSE_FILTER_ORDER - 1;
+    }
+
+    private Mono<Void> write(ServerHttpRequest request, ServerHttpResponse response, CachedResponse cached) {
+        HttpHeaders headers = response.getHeaders();
+        if (cached.etag() != null) {
+            headers.setETag(cached.etag());
+            headers.setCacheControl(CACHE_CONTROL);
+            if (matches(request.getHeaders().getIfNoneMatch(), cached.etag())) {
+                notModified.increment();
+                headers.remove(HttpHeaders.CONTENT_LENGTH);
+                headers.remove(HttpHeaders.TRANSFER_ENCODING);
+                response.setStatusCode(HttpStatus.NOT_MODIFIED);
+                return response.setComplete();
+            }
+        }
+        response.setStatusCode(cached.status());
+        headers.remove(HttpHeaders.TRANSFER_ENCODING);
+        if (cached.contentType() != null) {
+            headers.setContentType(cached.contentType());
+        }
+        headers.setContentLength(cached.body().length);
+        return response.writeWith(Mono.just(response.bufferFactory().wrap(cached.body())));
+    }
+
+    private static boolean matches(List<String> ifNoneMatch, String etag) {
+        for (String candidate : ifNoneMatch) {
+            if ("*".equals(candidate) || etag.equals(candidate) || ("W/" + etag).equals(candidate)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    // Same format as Spring's ShallowEtagHeaderFilter
+    private static String etagFor(byte[] body) {
+        return "\"0" + DigestUtils.md5DigestAsHex(body) + "\"";
+    }
+
+    // Buffers the upstream body of the leading request, shares it, then answers the leader like a cache hit
+    private class CapturingResponse extends ServerHttpResponseDecorator {
+
+        private final ServerHttpRequest request;
+        private final String userId;
+        private final Sinks.One<CachedResponse> result;
+
+        CapturingResponse(ServerWebExchange exchange, String userId, Sinks.One<CachedResponse> result) {
+            super(exchange.getResponse());
+            this.request = exchange.getRequest();
+            this.userId = userId;
+            this.result = result;
+        }
+
+        @Override
+        public Mono<Void> writeWith(Publisher<? extends DataBuffer> body) {
+            return DataBufferUtils.join(Flux.from(body))
+                    .map(joined -> {
+                        byte[] bytes = new byte[joined.readableByteCount()];
+                        joined.read(bytes);
+                        DataBufferUtils.release(joined);
+                        return bytes;
+                    })
+                    .defaultIfEmpty(new byte[0])
+                    .flatMap(bytes -> {
+                        HttpStatusCode status = getStatusCode() != null ? getStatusCode() : HttpStatus.OK;
+                        CachedResponse captured = new CachedResponse(status, getHeaders().getContentType(), bytes,
+                                status.isSameCodeAs(HttpStatus.OK) ? etagFor(bytes) : null);
+                        cache.complete(userId, result, captured);
+                        return write(request, getDelegate(), captured);
+                    });
+        }
+    }
+}
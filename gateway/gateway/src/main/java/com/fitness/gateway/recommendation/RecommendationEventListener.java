@@ -0,0 +1,40 @@
+package com.fitness.gateway.recommendation;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.springframework.kafka.annotation.KafkaListener;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+/**
+ * Drops a user's cached recommendations when ai-service stores a new one. Only the record key (userId) is
+ * read. Every gateway instance has its own cache, so each one consumes the topic in a group of its own,
+ * starting from the latest offset. The group is named after the instance (eureka.instance.instance-id, else
+ * host and port), so a restarted instance reuses its group instead of leaving a new one behind each time.
+ */
+@Component
+@Slf4j
+@RequiredArgsConstructor
+public class RecommendationEventListener {
+
+    private final RecommendationResponseCache cache;
+
+    @KafkaListener(topics = "${gateway.recommendation-cache.topic:recommendation-events}",
+            groupId = "${gateway.recommendation-cache.consumer-group:${spring.application.name}-recommendations-${eureka.instance.instance-id:${spring.cloud.client.hostname}-${server.port:8080}}}",
+            batch = "true",
+            properties = {
+                    "auto.offset.reset=latest",
+                    "key.deserializer=org.apache.kafka.common.serialization.StringDeserializer",
+                    "value.deserializer=org.apache.kafka.common.serialization.ByteArrayDeserializer"
+            })
+    public void onRecommendations(List<ConsumerRecord<String, byte[]>> records) {
+        for (ConsumerRecord<String, byte[]> record : records) {
+            if (record.key() != null) {
+                cache.invalidate(record.key());
+            }
+        }
+        log.debug("Invalidated cached recommendations for {} events", records.size());
+    }
+}
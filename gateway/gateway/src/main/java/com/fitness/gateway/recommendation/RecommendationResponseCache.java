@@ -0,0 +1,84 @@
+package com.fitness.gateway.recommendation;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Sinks;
+
+import java.time.Duration;
+import java.util.Collections;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * GET /api/recommendations/user/{userId} responses per user, plus the upstream call currently in flight for
+ * each user so that concurrent identical GETs wait for it instead of calling ai-service themselves.
+ * Entries are dropped when recommendation-events reports a new recommendation for the user; the TTL only
+ * bounds staleness if an event is lost.
+ */
+@Component
+@Slf4j
+public class RecommendationResponseCache {
+
+    private final Cache<String, CachedResponse> cache;
+    private final Map<String, Sinks.One<CachedResponse>> inFlight = new ConcurrentHashMap<>();
+    private final int maxBodyBytes;
+
+    public RecommendationResponseCache(MeterRegistry meterRegistry,
+                                       @Value("${gateway.recommendation-cache.maximum-size:50000}") long maximumSize,
+                                       @Value("${gateway.recommendation-cache.ttl:10m}") Duration ttl,
+                                       @Value("${gateway.recommendation-cache.max-body-bytes:1048576}") int maxBodyBytes) {
+        this.maxBodyBytes = maxBodyBytes;
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfterWrite(ttl)
+                .recordStats()
+                .build();
+
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, "gateway.recommendation-responses", Collections.emptyList());
+    }
+
+    public CachedResponse get(String userId) {
+        return cache.getIfPresent(userId);
+    }
+
+    /**
+     * Joins the upstream call for this user. The leader makes the call and must finish it with complete or
+     * abandon; everyone else waits on the returned sink.
+     */
+    public Fetch join(String userId) {
+        Sinks.One<CachedResponse> created = Sinks.one();
+        Sinks.One<CachedResponse> existing = inFlight.putIfAbsent(userId, created);
+        return existing == null ? new Fetch(true, created) : new Fetch(false, existing);
+    }
+
+    public void complete(String userId, Sinks.One<CachedResponse> result, CachedResponse response) {
+        // not in inFlight any more means the user was invalidated while the call ran: hand the answer to
+        // the requests that were waiting, but do not keep it
+        if (inFlight.remove(userId, result) && response.status().isSameCodeAs(HttpStatus.OK)
+                && response.body().length <= maxBodyBytes) {
+            cache.put(userId, response);
+        }
+        result.tryEmitValue(response);
+    }
+
+    // The leader got no response to share; waiting requests go upstream on their own
+    public void abandon(String userId, Sinks.One<CachedResponse> result) {
+        inFlight.remove(userId, result);
+        result.tryEmitEmpty();
+    }
+
+    public void invalidate(String userId) {
+        log.debug("Invalidating cached recommendations of user {}", userId);
+        cache.invalidate(userId);
+        inFlight.remove(userId);
+    }
+
+    public record Fetch(boolean leader, Sinks.One<CachedResponse> result) {
+    }
+}
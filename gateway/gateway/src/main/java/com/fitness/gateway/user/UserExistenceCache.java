@@ -0,0 +1,76 @@
+package com.fitness.gateway.user;
+
+import com.github.benmanes.caffeine.cache.AsyncCache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.Collections;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Keeps the keycloak ids the gateway has already validated against USER-SERVICE so that
+ * authenticated requests do not pay an extra round trip each time.
+ * Concurrent lookups for the same id share one upstream call, and "not found" answers are
+ * kept for a much shorter time than positive ones so a freshly registered user is picked up quickly.
+ */
+@Component
+@Slf4j
+public class UserExistenceCache {
+
+    private final UserService userService;
+    private final AsyncCache<String, Boolean> cache;
+
+    public UserExistenceCache(UserService userService,
+                              MeterRegistry meterRegistry,
+                              @Value("${gateway.user-cache.maximum-size:100000}") long maximumSize,
+                              @Value("${gateway.user-cache.positive-ttl:10m}") Duration positiveTtl,
+                              @Value("${gateway.user-cache.negative-ttl:5s}") Duration negativeTtl) {
+        this.userService = userService;
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfter(new Expiry<String, Boolean>() {
+                    @Override
+                    public long expireAfterCreate(String key, Boolean exists, long currentTime) {
+                        return (Boolean.TRUE.equals(exists) ? positiveTtl : negativeTtl).toNanos();
+                    }
+
+                    @Override
+                    public long expireAfterUpdate(String key, Boolean exists, long currentTime, long currentDuration) {
+                        return expireAfterCreate(key, exists, currentTime);
+                    }
+
+                    @Override
+                    public long expireAfterRead(String key, Boolean exists, long currentTime, long currentDuration) {
+                        return currentDuration;
+                    }
+                })
+                .recordStats()
+                .buildAsync();
+
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, "gateway.user-existence", Collections.emptyList());
+    }
+
+    public Mono<Boolean> exists(String userId) {
+        // Failed lookups complete the future exceptionally, which Caffeine drops instead of caching.
+        // suppressCancel: the future is shared, so one caller going away must not fail the others waiting on it.
+        return Mono.fromFuture(cache.get(userId, (id, executor) -> {
+            log.debug("User existence cache miss for userId: {}", id);
+            return userService.validateUser(id).toFuture();
+        }), true);
+    }
+
+    public void markExists(String userId) {
+        cache.put(userId, CompletableFuture.completedFuture(Boolean.TRUE));
+    }
+
+    public void invalidate(String userId) {
+        cache.synchronous().invalidate(userId);
+    }
+}
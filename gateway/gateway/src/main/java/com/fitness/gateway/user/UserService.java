@@ -1,25 +1,147 @@
 package com.fitness.gateway.user;
 
+import com.fitness.common.user.RegisterRequest;
+import com.fitness.common.user.UserResponse;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.ParameterizedTypeReference;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.HttpStatusCode;
 import org.springframework.stereotype.Service;
 import org.springframework.web.reactive.function.client.WebClient;
 import org.springframework.web.reactive.function.client.WebClientException;
 import org.springframework.web.reactive.function.client.WebClientResponseException;
+import reactor.core.Disposable;
 import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 
 @Service
 @Slf4j
 @RequiredArgsConstructor
 public class UserService {
 
+    private static final ParameterizedTypeReference<Map<String, Boolean>> VALIDATION_RESULT = new ParameterizedTypeReference<>() {
+    };
+
     @Autowired
     private WebClient userServiceWebClient;
 
+    @Value("${gateway.user-validation.batch-max-size:100}")
+    private int maxItems;
+
+    @Value("${gateway.user-validation.batch-max-wait:5ms}")
+    private Duration maxWait;
+
+    @Value("${gateway.user-validation.batch-concurrency:4}")
+    private int concurrency;
+
+    @Value("${gateway.user-validation.timeout:2s}")
+    private Duration timeout;
+
+    private final Map<String, Mono<UserResponse>> registrationsInFlight = new ConcurrentHashMap<>();
+    // filters on several event loops submit concurrently; the unsafe unicast sink needs serialized emissions
+    private final Object emitLock = new Object();
+    // lookups handed to the pipeline and not answered yet, failed if the pipeline ends
+    private final Set<PendingValidation> unanswered = ConcurrentHashMap.newKeySet();
+    private Sinks.Many<PendingValidation> pending;
+    private Disposable subscription;
+
+    @PostConstruct
+    void start() {
+        pending = Sinks.unsafe().many().unicast().onBackpressureBuffer();
+        subscription = pending.asFlux()
+                // fair: while every batch is in flight, lookups wait in the buffer instead of overflowing it
+                .bufferTimeout(maxItems, maxWait, true)
+                .flatMap(this::validateBatch, concurrency)
+                .subscribe(null, this::restart);
+    }
+
+    @PreDestroy
+    void stop() {
+        synchronized (emitLock) {
+            failUnanswered(new IllegalStateException("User validation is shutting down"));
+            subscription.dispose();
+        }
+    }
+
+    // Lookups of different ids arriving within gateway.user-validation.batch-max-wait share one bulk call;
+    // UserExistenceCache already collapses lookups of the same id
     public Mono<Boolean> validateUser(String userId) {
+        PendingValidation item = new PendingValidation(userId, Sinks.one());
+        Sinks.EmitResult emitted;
+        synchronized (emitLock) {
+            unanswered.add(item);
+            emitted = pending.tryEmitNext(item);
+        }
+        if (emitted.isFailure()) {
+            unanswered.remove(item);
+            return Mono.error(new RuntimeException("User validation unavailable: " + emitted));
+        }
+        return item.result().asMono();
+    }
+
+    // Only a bug gets here, validateBatch absorbs upstream errors; a dead pipeline would fail every later lookup
+    private void restart(Throwable error) {
+        log.error("User validation pipeline failed, restarting it", error);
+        synchronized (emitLock) {
+            failUnanswered(error);
+            start();
+        }
+    }
+
+    private void failUnanswered(Throwable error) {
+        unanswered.forEach(item -> item.result().tryEmitError(error));
+        unanswered.clear();
+    }
+
+    public Mono<Map<String, Boolean>> validateUsers(Collection<String> userIds) {
+        log.info("Calling bulk User Validation API for {} userIds", userIds.size());
+        return userServiceWebClient.post()
+                .uri("/api/users/validate")
+                .bodyValue(userIds)
+                .retrieve()
+                .bodyToMono(VALIDATION_RESULT)
+                .onErrorResume(WebClientResponseException.class,
+                        e -> Mono.error(new RuntimeException("Unexpected error: " + e.getMessage())));
+    }
+
+    private Mono<Void> validateBatch(List<PendingValidation> batch) {
+        Mono<Map<String, Boolean>> found;
+        if (batch.size() == 1) {
+            String userId = batch.get(0).userId();
+            found = validateSingleUser(userId).map(exists -> Map.of(userId, exists));
+        } else {
+            Set<String> userIds = new LinkedHashSet<>();
+            batch.forEach(item -> userIds.add(item.userId()));
+            found = validateUsers(userIds);
+        }
+
+        return found
+                // a hung USER-SERVICE would otherwise hold a batch slot, and the lookups behind it, forever
+                .timeout(timeout)
+                .defaultIfEmpty(Map.of())
+                .doOnNext(results -> batch.forEach(item ->
+                        item.result().tryEmitValue(Boolean.TRUE.equals(results.get(item.userId())))))
+                // failed lookups reach every caller as an error, so UserExistenceCache does not keep them
+                .doOnError(e -> batch.forEach(item -> item.result().tryEmitError(e)))
+                .onErrorResume(e -> Mono.empty())
+                .doFinally(signal -> batch.forEach(unanswered::remove))
+                .then();
+    }
+
+    private Mono<Boolean> validateSingleUser(String userId) {
         log.info("Calling User Validation API for userId: {}", userId);
         return userServiceWebClient.get()
                 .uri("/api/users/{userId}/validate", userId)
@@ -35,9 +157,23 @@ public class UserService {
     }
 
 
-    public Mono<UserResponse>  registerUser(RegisterRequest registerRequest) {
+    /**
+     * The first requests of a new user arrive together, and each finds the user missing. Registrations
+     * for the same keycloakId share one call to USER-SERVICE while it is in flight.
+     */
+    public Mono<UserResponse> registerUser(RegisterRequest registerRequest) {
+        String keycloakId = registerRequest.keycloakId();
+        if (keycloakId == null) {
+            return sendRegistration(registerRequest);
+        }
+        return Mono.defer(() -> registrationsInFlight.computeIfAbsent(keycloakId, id -> sendRegistration(registerRequest)
+                // runs after every subscriber of the cached result has been notified
+                .doFinally(signal -> registrationsInFlight.remove(id))
+                .cache()));
+    }
 
-        log.info("Registering user in User Service: {}", registerRequest.getEmail());
+    private Mono<UserResponse> sendRegistration(RegisterRequest registerRequest) {
+        log.info("Registering user in User Service: {}", registerRequest.email());
         return userServiceWebClient.post()
                 .uri("/api/users/register")
                 .bodyValue(registerRequest)
@@ -48,4 +184,7 @@ public class UserService {
                     return Mono.error(new RuntimeException("Error registering user: " + e.getMessage()));
                 });
     }
+
+    private record PendingValidation(String userId, Sinks.One<Boolean> result) {
+    }
 }
@@ -0,0 +1,59 @@
+package com.fitness.gateway;
+
+import com.fitness.gateway.user.UserExistenceCache;
+import com.fitness.gateway.user.UserService;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+import org.springframework.mock.http.server.reactive.MockServerHttpRequest;
+import org.springframework.mock.web.server.MockServerWebExchange;
+import org.springframework.security.oauth2.jwt.Jwt;
+import org.springframework.web.server.ServerWebExchange;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class KeycloakUserSyncFilterTest {
+
+    private static final String TOKEN = "header.payload.signature";
+
+    private final JwtClaimCache jwtClaimCache = new JwtClaimCache(new SimpleMeterRegistry(), 100, Duration.ofMinutes(5));
+    private final KeycloakUserSyncFilter filter = new KeycloakUserSyncFilter(
+            Mockito.mock(UserService.class), Mockito.mock(UserExistenceCache.class), jwtClaimCache);
+
+    @Test
+    void streamOwnerComesFromTheQueryTokenNotTheClientHeader() {
+        // what the resource-server decoder stores after verifying the signature
+        jwtClaimCache.put(TOKEN, Jwt.withTokenValue(TOKEN).header("alg", "RS256").subject("u-1")
+                .expiresAt(Instant.now().plusSeconds(300)).build());
+        MockServerWebExchange exchange = MockServerWebExchange.from(MockServerHttpRequest
+                .get("/api/recommendations/stream?userId=u-2&access_token=" + TOKEN)
+                .header("X-User-ID", "u-2"));
+
+        ServerWebExchange forwarded = forward(exchange);
+
+        assertThat(forwarded.getRequest().getHeaders().get("X-User-ID")).containsExactly("u-1");
+        assertThat(forwarded.getRequest().getURI().getQuery()).isEqualTo("userId=u-2");
+    }
+
+    @Test
+    void streamWithoutTokenForwardsNoUserId() {
+        MockServerWebExchange exchange = MockServerWebExchange.from(MockServerHttpRequest
+                .get("/api/recommendations/stream").header("X-User-ID", "u-2"));
+
+        assertThat(forward(exchange).getRequest().getHeaders().containsKey("X-User-ID")).isFalse();
+    }
+
+    private ServerWebExchange forward(ServerWebExchange exchange) {
+        AtomicReference<ServerWebExchange> forwarded = new AtomicReference<>();
+        filter.filter(exchange, next -> {
+            forwarded.set(next);
+            return Mono.empty();
+        }).block();
+        return forwarded.get();
+    }
+}
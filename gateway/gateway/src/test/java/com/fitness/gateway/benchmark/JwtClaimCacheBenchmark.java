@@ -0,0 +1,87 @@
+package com.fitness.gateway.benchmark;
+
+import com.fitness.gateway.JwtClaimCache;
+import com.nimbusds.jose.JWSAlgorithm;
+import com.nimbusds.jose.JWSHeader;
+import com.nimbusds.jose.crypto.RSASSASigner;
+import com.nimbusds.jwt.JWTClaimsSet;
+import com.nimbusds.jwt.SignedJWT;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.security.KeyPair;
+import java.security.KeyPairGenerator;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Date;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Per-request cost of getting the user claims out of the Authorization header.
+ * {@code regexAndParse} is what KeycloakUserSyncFilter used to do, {@code cachedClaims} is the
+ * JwtClaimCache lookup once the resource-server decoder has seen the token.
+ *
+ * Run with: mvn test-compile exec:java -Dexec.classpathScope=test -Dexec.mainClass=org.openjdk.jmh.Main -Dexec.args="JwtClaimCacheBenchmark -f 0"
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class JwtClaimCacheBenchmark {
+
+    private String authorizationHeader;
+    private JwtClaimCache cache;
+
+    @Setup
+    public void setUp() throws Exception {
+        KeyPairGenerator generator = KeyPairGenerator.getInstance("RSA");
+        generator.initialize(2048);
+        KeyPair keyPair = generator.generateKeyPair();
+
+        JWTClaimsSet claims = new JWTClaimsSet.Builder()
+                .subject(UUID.randomUUID().toString())
+                .issuer("http://localhost:8181/realms/fitness-app")
+                .claim("email", "runner@example.com")
+                .claim("given_name", "Road")
+                .claim("family_name", "Runner")
+                .claim("preferred_username", "roadrunner")
+                .expirationTime(Date.from(Instant.now().plus(Duration.ofHours(1))))
+                .issueTime(new Date())
+                .build();
+        SignedJWT jwt = new SignedJWT(new JWSHeader(JWSAlgorithm.RS256), claims);
+        jwt.sign(new RSASSASigner(keyPair.getPrivate()));
+
+        authorizationHeader = "Bearer " + jwt.serialize();
+        cache = new JwtClaimCache(new SimpleMeterRegistry(), 10_000, Duration.ofMinutes(5));
+        cache.claimsFor(authorizationHeader);
+    }
+
+    @Benchmark
+    public Object regexAndParse() throws Exception {
+        String token = authorizationHeader.replaceAll("(?i)^Bearer\\s+", "").trim();
+        JWTClaimsSet claims = SignedJWT.parse(token).getJWTClaimsSet();
+        return new Object[]{
+                claims.getSubject(),
+                claims.getStringClaim("email"),
+                claims.getStringClaim("given_name"),
+                claims.getStringClaim("family_name")
+        };
+    }
+
+    @Benchmark
+    public Object cachedClaims() {
+        return cache.claimsFor(authorizationHeader);
+    }
+}
@@ -0,0 +1,102 @@
+package com.fitness.gateway.recommendation;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.cloud.gateway.filter.GatewayFilterChain;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.server.reactive.ServerHttpResponse;
+import org.springframework.mock.http.server.reactive.MockServerHttpRequest;
+import org.springframework.mock.web.server.MockServerWebExchange;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class RecommendationCacheFilterTest {
+
+    private static final String BODY = "[{\"id\":\"r-1\",\"userId\":\"u-1\"}]";
+
+    private final AtomicInteger upstreamCalls = new AtomicInteger();
+    private final RecommendationResponseCache cache =
+            new RecommendationResponseCache(new SimpleMeterRegistry(), 100, Duration.ofMinutes(10), 1 << 20);
+    private final RecommendationCacheFilter filter = new RecommendationCacheFilter(cache, new SimpleMeterRegistry());
+
+    // stands in for the proxied call to ai-service
+    private final GatewayFilterChain upstream = exchange -> Mono.delay(Duration.ofMillis(100)).then(Mono.defer(() -> {
+        upstreamCalls.incrementAndGet();
+        ServerHttpResponse response = exchange.getResponse();
+        response.setStatusCode(HttpStatus.OK);
+        response.getHeaders().setContentType(MediaType.APPLICATION_JSON);
+        return response.writeWith(Mono.just(response.bufferFactory().wrap(BODY.getBytes(StandardCharsets.UTF_8))));
+    }));
+
+    @Test
+    void pollingWithIfNoneMatchGets304WithoutUpstreamCall() {
+        MockServerWebExchange first = get("/api/recommendations/user/u-1", null);
+        filter.filter(first, upstream).block();
+        String etag = first.getResponse().getHeaders().getETag();
+
+        assertThat(first.getResponse().getStatusCode()).isEqualTo(HttpStatus.OK);
+        assertThat(first.getResponse().getBodyAsString().block()).isEqualTo(BODY);
+        assertThat(etag).isNotNull();
+
+        MockServerWebExchange poll = get("/api/recommendations/user/u-1", etag);
+        filter.filter(poll, upstream).block();
+
+        assertThat(poll.getResponse().getStatusCode()).isEqualTo(HttpStatus.NOT_MODIFIED);
+        assertThat(upstreamCalls).hasValue(1);
+    }
+
+    @Test
+    void concurrentGetsShareOneUpstreamCall() {
+        List<MockServerWebExchange> exchanges = Flux.range(0, 20)
+                .map(i -> get("/api/recommendations/user/u-1", null))
+                .collectList()
+                .block();
+
+        Flux.fromIterable(exchanges)
+                .flatMap(exchange -> filter.filter(exchange, upstream))
+                .blockLast(Duration.ofSeconds(5));
+
+        assertThat(upstreamCalls).hasValue(1);
+        for (MockServerWebExchange exchange : exchanges) {
+            assertThat(exchange.getResponse().getBodyAsString().block()).isEqualTo(BODY);
+        }
+    }
+
+    @Test
+    void invalidationSendsTheNextRequestUpstream() {
+        filter.filter(get("/api/recommendations/user/u-1", null), upstream).block();
+        cache.invalidate("u-1");
+        filter.filter(get("/api/recommendations/user/u-1", null), upstream).block();
+        filter.filter(get("/api/recommendations/user/u-2", null), upstream).block();
+
+        assertThat(upstreamCalls).hasValue(3);
+    }
+
+    @Test
+    void otherRecommendationRoutesAreNotCached() {
+        filter.filter(get("/api/recommendations/activity/a-1", null), upstream).block();
+        filter.filter(get("/api/recommendations/activity/a-1", null), upstream).block();
+        // the SSE stream must be passed through as it is written, never buffered for the cache
+        filter.filter(get("/api/recommendations/stream?userId=u-1", null), upstream).block();
+        filter.filter(get("/api/recommendations/user/u-1/summaries", null), upstream).block();
+
+        assertThat(upstreamCalls).hasValue(4);
+    }
+
+    private static MockServerWebExchange get(String path, String ifNoneMatch) {
+        MockServerHttpRequest.BaseBuilder<?> request = MockServerHttpRequest.get(path);
+        if (ifNoneMatch != null) {
+            request.header(HttpHeaders.IF_NONE_MATCH, ifNoneMatch);
+        }
+        return MockServerWebExchange.from(request);
+    }
+}
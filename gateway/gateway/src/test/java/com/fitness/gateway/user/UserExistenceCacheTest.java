@@ -0,0 +1,37 @@
+package com.fitness.gateway.user;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import reactor.core.Disposable;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class UserExistenceCacheTest {
+
+    private final UserService userService = mock(UserService.class);
+    private final UserExistenceCache cache = new UserExistenceCache(userService, new SimpleMeterRegistry(),
+            100, Duration.ofMinutes(10), Duration.ofSeconds(5));
+
+    @Test
+    void oneCallerCancellingDoesNotFailTheOthers() {
+        AtomicInteger lookups = new AtomicInteger();
+        when(userService.validateUser("u-1")).thenReturn(Mono.defer(() -> {
+            lookups.incrementAndGet();
+            return Mono.delay(Duration.ofMillis(200)).thenReturn(true);
+        }));
+
+        // e.g. the client of the first request disconnected
+        Disposable cancelled = cache.exists("u-1").subscribe();
+        Mono<Boolean> waiting = cache.exists("u-1");
+        cancelled.dispose();
+
+        assertThat(waiting.block(Duration.ofSeconds(5))).isTrue();
+        assertThat(lookups).hasValue(1);
+    }
+}
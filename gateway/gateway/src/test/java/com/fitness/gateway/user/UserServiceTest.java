@@ -0,0 +1,65 @@
+package com.fitness.gateway.user;
+
+import com.fitness.common.user.RegisterRequest;
+import com.fitness.common.user.UserResponse;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.web.reactive.function.client.ClientResponse;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class UserServiceTest {
+
+    private final AtomicInteger registrations = new AtomicInteger();
+    private final UserService userService = new UserService();
+
+    UserServiceTest() {
+        WebClient webClient = WebClient.builder()
+                .exchangeFunction(request -> {
+                    registrations.incrementAndGet();
+                    return Mono.just(ClientResponse.create(HttpStatus.OK)
+                                    .header(HttpHeaders.CONTENT_TYPE, MediaType.APPLICATION_JSON_VALUE)
+                                    .body("{\"id\":\"u-1\",\"keycloakId\":\"kc-runner\",\"email\":\"runner@example.com\"}")
+                                    .build())
+                            .delayElement(Duration.ofMillis(100));
+                })
+                .build();
+        ReflectionTestUtils.setField(userService, "userServiceWebClient", webClient);
+    }
+
+    @Test
+    void concurrentRegistrationsOfOneUserShareOneCall() {
+        RegisterRequest request = new RegisterRequest("runner@example.com", "kc-runner", "dummy@123123", "Road", "Runner");
+
+        List<UserResponse> responses = Flux.range(0, 50)
+                .flatMap(i -> Mono.defer(() -> userService.registerUser(request)).subscribeOn(Schedulers.parallel()))
+                .collectList()
+                .block(Duration.ofSeconds(5));
+
+        assertThat(responses).hasSize(50).allSatisfy(response -> assertThat(response.id()).isEqualTo("u-1"));
+        assertThat(registrations).hasValue(1);
+    }
+
+    @Test
+    void registrationAfterCompletionCallsAgain() {
+        RegisterRequest request = new RegisterRequest("runner@example.com", "kc-runner", "dummy@123123", "Road", "Runner");
+
+        userService.registerUser(request).block(Duration.ofSeconds(5));
+        // the finished call is forgotten right after its callers have been notified
+        Mono.delay(Duration.ofMillis(50)).block();
+        userService.registerUser(request).block(Duration.ofSeconds(5));
+
+        assertThat(registrations).hasValue(2);
+    }
+}
@@ -0,0 +1,94 @@
+package com.fitness.gateway.user;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.web.reactive.function.client.ClientResponse;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class UserValidationTest {
+
+    private static final Duration MAX_WAIT = Duration.ofMillis(5);
+
+    private final AtomicInteger calls = new AtomicInteger();
+    private final UserService userService = new UserService();
+
+    private Duration userServiceLatency = Duration.ofMillis(300);
+
+    UserValidationTest() {
+        WebClient webClient = WebClient.builder()
+                .exchangeFunction(request -> {
+                    calls.incrementAndGet();
+                    return Mono.just(ClientResponse.create(HttpStatus.OK)
+                                    .header(HttpHeaders.CONTENT_TYPE, MediaType.APPLICATION_JSON_VALUE)
+                                    .body("true")
+                                    .build())
+                            .delayElement(userServiceLatency);
+                })
+                .build();
+        ReflectionTestUtils.setField(userService, "userServiceWebClient", webClient);
+        ReflectionTestUtils.setField(userService, "maxItems", 100);
+        ReflectionTestUtils.setField(userService, "maxWait", MAX_WAIT);
+        ReflectionTestUtils.setField(userService, "concurrency", 2);
+        ReflectionTestUtils.setField(userService, "timeout", Duration.ofSeconds(2));
+        userService.start();
+    }
+
+    @AfterEach
+    void tearDown() {
+        userService.stop();
+    }
+
+    @Test
+    void lookupsWaitWhileEveryBatchIsInFlight() {
+        // two single-id batches occupy both slots; the third flush comes due with no demand downstream
+        Mono<Boolean> first = userService.validateUser("kc-1").cache();
+        first.subscribe();
+        Mono.delay(MAX_WAIT.multipliedBy(10)).block();
+        Mono<Boolean> second = userService.validateUser("kc-2").cache();
+        second.subscribe();
+        Mono.delay(MAX_WAIT.multipliedBy(10)).block();
+        Mono<Boolean> third = userService.validateUser("kc-3");
+
+        assertThat(third.block(Duration.ofSeconds(2))).isTrue();
+        assertThat(first.block(Duration.ofSeconds(2))).isTrue();
+        assertThat(second.block(Duration.ofSeconds(2))).isTrue();
+        // the pipeline is still running afterwards
+        assertThat(userService.validateUser("kc-4").block(Duration.ofSeconds(2))).isTrue();
+        assertThat(calls).hasValue(4);
+    }
+
+    @Test
+    void hungUserServiceFailsTheBatchAfterTheTimeout() {
+        userServiceLatency = Duration.ofSeconds(30);
+        ReflectionTestUtils.setField(userService, "timeout", Duration.ofMillis(200));
+
+        Mono<Boolean> lookup = userService.validateUser("kc-1");
+
+        long started = System.nanoTime();
+        assertThat(lookup.onErrorReturn(false).block(Duration.ofSeconds(2))).isFalse();
+        assertThat(Duration.ofNanos(System.nanoTime() - started)).isLessThan(Duration.ofSeconds(1));
+    }
+
+    @Test
+    void stoppingFailsLookupsStillWaiting() {
+        userServiceLatency = Duration.ofSeconds(30);
+        Mono<Boolean> lookup = userService.validateUser("kc-1").cache();
+        lookup.subscribe(value -> { }, e -> { });
+        Mono.delay(MAX_WAIT.multipliedBy(10)).block();
+
+        userService.stop();
+
+        assertThat(lookup.materialize().block(Duration.ofSeconds(1)).isOnError()).isTrue();
+        assertThat(userService.validateUser("kc-2").materialize().block(Duration.ofSeconds(1)).isOnError()).isTrue();
+    }
+}
@@ -2,8 +2,12 @@ package com.fitness.userservice;
 
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.cache.annotation.EnableCaching;
+import org.springframework.core.Ordered;
 
 @SpringBootApplication
+// ahead of the transaction interceptor, so a cache hit does not open a transaction
+@EnableCaching(order = Ordered.LOWEST_PRECEDENCE - 1)
 public class UserserviceApplication {
 
 	public static void main(String[] args) {
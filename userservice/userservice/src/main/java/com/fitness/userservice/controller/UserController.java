@@ -1,8 +1,8 @@
 package com.fitness.userservice.controller;
 
 
-import com.fitness.userservice.dto.RegisterRequest;
-import com.fitness.userservice.dto.UserResponse;
+import com.fitness.common.user.RegisterRequest;
+import com.fitness.common.user.UserResponse;
 import com.fitness.userservice.service.UserService;
 import jakarta.validation.Valid;
 import lombok.AllArgsConstructor;
@@ -10,6 +10,9 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
+import java.util.Map;
+import java.util.Set;
+
 @RestController
 @RequestMapping("api/users")
 @AllArgsConstructor
@@ -32,4 +35,10 @@ public class UserController {
     public ResponseEntity<Boolean> validateUserId(@PathVariable String userId){
         return ResponseEntity.ok(userService.existByUserId(userId));
     }
+
+    // Bulk validation: keycloak id -> exists, one entry per requested id
+    @PostMapping("/validate")
+    public ResponseEntity<Map<String, Boolean>> validateUserIds(@RequestBody Set<String> userIds){
+        return ResponseEntity.ok(userService.existByUserIds(userIds));
+    }
 }
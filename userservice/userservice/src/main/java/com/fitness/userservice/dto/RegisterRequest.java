@@ -1,25 +0,0 @@
-package com.fitness.userservice.dto;
-
-
-import jakarta.validation.constraints.Email;
-import jakarta.validation.constraints.NotBlank;
-import jakarta.validation.constraints.Size;
-import lombok.Data;
-
-@Data
-public class RegisterRequest {
-
-    @Email(message = "Email should be valid")
-    @NotBlank(message = "Email is mandatory")
-    private String email;
-
-    private String keycloakId;
-
-    @NotBlank(message = "Password is mandatory")
-    @Size(min = 6,message ="Password must be atleast 6 digit")
-    private String password;
-
-    private String firstName;
-
-    private String lastName;
-}
@@ -0,0 +1,19 @@
+package com.fitness.userservice.mapper;
+
+import com.fitness.common.user.RegisterRequest;
+import com.fitness.common.user.UserResponse;
+import com.fitness.userservice.models.User;
+import org.mapstruct.Mapper;
+import org.mapstruct.Mapping;
+
+@Mapper(componentModel = "spring")
+public interface UserMapper {
+
+    @Mapping(target = "id", ignore = true)
+    @Mapping(target = "role", ignore = true)
+    @Mapping(target = "createdAt", ignore = true)
+    @Mapping(target = "updatedAt", ignore = true)
+    User toEntity(RegisterRequest request);
+
+    UserResponse toResponse(User user);
+}
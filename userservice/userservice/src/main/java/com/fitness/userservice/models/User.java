@@ -12,7 +12,9 @@ import org.hibernate.validator.constraints.UniqueElements;
 import java.time.LocalDateTime;
 
 @Entity
-@Table(name = "users")
+// every validation call from the gateway and activityservice looks a user up by keycloakId; the index is
+// unique so that registration can insert with ON CONFLICT DO NOTHING (several users may have no keycloakId)
+@Table(name = "users", indexes = @Index(name = "users_keycloak_id_key", columnList = "keycloakId", unique = true))
 @Data
 @AllArgsConstructor
 @NoArgsConstructor
@@ -4,7 +4,16 @@ import com.fitness.userservice.models.User;
 import jakarta.validation.constraints.Email;
 import jakarta.validation.constraints.NotBlank;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
 
 @Repository
 public interface UserRepository extends JpaRepository<User, String> {
@@ -13,4 +22,26 @@ public interface UserRepository extends JpaRepository<User, String> {
     Boolean existsByKeycloakId(String userId);
 
     User findByEmail(String email);
+
+    Optional<User> findByKeycloakId(String keycloakId);
+
+    // Returns 0 instead of failing when the keycloakId or the email is already taken, so concurrent
+    // registrations of the same user cannot race into a constraint violation
+    @Modifying
+    @Transactional
+    @Query(value = """
+            insert into users (id, keycloak_id, email, password, first_name, last_name, role, created_at, updated_at)
+            values (:id, :keycloakId, :email, :password, :firstName, :lastName, :role, :now, :now)
+            on conflict do nothing""", nativeQuery = true)
+    int insertIfAbsent(@Param("id") String id,
+                       @Param("keycloakId") String keycloakId,
+                       @Param("email") String email,
+                       @Param("password") String password,
+                       @Param("firstName") String firstName,
+                       @Param("lastName") String lastName,
+                       @Param("role") String role,
+                       @Param("now") LocalDateTime now);
+
+    @Query("select u.keycloakId from User u where u.keycloakId in :keycloakIds")
+    List<String> findExistingKeycloakIds(@Param("keycloakIds") Collection<String> keycloakIds);
 }
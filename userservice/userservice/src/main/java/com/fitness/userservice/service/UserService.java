@@ -1,71 +1,121 @@
 package com.fitness.userservice.service;
 
-import com.fitness.userservice.dto.RegisterRequest;
-import com.fitness.userservice.dto.UserResponse;
+import com.fitness.common.user.RegisterRequest;
+import com.fitness.common.user.UserResponse;
+import com.fitness.userservice.mapper.UserMapper;
 import com.fitness.userservice.models.User;
 import com.fitness.userservice.repository.UserRepository;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.annotation.CacheEvict;
+import org.springframework.cache.annotation.Cacheable;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
 
 @Service
 @Slf4j
 public class UserService {
 
+    public static final String PROFILE_CACHE = "userProfiles";
+    public static final String EXISTS_CACHE = "userExists";
+
     @Autowired
     private UserRepository userRepository;
 
+    @Autowired
+    private UserMapper userMapper;
 
-    public UserResponse register(RegisterRequest request) {
+    @Autowired
+    private CacheManager cacheManager;
 
+    @Value("${user.validation.in-query-size:500}")
+    private int inQuerySize;
 
-        if(userRepository.existsByEmail(request.getEmail())){
-            User existingUser = userRepository.findByEmail(request.getEmail());
-            return extractToUserResponse(existingUser);
 
+    /**
+     * Registers the user unless one with the same keycloakId or email exists, and returns the stored user
+     * either way. The insert is a single ON CONFLICT DO NOTHING statement, so parallel first requests of a
+     * new user store it exactly once.
+     */
+    @CacheEvict(cacheNames = PROFILE_CACHE, key = "#result.id()")
+    public UserResponse register(RegisterRequest request) {
+        User user = userMapper.toEntity(request);
+        int inserted = userRepository.insertIfAbsent(UUID.randomUUID().toString(), user.getKeycloakId(),
+                user.getEmail(), user.getPassword(), user.getFirstName(), user.getLastName(),
+                user.getRole().name(), LocalDateTime.now());
+        if (inserted == 0) {
+            log.debug("User {} is already registered", request.email());
         }
-        User user = new User();
-        user.setKeycloakId(request.getKeycloakId());
-        user.setEmail(request.getEmail());
-        user.setPassword(request.getPassword());
-        user.setFirstName(request.getFirstName());
-        user.setLastName(request.getLastName());
-
-        User savedUser = userRepository.save(user);
-
-        return extractToUserResponse(savedUser);
-
 
+        User stored = Optional.ofNullable(request.keycloakId())
+                .flatMap(userRepository::findByKeycloakId)
+                .orElseGet(() -> userRepository.findByEmail(request.email()));
+        return userMapper.toResponse(stored);
     }
 
+    // read-only transactions are served by the replica pool when one is configured
+    @Cacheable(cacheNames = PROFILE_CACHE)
+    @Transactional(readOnly = true)
     public UserResponse getUserProfile(String userId) {
 
         User user =  userRepository.findById(userId).orElseThrow(() ->new RuntimeException("User Not Found"));;
 
 
-        return extractToUserResponse(user);
-
-    }
-
-    private UserResponse extractToUserResponse(User user) {
-
-        UserResponse userResponse = new UserResponse();
+        return userMapper.toResponse(user);
 
-        userResponse.setId(user.getId());
-        userResponse.setKeycloakId(user.getKeycloakId());
-        userResponse.setEmail(user.getEmail());
-        userResponse.setPassword(user.getPassword());
-        userResponse.setFirstName(user.getFirstName());
-        userResponse.setLastName(user.getLastName());
-        userResponse.setCreatedAt(user.getCreatedAt());
-        userResponse.setUpdatedAt(user.getUpdatedAt());
-        return userResponse;
     }
 
+    // Only hits are cached: a user is never deleted, while a miss may be registered a moment later on another node
+    @Cacheable(cacheNames = EXISTS_CACHE, unless = "!#result")
+    @Transactional(readOnly = true)
     public Boolean existByUserId(String userId) {
-        log.info("Calling User Service to validate user Id: {}", userId);
+        log.debug("Calling User Service to validate user Id: {}", userId);
         return userRepository.existsByKeycloakId(userId);
     }
 
+    /**
+     * Bulk form of existByUserId. Ids already known from the cache are answered from it, the rest are looked
+     * up with IN queries of at most user.validation.in-query-size ids, and the hits are cached.
+     */
+    @Transactional(readOnly = true)
+    public Map<String, Boolean> existByUserIds(Collection<String> userIds) {
+        Cache cache = cacheManager.getCache(EXISTS_CACHE);
+        Map<String, Boolean> result = new LinkedHashMap<>();
+        List<String> unknown = new ArrayList<>();
+        for (String userId : userIds) {
+            if (result.containsKey(userId)) {
+                continue;
+            }
+            if (cache != null && Boolean.TRUE.equals(cache.get(userId, Boolean.class))) {
+                result.put(userId, true);
+            } else {
+                result.put(userId, false);
+                unknown.add(userId);
+            }
+        }
 
+        for (int from = 0; from < unknown.size(); from += inQuerySize) {
+            List<String> chunk = unknown.subList(from, Math.min(from + inQuerySize, unknown.size()));
+            for (String found : userRepository.findExistingKeycloakIds(chunk)) {
+                result.put(found, true);
+                if (cache != null) {
+                    cache.put(found, true);
+                }
+            }
+        }
+        log.debug("Validated {} user ids, {} looked up in the database", result.size(), unknown.size());
+        return result;
+    }
 }
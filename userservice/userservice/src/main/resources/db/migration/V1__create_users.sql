@@ -0,0 +1,17 @@
+-- Schema of the users table as the entity declares it; production runs with ddl-auto=validate against it
+create table users (
+    id          varchar(36)  not null,
+    keycloak_id varchar(255),
+    email       varchar(255) not null,
+    password    varchar(255) not null,
+    first_name  varchar(255),
+    last_name   varchar(255),
+    role        varchar(32)  not null,
+    created_at  timestamp(6),
+    updated_at  timestamp(6),
+    constraint users_pkey primary key (id),
+    constraint users_email_key unique (email)
+);
+
+-- validation lookups by keycloakId; unique so registration can insert with ON CONFLICT DO NOTHING
+create unique index users_keycloak_id_key on users (keycloak_id);
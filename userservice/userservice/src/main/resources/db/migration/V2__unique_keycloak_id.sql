@@ -0,0 +1,17 @@
+-- Databases created by ddl-auto were baselined at version 1 and never ran V1, so they only have the
+-- non-unique users_keycloak_id_idx. Duplicate keycloak ids there are distinct rows (email is unique):
+-- the oldest keeps the id, the others lose it and are matched by email again on their next login.
+update users
+set keycloak_id = null
+where id in (
+    select id
+    from (select id,
+                 row_number() over (partition by keycloak_id order by created_at nulls last, id) as rn
+          from users
+          where keycloak_id is not null) ranked
+    where rn > 1
+);
+
+drop index if exists users_keycloak_id_idx;
+
+create unique index if not exists users_keycloak_id_key on users (keycloak_id);
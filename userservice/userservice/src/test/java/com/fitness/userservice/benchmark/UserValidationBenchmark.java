@@ -0,0 +1,100 @@
+package com.fitness.userservice.benchmark;
+
+import com.fitness.userservice.UserserviceApplication;
+import com.fitness.userservice.models.User;
+import com.fitness.userservice.repository.UserRepository;
+import com.fitness.userservice.service.UserService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Validations per second through UserService.existByUserId, which the gateway and activityservice call for
+ * every request, against the indexed repository query it used to run each time. Runs the real Spring
+ * context on an in-memory H2 with 10k registered users; the HTTP layer is not included.
+ *
+ * Run with: mvn test-compile exec:java -Dexec.classpathScope=test -Dexec.mainClass=org.openjdk.jmh.Main -Dexec.args="UserValidationBenchmark -f 0"
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Threads(4)
+@Fork(1)
+public class UserValidationBenchmark {
+
+    private static final int USERS = 10_000;
+
+    private ConfigurableApplicationContext context;
+    private UserService userService;
+    private UserRepository userRepository;
+    private String[] keycloakIds;
+
+    @Setup
+    public void setUp() {
+        context = new SpringApplicationBuilder(UserserviceApplication.class)
+                .web(WebApplicationType.NONE)
+                .properties(
+                        "spring.config.import=",
+                        "spring.cloud.config.enabled=false",
+                        "eureka.client.enabled=false",
+                        "spring.datasource.url=jdbc:h2:mem:user-benchmark;DB_CLOSE_DELAY=-1",
+                        "spring.jpa.hibernate.ddl-auto=create-drop",
+                        "spring.cache.type=caffeine",
+                        "spring.cache.caffeine.spec=maximumSize=100000,expireAfterWrite=10m",
+                        "logging.level.root=WARN")
+                .run();
+        userService = context.getBean(UserService.class);
+        userRepository = context.getBean(UserRepository.class);
+
+        keycloakIds = new String[USERS];
+        List<User> users = new ArrayList<>(USERS);
+        for (int i = 0; i < USERS; i++) {
+            keycloakIds[i] = UUID.randomUUID().toString();
+            User user = new User();
+            user.setKeycloakId(keycloakIds[i]);
+            user.setEmail("user" + i + "@example.com");
+            user.setPassword("secret");
+            users.add(user);
+        }
+        userRepository.saveAll(users);
+        // steady state of a running node: every active user has been validated before
+        for (String keycloakId : keycloakIds) {
+            userService.existByUserId(keycloakId);
+        }
+    }
+
+    @TearDown
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public Boolean cachedValidation() {
+        return userService.existByUserId(keycloakIds[ThreadLocalRandom.current().nextInt(USERS)]);
+    }
+
+    @Benchmark
+    public Boolean repositoryValidation() {
+        return userRepository.existsByKeycloakId(keycloakIds[ThreadLocalRandom.current().nextInt(USERS)]);
+    }
+}
@@ -0,0 +1,150 @@
+package com.fitness.userservice.config;
+
+import com.fitness.common.user.RegisterRequest;
+import com.fitness.common.user.UserResponse;
+import com.fitness.userservice.models.User;
+import com.fitness.userservice.repository.UserRepository;
+import com.fitness.userservice.service.UserService;
+import io.zonky.test.db.postgres.embedded.EmbeddedPostgres;
+import org.flywaydb.core.Flyway;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+
+import javax.sql.DataSource;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * The prod profile against a real PostgreSQL started in-process: Flyway creates the schema, Hibernate
+ * validates it, and read-only transactions go to the replica. The replica is a second database on the
+ * same server, so a row that only exists there shows which pool served a read.
+ */
+@SpringBootTest(properties = {
+        "spring.flyway.enabled=true",
+        "spring.jpa.hibernate.ddl-auto=validate",
+        "spring.jpa.properties.hibernate.jdbc.batch_size=50",
+        "spring.jpa.properties.hibernate.order_inserts=true",
+        "eureka.client.enabled=false"
+})
+class PostgresProfileTest {
+
+    private static final EmbeddedPostgres POSTGRES = start();
+
+    @Autowired
+    private DataSource dataSource;
+
+    @Autowired
+    private UserService userService;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @DynamicPropertySource
+    static void datasources(DynamicPropertyRegistry registry) {
+        registry.add("spring.datasource.url", () -> POSTGRES.getJdbcUrl("postgres", "users") + "&reWriteBatchedInserts=true");
+        registry.add("spring.datasource.username", () -> "postgres");
+        registry.add("spring.datasource.driver-class-name", () -> "org.postgresql.Driver");
+        registry.add("user.datasource.replica.jdbc-url", () -> POSTGRES.getJdbcUrl("postgres", "users_replica"));
+        registry.add("user.datasource.replica.username", () -> "postgres");
+        registry.add("user.datasource.replica.read-only", () -> "true");
+    }
+
+    @AfterAll
+    static void stop() throws IOException {
+        POSTGRES.close();
+    }
+
+    @Test
+    void flywaySchemaAcceptsUpsertAndBatchInserts() {
+        assertThat(dataSource).isInstanceOf(LazyConnectionDataSourceProxy.class);
+
+        RegisterRequest request = new RegisterRequest("runner@example.com", "kc-runner", "dummy@123123", "Road", "Runner");
+        UserResponse first = userService.register(request);
+        UserResponse second = userService.register(request);
+        assertThat(second.id()).isEqualTo(first.id());
+
+        List<User> users = new ArrayList<>();
+        for (int i = 0; i < 100; i++) {
+            User user = new User();
+            user.setKeycloakId("kc-" + i);
+            user.setEmail("user" + i + "@example.com");
+            user.setPassword("secret");
+            users.add(user);
+        }
+        userRepository.saveAll(users);
+        // count() is a read-only CRUD method and would be answered by the replica
+        assertThat(new JdbcTemplate(primary()).queryForObject("select count(*) from users", Long.class)).isEqualTo(101);
+    }
+
+    @Test
+    void readOnlyLookupsUseTheReplica() {
+        new JdbcTemplate(replica()).update("""
+                insert into users (id, keycloak_id, email, password, role)
+                values ('r-1', 'kc-replica-only', 'replica@example.com', 'secret', 'USER')""");
+
+        assertThat(userService.existByUserId("kc-replica-only")).isTrue();
+        assertThat(userService.existByUserIds(List.of("kc-replica-only", "kc-nobody")))
+                .isEqualTo(Map.of("kc-replica-only", true, "kc-nobody", false));
+        assertThat(userRepository.existsByKeycloakId("kc-replica-only")).isFalse(); // not read-only: primary
+    }
+
+    @Test
+    void baselinedDdlAutoSchemaGetsTheUniqueKeycloakIndex() {
+        // the schema ddl-auto=update left behind before Flyway, with a duplicated keycloak id
+        DataSource legacy = POSTGRES.getDatabase("postgres", "users_legacy");
+        JdbcTemplate jdbc = new JdbcTemplate(legacy);
+        jdbc.execute("""
+                create table users (
+                    id varchar(36) primary key, keycloak_id varchar(255), email varchar(255) not null unique,
+                    password varchar(255) not null, first_name varchar(255), last_name varchar(255),
+                    role varchar(32) not null, created_at timestamp(6), updated_at timestamp(6))""");
+        jdbc.execute("create index users_keycloak_id_idx on users (keycloak_id)");
+        jdbc.update("""
+                insert into users (id, keycloak_id, email, password, role, created_at) values
+                ('u-1', 'kc-dup', 'first@example.com', 'secret', 'USER', '2025-01-01'),
+                ('u-2', 'kc-dup', 'second@example.com', 'secret', 'USER', '2025-02-01')""");
+
+        Flyway.configure().dataSource(legacy).baselineOnMigrate(true).baselineVersion("1").load().migrate();
+
+        assertThat(jdbc.queryForList("select id from users where keycloak_id = 'kc-dup'", String.class))
+                .containsExactly("u-1");
+        assertThat(jdbc.queryForList("select indexname from pg_indexes where tablename = 'users'", String.class))
+                .contains("users_keycloak_id_key")
+                .doesNotContain("users_keycloak_id_idx");
+        assertThat(jdbc.queryForObject("""
+                select indisunique from pg_index where indexrelid = 'users_keycloak_id_key'::regclass""", Boolean.class))
+                .isTrue();
+    }
+
+    private static DataSource primary() {
+        return POSTGRES.getDatabase("postgres", "users");
+    }
+
+    private static DataSource replica() {
+        return POSTGRES.getDatabase("postgres", "users_replica");
+    }
+
+    private static EmbeddedPostgres start() {
+        try {
+            EmbeddedPostgres postgres = EmbeddedPostgres.start();
+            JdbcTemplate admin = new JdbcTemplate(postgres.getPostgresDatabase());
+            admin.execute("create database users");
+            admin.execute("create database users_replica");
+            admin.execute("create database users_legacy");
+            Flyway.configure().dataSource(postgres.getDatabase("postgres", "users_replica")).load().migrate();
+            return postgres;
+        } catch (IOException e) {
+            throw new IllegalStateException("Could not start embedded PostgreSQL", e);
+        }
+    }
+}
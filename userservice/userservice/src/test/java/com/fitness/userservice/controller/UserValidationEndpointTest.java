@@ -0,0 +1,89 @@
+package com.fitness.userservice.controller;
+
+import com.fitness.userservice.models.User;
+import com.fitness.userservice.repository.UserRepository;
+import com.fitness.userservice.service.UserService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.cache.CacheManager;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.bean.override.mockito.MockitoSpyBean;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.util.List;
+
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.Mockito.clearInvocations;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * POST /api/users/validate against H2: unknown ids are looked up in IN queries of user.validation.in-query-size,
+ * and ids found once are answered from the userExists cache afterwards.
+ */
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:validation;MODE=PostgreSQL;DB_CLOSE_DELAY=-1",
+        "spring.cache.type=caffeine",
+        "spring.cache.cache-names=userProfiles,userExists",
+        "user.validation.in-query-size=2",
+        "eureka.client.enabled=false"
+})
+@AutoConfigureMockMvc
+class UserValidationEndpointTest {
+
+    private static final String IDS = "[\"kc-1\", \"kc-2\", \"kc-3\", \"kc-nobody\", \"kc-1\"]";
+    private static final String EXPECTED = "{\"kc-1\": true, \"kc-2\": true, \"kc-3\": true, \"kc-nobody\": false}";
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private CacheManager cacheManager;
+
+    @MockitoSpyBean
+    private UserRepository userRepository;
+
+    @BeforeEach
+    void setUp() {
+        userRepository.deleteAll();
+        cacheManager.getCache(UserService.EXISTS_CACHE).clear();
+        for (int i = 1; i <= 3; i++) {
+            User user = new User();
+            user.setKeycloakId("kc-" + i);
+            user.setEmail("user" + i + "@example.com");
+            user.setPassword("secret");
+            userRepository.save(user);
+        }
+        clearInvocations(userRepository);
+    }
+
+    @Test
+    void answersEveryRequestedIdUsingChunkedInQueries() throws Exception {
+        mockMvc.perform(post("/api/users/validate").contentType(MediaType.APPLICATION_JSON).content(IDS))
+                .andExpect(status().isOk())
+                .andExpect(content().json(EXPECTED, true));
+
+        // four distinct ids, two per IN query
+        verify(userRepository, times(2)).findExistingKeycloakIds(anyCollection());
+    }
+
+    @Test
+    void repeatedValidationOnlyQueriesIdsNotFoundBefore() throws Exception {
+        mockMvc.perform(post("/api/users/validate").contentType(MediaType.APPLICATION_JSON).content(IDS))
+                .andExpect(status().isOk());
+        clearInvocations(userRepository);
+
+        mockMvc.perform(post("/api/users/validate").contentType(MediaType.APPLICATION_JSON).content(IDS))
+                .andExpect(status().isOk())
+                .andExpect(content().json(EXPECTED, true));
+
+        // kc-1..kc-3 come from the cache; misses are not cached, so kc-nobody is looked up again
+        verify(userRepository).findExistingKeycloakIds(List.of("kc-nobody"));
+    }
+}
@@ -0,0 +1,73 @@
+package com.fitness.userservice.service;
+
+import com.fitness.common.user.RegisterRequest;
+import com.fitness.common.user.UserResponse;
+import com.fitness.userservice.repository.UserRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:registration;MODE=PostgreSQL;DB_CLOSE_DELAY=-1",
+        "eureka.client.enabled=false"
+})
+class UserRegistrationTest {
+
+    @Autowired
+    private UserService userService;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @BeforeEach
+    void clean() {
+        userRepository.deleteAll();
+    }
+
+    @Test
+    void concurrentFirstLoginRegistersOnce() throws Exception {
+        RegisterRequest request = new RegisterRequest("runner@example.com", "kc-runner", "dummy@123123", "Road", "Runner");
+        int callers = 50;
+        ExecutorService executor = Executors.newFixedThreadPool(callers);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<UserResponse>> results = new ArrayList<>();
+        try {
+            for (int i = 0; i < callers; i++) {
+                results.add(executor.submit(() -> {
+                    start.await();
+                    return userService.register(request);
+                }));
+            }
+            start.countDown();
+
+            String id = results.get(0).get().id();
+            for (Future<UserResponse> result : results) {
+                assertThat(result.get().id()).isEqualTo(id);
+                assertThat(result.get().keycloakId()).isEqualTo("kc-runner");
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+        assertThat(userRepository.count()).isEqualTo(1);
+    }
+
+    @Test
+    void existingEmailReturnsStoredUser() {
+        UserResponse first = userService.register(new RegisterRequest("walker@example.com", null, "secret1", "Sky", "Walker"));
+        UserResponse second = userService.register(new RegisterRequest("walker@example.com", "kc-walker", "secret2", "Sky", "Walker"));
+
+        assertThat(second.id()).isEqualTo(first.id());
+        assertThat(second.keycloakId()).isNull();
+        assertThat(userRepository.count()).isEqualTo(1);
+    }
+}